@@ -0,0 +1,101 @@
+package springContents.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares entity extraction with the Aho-Corasick recognizer against the previous
+ * approach of calling String.contains for every dictionary name.
+ * Run with: ./gradlew :app:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityRecognizerBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ba", "ch", "da", "el", "fi", "go", "ha", "ka", "le", "mi", "no", "pa", "ri", "sha", "tz", "vi", "ya", "zo"
+    };
+
+    @Param({"10000", "50000"})
+    public int dictionarySize;
+
+    private List<String> rebbiNames;
+    private List<String> topicNames;
+    private List<String> institutionNames;
+    private EntityRecognizer recognizer;
+    private String query;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        rebbiNames = new ArrayList<>();
+        topicNames = new ArrayList<>();
+        institutionNames = new ArrayList<>();
+        for (int i = 0; i < dictionarySize; i++) {
+            switch (i % 3) {
+                case 0 -> rebbiNames.add("rabbi " + word(random) + " " + word(random));
+                case 1 -> topicNames.add(word(random) + " " + word(random));
+                default -> institutionNames.add("yeshivas " + word(random) + " " + word(random));
+            }
+        }
+        recognizer = EntityRecognizer.build(1, rebbiNames, topicNames, institutionNames);
+        query = "Shiur by " + rebbiNames.get(rebbiNames.size() / 2) + " on " + topicNames.get(7)
+                + " given at " + institutionNames.get(institutionNames.size() - 1) + " about bava metzia";
+    }
+
+    @Benchmark
+    public ParsedQuery containsLoop() {
+        ParsedQuery parsed = new ParsedQuery();
+        String lowerQuery = query.toLowerCase();
+        for (String rebbi : rebbiNames) {
+            if (lowerQuery.contains(rebbi)) {
+                parsed.rebbiNames.add(rebbi);
+            }
+        }
+        for (String topic : topicNames) {
+            if (lowerQuery.contains(topic.toLowerCase())) {
+                parsed.topicNames.add(topic);
+            }
+        }
+        for (String institution : institutionNames) {
+            if (lowerQuery.contains(institution.toLowerCase())) {
+                parsed.institutionNames.add(institution);
+            }
+        }
+        return parsed;
+    }
+
+    @Benchmark
+    public ParsedQuery ahoCorasick() {
+        ParsedQuery parsed = new ParsedQuery();
+        recognizer.recognize(query, parsed);
+        return parsed;
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+}
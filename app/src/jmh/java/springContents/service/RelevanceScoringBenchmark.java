@@ -0,0 +1,173 @@
+package springContents.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import springContents.model.SearchDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scoring one query's candidates with precomputed token sets against the previous
+ * approach of lowercasing the title and description of every candidate for every keyword.
+ * The gc profiler is enabled in build.gradle, so the gc.alloc.rate.norm column gives the
+ * bytes allocated per query.
+ * Run with: ./gradlew :app:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelevanceScoringBenchmark {
+
+    private static final String[] WORDS = {
+            "shabbos", "gemara", "bava", "metzia", "daf", "yomi", "halacha", "tefillah", "chumash", "parsha",
+            "mishna", "brachos", "kiddushin", "teshuva", "emunah", "hilchos", "moadim", "pesach", "sukkos", "yevamos"
+    };
+
+    @Param({"1000", "10000"})
+    public int candidates;
+
+    private List<SearchDocument> documents;
+    private ParsedQuery parsed;
+    private String lowerQuery;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        documents = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            SearchDocument document = new SearchDocument();
+            document.setType("RECORDING");
+            document.setId((long) i);
+            document.setTitle(sentence(random, 4));
+            document.setDescription(sentence(random, 25));
+            document.setRebbiName("Rabbi " + WORDS[random.nextInt(WORDS.length)] + " Cohen");
+            document.setTopicName(WORDS[random.nextInt(WORDS.length)]);
+            document.setInstitutionName("Yeshivas " + WORDS[random.nextInt(WORDS.length)]);
+            document.normalize();
+            documents.add(document);
+        }
+
+        String query = "Rabbi Shabbos Cohen gemara bava metzia hilchos";
+        lowerQuery = query.toLowerCase();
+        parsed = new ParsedQuery();
+        parsed.rebbiNames.add("rabbi shabbos cohen");
+        parsed.topicNames.add("gemara");
+        parsed.keywords.add("bava");
+        parsed.keywords.add("metzia");
+        parsed.keywords.add("hilchos");
+    }
+
+    @Benchmark
+    public long lowercaseContains() {
+        long total = 0;
+        for (SearchDocument document : documents) {
+            total += legacyScore(document);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long tokenSets() {
+        long total = 0;
+        for (SearchDocument document : documents) {
+            total += RelevanceScorer.score(document, parsed, lowerQuery);
+        }
+        return total;
+    }
+
+    /**
+     * The scoring loop as it was before the normalized fields were precomputed.
+     */
+    private int legacyScore(SearchDocument result) {
+        int score = 0;
+        if (result.getTitle() != null && result.getTitle().toLowerCase().equals(lowerQuery)) {
+            score += 100;
+        }
+        if (result.getTitle() != null && result.getTitle().toLowerCase().contains(lowerQuery)) {
+            score += 50;
+        }
+        if (result.getRebbiName() != null) {
+            String rebbiLower = result.getRebbiName().toLowerCase();
+            for (String rebbi : parsed.rebbiNames) {
+                if (rebbiLower.contains(rebbi)) {
+                    score += 30;
+                }
+            }
+        }
+        if (result.getTopicName() != null) {
+            String topicLower = result.getTopicName().toLowerCase();
+            for (String topic : parsed.topicNames) {
+                if (topicLower.equalsIgnoreCase(topic)) {
+                    score += 30;
+                }
+            }
+        }
+        if (result.getInstitutionName() != null) {
+            String instLower = result.getInstitutionName().toLowerCase();
+            for (String inst : parsed.institutionNames) {
+                if (instLower.equalsIgnoreCase(inst)) {
+                    score += 20;
+                }
+            }
+        }
+        if (result.getTitle() != null) {
+            String titleLower = result.getTitle().toLowerCase();
+            for (String keyword : parsed.keywords) {
+                if (titleLower.contains(keyword)) {
+                    score += 15;
+                }
+            }
+        }
+        if (result.getDescription() != null) {
+            String descLower = result.getDescription().toLowerCase();
+            for (String keyword : parsed.keywords) {
+                if (descLower.contains(keyword)) {
+                    score += 10;
+                }
+            }
+        }
+        int keywordMatchCount = 0;
+        if (result.getTitle() != null) {
+            for (String keyword : parsed.keywords) {
+                if (result.getTitle().toLowerCase().contains(keyword)) {
+                    keywordMatchCount++;
+                }
+            }
+        }
+        if (result.getDescription() != null) {
+            for (String keyword : parsed.keywords) {
+                if (result.getDescription().toLowerCase().contains(keyword)) {
+                    keywordMatchCount++;
+                }
+            }
+        }
+        return score + keywordMatchCount * 5;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            String word = WORDS[random.nextInt(WORDS.length)];
+            sentence.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return sentence.toString();
+    }
+}
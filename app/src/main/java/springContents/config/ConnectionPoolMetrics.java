@@ -0,0 +1,100 @@
+package springContents.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects runtime metrics for the database connection pool.
+ * Registered with HikariCP as its metrics tracker factory so that every connection
+ * checkout, usage period and acquisition timeout is recorded here.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder totalUsageMillis = new LongAdder();
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    /**
+     * Creates the tracker HikariCP reports to. Called once when the pool starts.
+     *
+     * @param poolName the name of the pool
+     * @param poolStats live statistics for the pool
+     * @return the metrics tracker for the pool
+     */
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new Tracker();
+    }
+
+    /**
+     * Returns a snapshot of the current pool metrics.
+     *
+     * @return a map with pool sizes, wait times and timeout counts
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metrics = new HashMap<>();
+        PoolStats stats = poolStats;
+        metrics.put("poolName", poolName);
+        if (stats != null) {
+            metrics.put("active", stats.getActiveConnections());
+            metrics.put("idle", stats.getIdleConnections());
+            metrics.put("total", stats.getTotalConnections());
+            metrics.put("pendingThreads", stats.getPendingThreads());
+            metrics.put("maxConnections", stats.getMaxConnections());
+            metrics.put("minConnections", stats.getMinConnections());
+        }
+
+        long count = acquisitions.sum();
+        long waitNanos = totalWaitNanos.sum();
+        metrics.put("acquisitions", count);
+        metrics.put("averageWaitMillis", count == 0 ? 0.0 : (waitNanos / (double) count) / 1_000_000.0);
+        metrics.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        metrics.put("averageUsageMillis", count == 0 ? 0.0 : totalUsageMillis.sum() / (double) count);
+        metrics.put("connectionsCreated", connectionsCreated.sum());
+        metrics.put("timeouts", timeouts.sum());
+        return metrics;
+    }
+
+    /**
+     * Tracker handed to HikariCP; forwards each event into the shared counters.
+     */
+    private class Tracker implements IMetricsTracker {
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            connectionsCreated.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            totalWaitNanos.add(elapsedAcquiredNanos);
+            maxWaitNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            totalUsageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
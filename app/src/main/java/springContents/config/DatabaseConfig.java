@@ -1,9 +1,10 @@
 package springContents.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -15,24 +16,38 @@ import java.util.Properties;
 
 /**
  * Configuration class for database connection and transaction management.
- * Sets up the MySQL data source using credentials from dbcredentials.properties
- * and configures Spring transaction management.
+ * Sets up the pooled MySQL data source using credentials and pool settings from
+ * dbcredentials.properties and configures Spring transaction management.
  */
 @Configuration
 @EnableTransactionManagement  // Add this annotation
 public class DatabaseConfig {
 
     /**
-     * Creates and configures the MySQL data source bean.
-     * Reads database connection properties from dbcredentials.properties file.
+     * Creates the metrics collector for the connection pool.
      *
+     * @return the connection pool metrics bean
+     */
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    /**
+     * Creates and configures the pooled MySQL data source bean.
+     * Reads database connection properties and the optional db.pool.* settings
+     * from dbcredentials.properties file.
+     *
+     * @param connectionPoolMetrics the metrics collector to register with the pool
      * @return the configured DataSource
      * @throws IOException if the properties file cannot be read
      */
-    @Bean
-    public DataSource dataSource() throws IOException {
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(ConnectionPoolMetrics connectionPoolMetrics) throws IOException {
         Properties credentials = new Properties();
-        credentials.load(new FileInputStream("dbcredentials.properties"));
+        try (FileInputStream in = new FileInputStream("dbcredentials.properties")) {
+            credentials.load(in);
+        }
 
         String endpoint = credentials.getProperty("db_connection");
         String database = credentials.getProperty("database");
@@ -43,13 +58,33 @@ public class DatabaseConfig {
                 + "?useSSL=true"
                 + "&serverTimezone=UTC";
 
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl(connectionUrl);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("shiurbank-db");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(connectionUrl);
+        config.setUsername(username);
+        config.setPassword(password);
+
+        // Pool sizing
+        config.setMinimumIdle(intProperty(credentials, "db.pool.min-idle", 2));
+        config.setMaximumPoolSize(intProperty(credentials, "db.pool.max-size", 10));
+
+        // Timeouts, validation, idle eviction and leak detection (all in milliseconds)
+        config.setConnectionTimeout(longProperty(credentials, "db.pool.connection-timeout-ms", 10_000L));
+        config.setValidationTimeout(longProperty(credentials, "db.pool.validation-timeout-ms", 3_000L));
+        config.setIdleTimeout(longProperty(credentials, "db.pool.idle-timeout-ms", 300_000L));
+        config.setMaxLifetime(longProperty(credentials, "db.pool.max-lifetime-ms", 1_500_000L));
+        config.setKeepaliveTime(longProperty(credentials, "db.pool.keepalive-ms", 120_000L));
+        config.setLeakDetectionThreshold(longProperty(credentials, "db.pool.leak-detection-ms", 60_000L));
+
+        // Let the driver reuse prepared statements on pooled connections
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
 
-        return dataSource;
+        config.setMetricsTrackerFactory(connectionPoolMetrics);
+
+        return new HikariDataSource(config);
     }
 
     /**
@@ -63,4 +98,20 @@ public class DatabaseConfig {
     public PlatformTransactionManager transactionManager(DataSource dataSource) {
         return new DataSourceTransactionManager(Objects.requireNonNull(dataSource, "dataSource must not be null"));
     }
+
+    /**
+     * Reads an integer property, falling back to a default when it is missing.
+     */
+    private int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Reads a long property, falling back to a default when it is missing.
+     */
+    private long longProperty(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
 }
\ No newline at end of file
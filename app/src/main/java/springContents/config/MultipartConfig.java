@@ -0,0 +1,28 @@
+package springContents.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+
+/**
+ * Configuration class for multipart request handling.
+ * Multipart bodies are parsed lazily, only when a handler binds a MultipartFile or request
+ * part, so that the streaming upload endpoint can read the raw request body itself instead
+ * of having the whole file spooled to disk before the handler runs.
+ */
+@Configuration
+public class MultipartConfig {
+
+    /**
+     * Creates the multipart resolver, replacing Spring Boot's eager default.
+     *
+     * @return the lazily resolving multipart resolver
+     */
+    @Bean
+    public MultipartResolver multipartResolver() {
+        StandardServletMultipartResolver resolver = new StandardServletMultipartResolver();
+        resolver.setResolveLazily(true);
+        return resolver;
+    }
+}
@@ -0,0 +1,15 @@
+package springContents.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * Configuration class that adds dbcredentials.properties to the Spring environment.
+ * Services that take their settings through {@code @Value} and the intervals of
+ * {@code @Scheduled} tasks are then configured in the same file as the database and S3
+ * settings; a setting missing from the file falls back to the default in its placeholder.
+ */
+@Configuration
+@PropertySource("classpath:dbcredentials.properties")
+public class PropertiesConfig {
+}
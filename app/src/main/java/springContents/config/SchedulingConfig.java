@@ -0,0 +1,13 @@
+package springContents.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class that enables Spring's scheduled task support.
+ * Used for periodic background work such as refreshing the in-memory search index.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -5,10 +5,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import springContents.config.ConnectionPoolMetrics;
 import springContents.dao.AdminDAO;
+import springContents.dao.SearchDictionaryCache;
 import springContents.dao.UserDAO;
 import springContents.model.User;
+import springContents.service.AudioFileCache;
 import springContents.service.RdsService;
+import springContents.service.RecordingJobService;
 
 import java.util.HashMap;
 import java.util.List;
@@ -18,7 +22,7 @@ import java.util.stream.Collectors;
 /**
  * REST controller for administrative operations.
  * Handles admin authentication checks, pending permission management,
- * user management, and RDS database control.
+ * user management, RDS database control, and runtime metrics.
  */
 @RestController
 @RequestMapping("/api/admin")
@@ -27,6 +31,10 @@ public class AdminController {
     private final AdminDAO adminDAO;
     private final RdsService rdsService;
     private final UserDAO userDAO;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final SearchDictionaryCache searchDictionaryCache;
+    private final AudioFileCache audioFileCache;
+    private final RecordingJobService recordingJobService;
 
     /**
      * Constructs a new AdminController with the specified dependencies.
@@ -34,12 +42,24 @@ public class AdminController {
      * @param adminDAO the AdminDAO for admin operations
      * @param rdsService the RdsService for database control
      * @param userDAO the UserDAO for user operations
+     * @param connectionPoolMetrics the metrics collector for the database connection pool
+     * @param searchDictionaryCache the cache of search name dictionaries
+     * @param audioFileCache the local disk cache of audio objects
+     * @param recordingJobService the service running post-upload processing jobs
      */
     @Autowired
-    public AdminController(AdminDAO adminDAO, RdsService rdsService, UserDAO userDAO) {
+    public AdminController(AdminDAO adminDAO, RdsService rdsService, UserDAO userDAO,
+                           ConnectionPoolMetrics connectionPoolMetrics,
+                           SearchDictionaryCache searchDictionaryCache,
+                           AudioFileCache audioFileCache,
+                           RecordingJobService recordingJobService) {
         this.adminDAO = adminDAO;
         this.rdsService = rdsService;
         this.userDAO = userDAO;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+        this.searchDictionaryCache = searchDictionaryCache;
+        this.audioFileCache = audioFileCache;
+        this.recordingJobService = recordingJobService;
     }
 
     /**
@@ -245,6 +265,102 @@ public class AdminController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get database connection pool metrics (active, idle, wait time, timeouts)
+     */
+    @GetMapping("/metrics/db-pool")
+    public ResponseEntity<Map<String, Object>> getConnectionPoolMetrics(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("metrics", connectionPoolMetrics.snapshot());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get search dictionary cache metrics (hits, misses, refresh durations)
+     */
+    @GetMapping("/metrics/search-dictionary")
+    public ResponseEntity<Map<String, Object>> getSearchDictionaryMetrics(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("metrics", searchDictionaryCache.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get audio disk cache metrics (hit ratio, bytes saved, evictions)
+     */
+    @GetMapping("/metrics/audio-cache")
+    public ResponseEntity<Map<String, Object>> getAudioCacheMetrics(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("metrics", audioFileCache.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get recording processing job metrics (counts by stage and status, dead jobs)
+     */
+    @GetMapping("/metrics/recording-jobs")
+    public ResponseEntity<Map<String, Object>> getRecordingJobMetrics(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("metrics", recordingJobService.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Queue audio metadata extraction for all recordings whose files have not been probed yet
+     */
+    @PostMapping("/recording-jobs/backfill-metadata")
+    public ResponseEntity<Map<String, Object>> backfillRecordingMetadata(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        recordingJobService.backfillMetadata();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Metadata extraction queued for recordings without it.");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Requeue a dead recording processing job
+     */
+    @PostMapping("/recording-jobs/{jobId}/retry")
+    public ResponseEntity<Map<String, Object>> retryRecordingJob(@PathVariable Long jobId, HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        if (!recordingJobService.retryDeadJob(jobId)) {
+            response.put("success", false);
+            response.put("message", "No dead job with that ID.");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("success", true);
+        response.put("message", "Job requeued.");
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get all pending permissions
      */
@@ -0,0 +1,250 @@
+package springContents.controller;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import springContents.service.AudioFileCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copies a stream of byte buffers to a response in async mode with non-blocking servlet I/O.
+ * One buffer is requested from the source at a time, and only after the previous one was
+ * accepted by a ready output stream, so a slow listener slows down the S3 download (or file
+ * read) instead of filling memory, and no thread ever waits on the client or on S3: the
+ * copying runs on whichever thread delivers a buffer or is told by the container that the
+ * client can take more. An optional cache fill receives every buffer on the way through.
+ */
+final class AsyncAudioWriter implements Subscriber<ByteBuffer>, WriteListener, AsyncListener {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncAudioWriter.class);
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private AudioFileCache.Fill fill; // only touched while draining
+
+    // Ensures a single thread drains at a time; increments from other threads (or reentrant
+    // calls from a source that delivers synchronously) make the draining thread loop again
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    private volatile Subscription subscription;
+    private volatile ByteBuffer pending;
+    private volatile boolean requested;
+    private volatile boolean sourceComplete;
+    private volatile Throwable failure;
+    private boolean finished; // only touched while draining
+
+    private AsyncAudioWriter(AsyncContext asyncContext, ServletOutputStream out, AudioFileCache.Fill fill) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.fill = fill;
+    }
+
+    /**
+     * Starts copying a source to the response of a request in async mode. The status and
+     * headers must already be set; the async context is completed when the copy ends.
+     *
+     * @param asyncContext the request's async context
+     * @param source the response body
+     * @param fill the cache fill to write the body to, or null
+     * @throws IOException if the response output stream cannot be obtained
+     */
+    static void start(AsyncContext asyncContext, Publisher<ByteBuffer> source, AudioFileCache.Fill fill)
+            throws IOException {
+        AsyncAudioWriter writer;
+        try {
+            writer = new AsyncAudioWriter(asyncContext, asyncContext.getResponse().getOutputStream(), fill);
+        } catch (IOException e) {
+            discard(source);
+            if (fill != null) {
+                fill.abort();
+            }
+            throw e;
+        }
+        asyncContext.addListener(writer);
+        source.subscribe(writer);
+        // The container calls onWritePossible as soon as the client can take data
+        writer.out.setWriteListener(writer);
+    }
+
+    /**
+     * Releases a source that will not be copied, such as the connection behind an S3 download,
+     * by subscribing and cancelling at once.
+     *
+     * @param source the unused source
+     */
+    static void discard(Publisher<ByteBuffer> source) {
+        source.subscribe(new Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.cancel();
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+        pending = buffer;
+        requested = false;
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        // Both the source (Subscriber) and the client connection (WriteListener) end up here
+        failure = error;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        sourceComplete = true;
+        drain();
+    }
+
+    @Override
+    public void onWritePossible() {
+        drain();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        failure = new TimeoutException("Audio stream timed out");
+        drain();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        failure = event.getThrowable() != null ? event.getThrowable() : new IOException("Audio stream failed");
+        drain();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        // Nothing to do: the stream is finished by the time the context completes
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // Not restarted
+    }
+
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            drainOnce();
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainOnce() {
+        if (finished) {
+            return;
+        }
+        if (failure != null) {
+            finish(failure);
+            return;
+        }
+        try {
+            while (true) {
+                ByteBuffer buffer = pending;
+                if (buffer != null) {
+                    if (!out.isReady()) {
+                        return;
+                    }
+                    write(buffer);
+                    pending = null;
+                } else if (sourceComplete) {
+                    // Complete only once the last write has been flushed
+                    if (out.isReady()) {
+                        finish(null);
+                    }
+                    return;
+                } else {
+                    Subscription current = subscription;
+                    if (current != null && !requested) {
+                        requested = true;
+                        // A synchronous source delivers from inside request; drain() then loops again
+                        current.request(1);
+                    }
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            finish(e);
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (fill != null) {
+            try {
+                fill.write(buffer.duplicate());
+            } catch (IOException e) {
+                // A cache write failure only stops caching
+                fill.abort();
+                fill = null;
+            }
+        }
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.write(bytes);
+        }
+    }
+
+    private void finish(Throwable error) {
+        finished = true;
+        pending = null;
+        if (error == null) {
+            if (fill != null) {
+                fill.commit();
+            }
+        } else {
+            if (!sourceComplete && subscription != null) {
+                subscription.cancel();
+            }
+            if (fill != null) {
+                fill.abort();
+            }
+            logger.debug("Audio stream ended early: {}", error.toString());
+        }
+        fill = null;
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            // Already completed by the container after an error or timeout
+        }
+    }
+}
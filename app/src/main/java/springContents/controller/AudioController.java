@@ -1,30 +1,75 @@
 package springContents.controller;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import springContents.dao.RecordingDAO;
+import springContents.dao.ShiurSeriesDAO;
+import springContents.model.User;
+import springContents.service.AudioFileCache;
 import springContents.service.S3Service;
+import springContents.service.TranscodeService;
+import springContents.service.WaveformService;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.ResponsePublisher;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * REST controller for audio file streaming operations.
  * Handles listing audio files and streaming audio content from S3 buckets.
+ * Streaming endpoints honor single byte-range requests so the player can seek without
+ * downloading the whole recording, and serve popular recordings from the local disk cache.
+ * In redirect delivery mode, series audio is not proxied: after the access check the client
+ * is redirected to a presigned S3 URL. Proxied audio is sent in servlet async mode when
+ * async streaming is enabled, so no request thread waits on S3 or on a slow listener.
  */
 @RestController
 @RequestMapping("/api/audio")
 public class AudioController {
 
+    /**
+     * The files a recording's HLS package consists of, as written by TranscodeService.
+     */
+    private static final Pattern HLS_ASSET = Pattern.compile("playlist\\.m3u8|segment\\d{5}\\.ts");
+
+    private static final String AUDIO_CACHE_CONTROL = "public, max-age=3600";
+    // Peaks of a recording never change, so the browser may keep them for good
+    private static final String WAVEFORM_CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    // Request attributes of Tomcat's sendfile support
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
     /**
      * The S3Service for accessing audio files.
      */
@@ -32,15 +77,43 @@ public class AudioController {
     private S3Service s3Service;
 
     /**
-     * Get list of all audio files
+     * The local disk cache of audio objects.
+     */
+    @Autowired
+    private AudioFileCache audioFileCache;
+
+    /**
+     * The ShiurSeriesDAO for checking access to series audio.
+     */
+    @Autowired
+    private ShiurSeriesDAO shiurSeriesDAO;
+
+    /**
+     * The RecordingDAO for finding the streaming renditions of recordings.
+     */
+    @Autowired
+    private RecordingDAO recordingDAO;
+
+    /**
+     * Get list of all audio files, or one page of it when a limit is given. The "next" value
+     * of a page is passed as "after" to get the following page; it is null on the last page.
      */
     @GetMapping("/list")
-    public ResponseEntity<Map<String, Object>> listAudioFiles() {
+    public ResponseEntity<Map<String, Object>> listAudioFiles(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<String> audioFiles = s3Service.listAudioFiles();
+            if (limit == null) {
+                List<String> audioFiles = s3Service.listAudioFiles();
+                response.put("success", true);
+                response.put("files", audioFiles);
+                return ResponseEntity.ok(response);
+            }
+            S3Service.AudioFilePage page = s3Service.listAudioFiles(after, limit);
             response.put("success", true);
-            response.put("files", audioFiles);
+            response.put("files", page.getFiles());
+            response.put("next", page.getNext());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
@@ -53,61 +126,638 @@ public class AudioController {
      * Stream audio file from S3
      */
     @GetMapping("/stream/{fileName:.+}")
-    public ResponseEntity<InputStreamResource> streamAudio(@PathVariable String fileName) {
+    public ResponseEntity<StreamingResponseBody> streamAudio(
+            @PathVariable String fileName,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpServletRequest request) {
+        // Decode the filename in case it has special characters
+        String decodedFileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+
+        return streamObject(decodedFileName, AudioFileCache.defaultKey(decodedFileName), AUDIO_CACHE_CONTROL,
+                rangeHeader, ConditionalRequest.from(requestHeaders), defaultBucketObject(decodedFileName), request);
+    }
+
+    /**
+     * Get the length, type and validators of an audio file from S3 without its content
+     */
+    @RequestMapping(value = "/stream/{fileName:.+}", method = RequestMethod.HEAD)
+    public ResponseEntity<StreamingResponseBody> headAudio(
+            @PathVariable String fileName,
+            @RequestHeader HttpHeaders requestHeaders) {
+        String decodedFileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+
+        return headObject(decodedFileName, ConditionalRequest.from(requestHeaders),
+                defaultBucketObject(decodedFileName)::head);
+    }
+
+    /**
+     * Stream audio file from a series bucket, or redirect to a presigned URL for it
+     * in redirect delivery mode. Series that require permission are only served to
+     * their participants and gabbaim. A recording's low-bitrate rendition is served in
+     * place of the uploaded file once it exists, unless original=true is requested.
+     */
+    @GetMapping("/series/{seriesId}/stream/{fileName:.+}")
+    public ResponseEntity<StreamingResponseBody> streamSeriesAudio(
+            @PathVariable Long seriesId,
+            @PathVariable String fileName,
+            @RequestParam(value = "original", defaultValue = "false") boolean original,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpSession session,
+            HttpServletRequest request) {
+        // Decode the filename in case it has special characters
+        String decodedFileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+
+        ResponseEntity<StreamingResponseBody> denied = denySeriesAccess(seriesId, session);
+        if (denied != null) {
+            return denied;
+        }
+
+        String streamKey = original ? decodedFileName : playbackKey(seriesId, decodedFileName);
+        if (s3Service.isRedirectDelivery()) {
+            return redirectToPresignedUrl(seriesId, streamKey);
+        }
+
+        return streamObject(streamKey, AudioFileCache.seriesKey(seriesId, streamKey), AUDIO_CACHE_CONTROL,
+                rangeHeader, ConditionalRequest.from(requestHeaders), seriesBucketObject(seriesId, streamKey), request);
+    }
+
+    /**
+     * Get the length, type and validators of a series audio file without its content,
+     * with the same access check, rendition choice and redirect as streaming it.
+     */
+    @RequestMapping(value = "/series/{seriesId}/stream/{fileName:.+}", method = RequestMethod.HEAD)
+    public ResponseEntity<StreamingResponseBody> headSeriesAudio(
+            @PathVariable Long seriesId,
+            @PathVariable String fileName,
+            @RequestParam(value = "original", defaultValue = "false") boolean original,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpSession session) {
+        String decodedFileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+
+        ResponseEntity<StreamingResponseBody> denied = denySeriesAccess(seriesId, session);
+        if (denied != null) {
+            return denied;
+        }
+
+        String streamKey = original ? decodedFileName : playbackKey(seriesId, decodedFileName);
+        if (s3Service.isRedirectDelivery()) {
+            return redirectToPresignedUrl(seriesId, streamKey);
+        }
+
+        return headObject(streamKey, ConditionalRequest.from(requestHeaders),
+                seriesBucketObject(seriesId, streamKey)::head);
+    }
+
+    /**
+     * Get the precomputed waveform peaks of a series recording, in the binary format written
+     * by WaveformService. The peaks of a recording never change, so the browser may keep them
+     * for good. Returns 404 while they are still being computed or when the audio format
+     * cannot be decoded, in which case the player shows a plain progress bar.
+     */
+    @GetMapping("/series/{seriesId}/waveform/{fileName:.+}")
+    public ResponseEntity<StreamingResponseBody> getSeriesWaveform(
+            @PathVariable Long seriesId,
+            @PathVariable String fileName,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpSession session) {
+        String decodedFileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+
+        ResponseEntity<StreamingResponseBody> denied = denySeriesAccess(seriesId, session);
+        if (denied != null) {
+            return denied;
+        }
+
+        // Revalidation is answered from the cached metadata, without fetching the peaks
+        String key = WaveformService.sidecarKey(decodedFileName);
+        HeadObjectResponse head;
+        try {
+            head = s3Service.headAudioFileFromSeriesBucket(seriesId, key);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(WAVEFORM_CACHE_CONTROL);
+        setValidators(headers, head.eTag(), head.lastModified());
+        if (ConditionalRequest.from(requestHeaders).isNotModified(head.eTag(), head.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        ResponseInputStream<GetObjectResponse> object;
+        try {
+            object = s3Service.getAudioFileFromSeriesBucket(seriesId, key);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+        // The validators of the body actually sent, in case the peaks were rewritten since
+        setValidators(headers, object.response().eTag(), object.response().lastModified());
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (object.response().contentLength() != null) {
+            headers.setContentLength(object.response().contentLength());
+        }
+        StreamingResponseBody body = out -> {
+            try (object) {
+                object.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * Serve the HLS playlist or a segment of a series recording. A packaged recording never
+     * changes, so its files are cacheable for good, by shared caches and CDNs too when the
+     * series is open to everyone. In redirect delivery mode segments are redirected to
+     * presigned URLs, but the playlist is always served here so that its relative segment
+     * URIs resolve back to this endpoint. Returns 404 until the recording has been packaged.
+     */
+    @GetMapping("/series/{seriesId}/hls/{fileName}/{asset}")
+    public ResponseEntity<StreamingResponseBody> streamSeriesHls(
+            @PathVariable Long seriesId,
+            @PathVariable String fileName,
+            @PathVariable String asset,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpSession session,
+            HttpServletRequest request) {
+        if (!HLS_ASSET.matcher(asset).matches()) {
+            return ResponseEntity.notFound().build();
+        }
+        String decodedFileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+
+        User user = (User) session.getAttribute("user");
+        boolean openSeries;
+        try {
+            Long userId = user != null ? user.getUserId() : null;
+            if (!shiurSeriesDAO.canAccessSeries(userId, seriesId)) {
+                return ResponseEntity.status(user == null ? HttpStatus.UNAUTHORIZED : HttpStatus.FORBIDDEN).build();
+            }
+            openSeries = userId == null || shiurSeriesDAO.canAccessSeries(null, seriesId);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+
+        String key = TranscodeService.hlsPrefix(decodedFileName) + asset;
+        if (s3Service.isRedirectDelivery() && !asset.equals(TranscodeService.HLS_PLAYLIST)) {
+            return redirectToPresignedUrl(seriesId, key);
+        }
+
+        String cacheControl = (openSeries ? "public" : "private") + ", max-age=31536000, immutable";
+        return streamObject(asset, AudioFileCache.seriesKey(seriesId, key), cacheControl, rangeHeader,
+                ConditionalRequest.from(requestHeaders), seriesBucketObject(seriesId, key), request);
+    }
+
+    /**
+     * Check that the session's user may listen to a series
+     * @return the 401, 403 or 500 response to send, or null if access is allowed
+     */
+    private <T> ResponseEntity<T> denySeriesAccess(Long seriesId, HttpSession session) {
+        User user = (User) session.getAttribute("user");
+        try {
+            if (!shiurSeriesDAO.canAccessSeries(user != null ? user.getUserId() : null, seriesId)) {
+                return ResponseEntity.status(user == null ? HttpStatus.UNAUTHORIZED : HttpStatus.FORBIDDEN).build();
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        return null;
+    }
+
+    /**
+     * The key to stream for a recording: its rendition if one has been made, else the original
+     */
+    private String playbackKey(Long seriesId, String fileName) {
         try {
-            // Decode the filename in case it has special characters
-            String decodedFileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+            String renditionPath = recordingDAO.getRenditionPath(seriesId, fileName);
+            return renditionPath != null ? renditionPath : fileName;
+        } catch (Exception e) {
+            return fileName;
+        }
+    }
+
+    /**
+     * Stream an audio object, honoring a single byte range.
+     * Cache hits are served from disk. On a miss, a request for the whole object (or for
+     * "bytes=0-") is streamed from S3 and written to the cache at the same time; any other
+     * range is forwarded to S3 and the whole object is cached in the background for the
+     * next seek. Returns 206 for a range, 200 for the whole file when there is no usable
+     * range (none, multiple, or malformed), and 416 when the range starts past the end
+     * or is the empty suffix "bytes=-0".
+     * Responses carry the object's ETag and Last-Modified. A conditional request is checked
+     * against a HeadObject first: a current copy gets 304, and a range whose If-Range no
+     * longer matches is ignored so the whole object is sent.
+     * With async streaming the request is switched to async mode and null is returned, the
+     * response being written once S3 answers (or straight from the cache file).
+     */
+    private ResponseEntity<StreamingResponseBody> streamObject(
+            String fileName, String cacheKey, String cacheControl, String rangeHeader,
+            ConditionalRequest conditions, AudioSource source, HttpServletRequest request) {
+        ByteRange requestedRange = ByteRange.parse(rangeHeader);
 
-            ResponseInputStream<GetObjectResponse> s3Object = s3Service.getAudioFile(decodedFileName);
+        HeadObjectResponse current = null;
+        if (conditions.isConditional()) {
+            try {
+                current = source.head();
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            if (conditions.isNotModified(current.eTag(), current.lastModified())) {
+                return notModified(fileName, cacheControl, current.eTag(), current.lastModified());
+            }
+        }
+        ByteRange range = current == null || conditions.isRangeApplicable(current.eTag(), current.lastModified())
+                ? requestedRange : null;
+        LongSupplier size = () -> source.head().contentLength();
+        if (range != null && range.isEmpty()) {
+            // Unsatisfiable whatever the object, so S3 is not asked for it
+            return rangeNotSatisfiable(size);
+        }
+        HttpServletRequest asyncRequest = s3Service.isAsyncStreaming() && request.isAsyncSupported() ? request : null;
 
-            // Determine content type based on file extension
-            String contentType = getContentType(decodedFileName);
+        AudioFileCache.CachedAudio cached = audioFileCache.open(cacheKey);
+        if (cached != null) {
+            // Validators checked just now are fresher than those stored with the cached copy
+            String eTag = current != null ? current.eTag() : cached.eTag();
+            Instant lastModified = current != null ? current.lastModified() : cached.lastModified();
+            return streamCached(fileName, cacheControl, range, cached, eTag, lastModified, request, asyncRequest);
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setContentDispositionFormData("inline", decodedFileName);
-            headers.setCacheControl("public, max-age=3600");
+        boolean wholeObject = range == null || range.isOpenFromStart();
+        String s3Range = wholeObject ? null : range.toHeaderValue();
+        if (asyncRequest != null) {
+            AsyncContext async = startAsync(asyncRequest);
+            source.getAsync(s3Range).whenComplete((s3Object, error) -> {
+                if (error != null) {
+                    ResponseEntity<StreamingResponseBody> failure = range != null && isRangeNotSatisfiable(error)
+                            ? rangeNotSatisfiable(size) : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+                    writeHead(async, failure.getStatusCode(), failure.getHeaders());
+                    async.complete();
+                    return;
+                }
+                AudioFileCache.Fill fill = null;
+                try {
+                    GetObjectResponse object = s3Object.response();
+                    HttpHeaders headers = audioHeaders(fileName, cacheControl);
+                    HttpStatus status = describeObject(object, range, wholeObject, headers);
+                    fill = startCaching(cacheKey, object, wholeObject, source);
+                    sendAsync(async, status, headers, s3Object, fill);
+                } catch (RuntimeException e) {
+                    AsyncAudioWriter.discard(s3Object);
+                    if (fill != null) {
+                        fill.abort();
+                    }
+                    writeHead(async, HttpStatus.INTERNAL_SERVER_ERROR, new HttpHeaders());
+                    async.complete();
+                }
+            });
+            return null;
+        }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(new InputStreamResource(s3Object));
+        try {
+            ResponseInputStream<GetObjectResponse> s3Object = source.get(s3Range);
+            GetObjectResponse object = s3Object.response();
+            HttpHeaders headers = audioHeaders(fileName, cacheControl);
+            HttpStatus status = describeObject(object, range, wholeObject, headers);
+            AudioFileCache.Fill fill = startCaching(cacheKey, object, wholeObject, source);
+            StreamingResponseBody body = out -> copyToClientAndCache(s3Object, out, fill);
+            return ResponseEntity.status(status).headers(headers).body(body);
 
         } catch (Exception e) {
+            if (range != null && isRangeNotSatisfiable(e)) {
+                return rangeNotSatisfiable(size);
+            }
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
 
     /**
-     * Stream audio file from a series bucket
+     * Set the length, validators and Content-Range of an object fetched from S3 and pick the
+     * status: 206 for a range S3 answered, or for "bytes=0-" answered with the whole object
      */
-    @GetMapping("/series/{seriesId}/stream/{fileName:.+}")
-    public ResponseEntity<InputStreamResource> streamSeriesAudio(
-            @PathVariable Long seriesId,
-            @PathVariable String fileName) {
+    private static HttpStatus describeObject(GetObjectResponse object, ByteRange range, boolean wholeObject,
+                                             HttpHeaders headers) {
+        setValidators(headers, object.eTag(), object.lastModified());
+        Long length = object.contentLength();
+        if (length != null) {
+            headers.setContentLength(length);
+        }
+        if (wholeObject) {
+            if (range != null && length != null && length > 0) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes 0-" + (length - 1) + "/" + length);
+                return HttpStatus.PARTIAL_CONTENT;
+            }
+            return HttpStatus.OK;
+        }
+        if (object.contentRange() != null) {
+            headers.set(HttpHeaders.CONTENT_RANGE, object.contentRange());
+            return HttpStatus.PARTIAL_CONTENT;
+        }
+        return HttpStatus.OK;
+    }
+
+    /**
+     * Start caching an object being streamed from S3. The whole object is cached as it is
+     * sent; for a mid-file seek it is fetched in the background for the next seek instead.
+     * @return the fill to write the sent bytes to, or null
+     */
+    private AudioFileCache.Fill startCaching(String cacheKey, GetObjectResponse object, boolean wholeObject,
+                                             AudioSource source) {
+        if (wholeObject) {
+            Long length = object.contentLength();
+            return length != null
+                    ? audioFileCache.startFill(cacheKey, length, object.eTag(), object.lastModified())
+                    : null;
+        }
+        long total = totalLength(object.contentRange());
+        if (total > 0) {
+            audioFileCache.fillInBackground(cacheKey, total, object.eTag(), object.lastModified(),
+                    () -> source.get(null));
+        }
+        return null;
+    }
+
+    /**
+     * Redirect to a presigned S3 URL. The browser may reuse the redirect until a fresh URL
+     * would be signed, and sends its Range requests straight to S3.
+     */
+    private ResponseEntity<StreamingResponseBody> redirectToPresignedUrl(Long seriesId, String fileName) {
         try {
-            // Decode the filename in case it has special characters
-            String decodedFileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+            S3Service.PresignedUrl presigned = s3Service.getPresignedSeriesAudioUrl(seriesId, fileName);
+            long maxAge = Math.max(0, Duration.between(Instant.now(), presigned.getReuseUntil()).getSeconds());
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .header(HttpHeaders.LOCATION, presigned.getUrl())
+                    .header(HttpHeaders.CACHE_CONTROL, "private, max-age=" + maxAge)
+                    .build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
 
-            ResponseInputStream<GetObjectResponse> s3Object =
-                    s3Service.getAudioFileFromSeriesBucket(seriesId, decodedFileName);
+    /**
+     * Serve a cached object. When the container supports sendfile, the requested bytes are
+     * handed to it and sent from the file by the kernel once the handler returns, in async
+     * mode too, as Tomcat already writes sendfile data without holding a request thread.
+     * Otherwise, given a request to continue in async mode, they are read in chunks as the
+     * client is ready for them and null is returned; failing both they are copied to the
+     * response stream.
+     */
+    private ResponseEntity<StreamingResponseBody> streamCached(String fileName, String cacheControl, ByteRange range,
+                                                               AudioFileCache.CachedAudio cached,
+                                                               String eTag, Instant lastModified,
+                                                               HttpServletRequest request,
+                                                               HttpServletRequest asyncRequest) {
+        long size = cached.size();
+        long[] bounds = range != null ? range.resolve(size) : new long[] {0, size - 1};
+        if (bounds == null) {
+            closeQuietly(cached);
+            return rangeNotSatisfiable(() -> size);
+        }
+        long start = bounds[0];
+        long count = bounds[1] - bounds[0] + 1;
 
-            // Determine content type based on file extension
-            String contentType = getContentType(decodedFileName);
+        HttpHeaders headers = audioHeaders(fileName, cacheControl);
+        setValidators(headers, eTag, lastModified);
+        headers.setContentLength(count);
+        HttpStatus status = HttpStatus.OK;
+        if (range != null) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+            status = HttpStatus.PARTIAL_CONTENT;
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setContentDispositionFormData("inline", decodedFileName);
-            headers.setCacheControl("public, max-age=3600");
+        if (handToSendfile(request, cached, start, count)) {
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+        if (asyncRequest != null) {
+            sendAsync(startAsync(asyncRequest), status, headers, new CachedAudioPublisher(cached, start, count), null);
+            return null;
+        }
+        StreamingResponseBody body = out -> {
+            try (cached) {
+                cached.transferTo(start, count, Channels.newChannel(out));
+            }
+        };
+        return ResponseEntity.status(status).headers(headers).body(body);
+    }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(new InputStreamResource(s3Object));
+    /**
+     * Ask Tomcat to send a byte range of a cached file with sendfile after the handler returns,
+     * if its connector supports it. The cache handle is closed here and Tomcat reopens the file
+     * by path straight away, so eviction has only that moment to remove it; if it does, the
+     * connection is dropped and the player retries. Returns false, leaving the handle open, if
+     * the bytes must be written by the application instead.
+     */
+    private static boolean handToSendfile(HttpServletRequest request, AudioFileCache.CachedAudio cached,
+                                          long start, long count) {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            return false;
+        }
+        String fileName;
+        try {
+            fileName = cached.path().toRealPath().toString();
+        } catch (IOException e) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, fileName);
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, start + count);
+        cached.recordServed(count);
+        closeQuietly(cached);
+        return true;
+    }
+
+    /**
+     * Switch a request to async mode, for as long as an audio stream may take
+     */
+    private AsyncContext startAsync(HttpServletRequest request) {
+        AsyncContext async = request.startAsync();
+        async.setTimeout(s3Service.getAsyncStreamTimeout().toMillis());
+        return async;
+    }
+
+    /**
+     * Send a response in async mode, writing the body with non-blocking I/O
+     */
+    private static void sendAsync(AsyncContext async, HttpStatus status, HttpHeaders headers,
+                                  Publisher<ByteBuffer> body, AudioFileCache.Fill fill) {
+        writeHead(async, status, headers);
+        try {
+            AsyncAudioWriter.start(async, body, fill);
+        } catch (IOException e) {
+            async.complete();
+        }
+    }
+
+    private static void writeHead(AsyncContext async, HttpStatusCode status, HttpHeaders headers) {
+        HttpServletResponse response = (HttpServletResponse) async.getResponse();
+        response.setStatus(status.value());
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+    }
+
+    /**
+     * Copy an S3 object to the client, writing it into the cache as it goes when a fill is given.
+     * A cache write failure only stops caching; a client failure aborts both.
+     */
+    private void copyToClientAndCache(ResponseInputStream<GetObjectResponse> s3Object, OutputStream out,
+                                      AudioFileCache.Fill fill) throws IOException {
+        boolean complete = false;
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = s3Object.read(buffer)) > 0) {
+                if (fill != null) {
+                    try {
+                        fill.write(buffer, 0, read);
+                    } catch (IOException e) {
+                        fill.abort();
+                        fill = null;
+                    }
+                }
+                out.write(buffer, 0, read);
+            }
+            complete = true;
+            if (fill != null) {
+                fill.commit();
+            }
+        } finally {
+            if (!complete) {
+                if (fill != null) {
+                    fill.abort();
+                }
+                // Don't let the SDK drain the rest of the object from S3
+                s3Object.abort();
+            }
+            s3Object.close();
+        }
+    }
 
+    /**
+     * Answer a HEAD request from the object's metadata without fetching its content
+     */
+    private ResponseEntity<StreamingResponseBody> headObject(String fileName, ConditionalRequest conditions,
+                                                             Supplier<HeadObjectResponse> head) {
+        HeadObjectResponse object;
+        try {
+            object = head.get();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (conditions.isNotModified(object.eTag(), object.lastModified())) {
+            return notModified(fileName, AUDIO_CACHE_CONTROL, object.eTag(), object.lastModified());
+        }
+
+        HttpHeaders headers = audioHeaders(fileName, AUDIO_CACHE_CONTROL);
+        setValidators(headers, object.eTag(), object.lastModified());
+        if (object.contentLength() != null) {
+            headers.setContentLength(object.contentLength());
+        }
+        return ResponseEntity.ok().headers(headers).build();
+    }
+
+    private ResponseEntity<StreamingResponseBody> notModified(String fileName, String cacheControl,
+                                                              String eTag, Instant lastModified) {
+        HttpHeaders headers = audioHeaders(fileName, cacheControl);
+        setValidators(headers, eTag, lastModified);
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+    }
+
+    private static void setValidators(HttpHeaders headers, String eTag, Instant lastModified) {
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+    }
+
+    private HttpHeaders audioHeaders(String fileName, String cacheControl) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(getContentType(fileName)));
+        headers.setContentDispositionFormData("inline", fileName);
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        return headers;
+    }
+
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(LongSupplier size) {
+        try {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size.getAsLong())
+                    .build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
 
+    /**
+     * Total object length from a Content-Range value such as "bytes 0-99/1234", or -1 if unknown
+     */
+    private static long totalLength(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void closeQuietly(AudioFileCache.CachedAudio cached) {
+        try {
+            cached.close();
+        } catch (IOException ignored) {
+            // Nothing to clean up beyond the file handle
+        }
+    }
+
+    private static boolean isRangeNotSatisfiable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof S3Exception s3Exception && s3Exception.statusCode() == 416) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AudioSource defaultBucketObject(String key) {
+        return new AudioSource() {
+            @Override
+            public ResponseInputStream<GetObjectResponse> get(String range) {
+                return s3Service.getAudioFile(key, range);
+            }
+
+            @Override
+            public CompletableFuture<ResponsePublisher<GetObjectResponse>> getAsync(String range) {
+                return s3Service.getAudioFileAsync(key, range);
+            }
+
+            @Override
+            public HeadObjectResponse head() {
+                return s3Service.headAudioFile(key);
+            }
+        };
+    }
+
+    private AudioSource seriesBucketObject(Long seriesId, String key) {
+        return new AudioSource() {
+            @Override
+            public ResponseInputStream<GetObjectResponse> get(String range) {
+                return s3Service.getAudioFileFromSeriesBucket(seriesId, key, range);
+            }
+
+            @Override
+            public CompletableFuture<ResponsePublisher<GetObjectResponse>> getAsync(String range) {
+                return s3Service.getAudioFileFromSeriesBucketAsync(seriesId, key, range);
+            }
+
+            @Override
+            public HeadObjectResponse head() {
+                return s3Service.headAudioFileFromSeriesBucket(seriesId, key);
+            }
+        };
+    }
+
     private String getContentType(String fileName) {
         String lowerFileName = fileName.toLowerCase();
         if (lowerFileName.endsWith(".mp3")) {
@@ -119,7 +769,8 @@ public class AudioController {
         } else if (lowerFileName.endsWith(".m4a")) {
             return "audio/mp4";
         } else if (lowerFileName.endsWith(".opus")) {
-            return "audio/opus";
+            // .opus files, including the streaming renditions, are Opus in an Ogg container (RFC 7845)
+            return "audio/ogg; codecs=opus";
         } else if (lowerFileName.endsWith(".flac")) {
             return "audio/flac";
         } else if (lowerFileName.endsWith(".aac")) {
@@ -130,7 +781,22 @@ public class AudioController {
             return "audio/aiff";
         } else if (lowerFileName.endsWith(".wma")) {
             return "audio/x-ms-wma";
+        } else if (lowerFileName.endsWith(".m3u8")) {
+            return "application/vnd.apple.mpegurl";
+        } else if (lowerFileName.endsWith(".ts")) {
+            return "video/mp2t";
         }
         return "audio/mpeg"; // default
     }
-}
\ No newline at end of file
+
+    /**
+     * The S3 requests for one audio object. A range is a Range header value, or null for the whole object.
+     */
+    private interface AudioSource {
+        ResponseInputStream<GetObjectResponse> get(String range);
+
+        CompletableFuture<ResponsePublisher<GetObjectResponse>> getAsync(String range);
+
+        HeadObjectResponse head();
+    }
+}
@@ -0,0 +1,113 @@
+package springContents.controller;
+
+/**
+ * A single byte range parsed from an HTTP Range header.
+ * Only single "bytes" ranges are represented; headers with another unit, several
+ * ranges or invalid syntax parse to null so the caller serves the whole file, as
+ * RFC 9110 allows a server to ignore a Range header it does not support. A
+ * zero-length suffix ("bytes=-0") is valid syntax but selects no bytes, so it is
+ * kept and never resolves, giving 416.
+ */
+final class ByteRange {
+    private final long start; // -1 for a suffix range
+    private final long end; // -1 when open-ended or a suffix range
+    private final long suffixLength; // -1 unless a suffix range
+
+    private ByteRange(long start, long end, long suffixLength) {
+        this.start = start;
+        this.end = end;
+        this.suffixLength = suffixLength;
+    }
+
+    /**
+     * Parses a Range header value such as "bytes=0-1023", "bytes=1024-" or "bytes=-500".
+     *
+     * @param header the Range header value, may be null
+     * @return the parsed range, or null if the whole file should be served
+     */
+    static ByteRange parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        if (!value.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String spec = value.substring(6).trim();
+        if (spec.isEmpty() || spec.indexOf(',') >= 0) {
+            // Multiple ranges are served as the whole file rather than multipart/byteranges
+            return null;
+        }
+
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffixLength = Long.parseLong(last);
+                return suffixLength >= 0 ? new ByteRange(-1, -1, suffixLength) : null;
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? -1 : Long.parseLong(last);
+            if (start < 0 || (end >= 0 && end < start)) {
+                return null;
+            }
+            return new ByteRange(start, end, -1);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the range asks for the whole object from the first byte, as browsers
+     * do with "bytes=0-" when they start playback.
+     *
+     * @return true for an open-ended range starting at 0
+     */
+    boolean isOpenFromStart() {
+        return start == 0 && end < 0;
+    }
+
+    /**
+     * Checks whether the range selects no bytes of any object, as "bytes=-0" does.
+     *
+     * @return true for a zero-length suffix range
+     */
+    boolean isEmpty() {
+        return suffixLength == 0;
+    }
+
+    /**
+     * Resolves the range against the size of the object.
+     *
+     * @param size the object size in bytes
+     * @return the first and last byte positions (inclusive), or null if the range is not satisfiable
+     */
+    long[] resolve(long size) {
+        if (suffixLength >= 0) {
+            if (size == 0 || suffixLength == 0) {
+                return null;
+            }
+            return new long[] {Math.max(0, size - suffixLength), size - 1};
+        }
+        if (start >= size) {
+            return null;
+        }
+        return new long[] {start, end < 0 || end >= size ? size - 1 : end};
+    }
+
+    /**
+     * Formats the range for forwarding to S3, which accepts the same syntax.
+     *
+     * @return the range as a Range header value
+     */
+    String toHeaderValue() {
+        if (suffixLength >= 0) {
+            return "bytes=-" + suffixLength;
+        }
+        return "bytes=" + start + "-" + (end >= 0 ? String.valueOf(end) : "");
+    }
+}
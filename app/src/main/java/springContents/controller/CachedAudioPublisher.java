@@ -0,0 +1,82 @@
+package springContents.controller;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import springContents.service.AudioFileCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Publishes a byte range of a cached audio file in chunks, reading one chunk per requested
+ * element on the requesting thread. The cached file is closed when the range has been
+ * delivered, on a read error, or on cancellation. Supports a single subscriber.
+ * Only used for async cache hits when the container cannot send the file with sendfile,
+ * since each chunk is copied through a heap buffer.
+ */
+final class CachedAudioPublisher implements Publisher<ByteBuffer> {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final AudioFileCache.CachedAudio cached;
+    private final long start;
+    private final long count;
+
+    /**
+     * @param cached the open cached file, owned by the publisher from now on
+     * @param start the first byte to publish
+     * @param count the number of bytes to publish
+     */
+    CachedAudioPublisher(AudioFileCache.CachedAudio cached, long start, long count) {
+        this.cached = cached;
+        this.start = start;
+        this.count = count;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new Subscription() {
+            private long position = start;
+            private long remaining = count;
+            private boolean done;
+
+            @Override
+            public synchronized void request(long n) {
+                for (long i = 0; i < n && remaining > 0 && !done; i++) {
+                    ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, remaining));
+                    try {
+                        cached.read(chunk, position);
+                    } catch (IOException e) {
+                        close();
+                        subscriber.onError(e);
+                        return;
+                    }
+                    position += chunk.capacity();
+                    remaining -= chunk.capacity();
+                    chunk.flip();
+                    subscriber.onNext(chunk);
+                }
+                if (remaining == 0 && !done) {
+                    close();
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public synchronized void cancel() {
+                close();
+            }
+
+            private void close() {
+                if (!done) {
+                    done = true;
+                    try {
+                        cached.close();
+                    } catch (IOException ignored) {
+                        // Nothing to clean up beyond the file handle
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package springContents.controller;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The validators of a conditional request: If-None-Match, If-Modified-Since and If-Range.
+ * They are evaluated against an object's ETag and last-modified time as RFC 9110 describes,
+ * with If-None-Match taking precedence over If-Modified-Since. A malformed date is ignored.
+ */
+final class ConditionalRequest {
+    private final String ifNoneMatch;
+    private final Instant ifModifiedSince;
+    private final String ifRange;
+
+    private ConditionalRequest(String ifNoneMatch, Instant ifModifiedSince, String ifRange) {
+        this.ifNoneMatch = ifNoneMatch;
+        this.ifModifiedSince = ifModifiedSince;
+        this.ifRange = ifRange;
+    }
+
+    /**
+     * Reads the validators from the request headers.
+     *
+     * @param headers the request headers
+     * @return the validators, possibly none
+     */
+    static ConditionalRequest from(HttpHeaders headers) {
+        return new ConditionalRequest(
+                trimToNull(headers.getFirst(HttpHeaders.IF_NONE_MATCH)),
+                parseDate(headers.getFirst(HttpHeaders.IF_MODIFIED_SINCE)),
+                trimToNull(headers.getFirst(HttpHeaders.IF_RANGE)));
+    }
+
+    /**
+     * Checks whether the request carries any validator, in which case the current
+     * validators of the object are needed to answer it.
+     *
+     * @return true if any validator is present
+     */
+    boolean isConditional() {
+        return ifNoneMatch != null || ifModifiedSince != null || ifRange != null;
+    }
+
+    /**
+     * Checks whether the client's copy is still current, so 304 Not Modified can be sent.
+     *
+     * @param eTag the object's ETag, may be null
+     * @param lastModified the object's last-modified time, may be null
+     * @return true if the client's copy is current
+     */
+    boolean isNotModified(String eTag, Instant lastModified) {
+        if (ifNoneMatch != null) {
+            if (ifNoneMatch.equals("*")) {
+                return eTag != null;
+            }
+            if (eTag == null) {
+                return false;
+            }
+            // Weak comparison: W/"x" matches "x"
+            String opaque = opaqueTag(eTag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                if (opaqueTag(candidate.trim()).equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return ifModifiedSince != null && lastModified != null
+                && !lastModified.truncatedTo(ChronoUnit.SECONDS).isAfter(ifModifiedSince);
+    }
+
+    /**
+     * Checks whether a Range header may be honored. With an If-Range validator that no longer
+     * matches, the client's partial copy is stale and the whole object must be sent instead.
+     *
+     * @param eTag the object's ETag, may be null
+     * @param lastModified the object's last-modified time, may be null
+     * @return true if the range applies
+     */
+    boolean isRangeApplicable(String eTag, Instant lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Strong comparison: weak tags never match
+            return eTag != null && !eTag.startsWith("W/") && ifRange.equals(eTag);
+        }
+        Instant date = parseDate(ifRange);
+        return date != null && lastModified != null
+                && lastModified.truncatedTo(ChronoUnit.SECONDS).equals(date);
+    }
+
+    private static String opaqueTag(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private static Instant parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,281 @@
+package springContents.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for a multipart/form-data request body (RFC 7578).
+ * Parts are read one at a time straight from the request stream, so a large file part can
+ * be piped onward without being buffered in memory or spooled to disk first. Each part must
+ * be read (or skipped) before the next one is requested.
+ */
+final class MultipartBodyReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean started;
+    private boolean finished;
+    private PartStream current;
+
+    /**
+     * Creates a reader for a request body.
+     *
+     * @param in the request body
+     * @param boundary the boundary from the Content-Type header
+     */
+    MultipartBodyReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // The first boundary has no preceding line break, so pretend there is one
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * Extracts the boundary parameter from a multipart/form-data Content-Type header.
+     *
+     * @param contentType the Content-Type header value
+     * @return the boundary, or null if the header is not multipart/form-data with a boundary
+     */
+    static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/form-data")) {
+            return null;
+        }
+        String boundary = parameter(contentType, "boundary");
+        return boundary == null || boundary.isEmpty() || boundary.length() > 70 ? null : boundary;
+    }
+
+    /**
+     * Advances to the next part, skipping whatever is left of the current one.
+     *
+     * @return the next part, or null after the closing boundary
+     * @throws IOException if the body cannot be read or is malformed
+     */
+    Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (!started) {
+            // Skip the preamble before the first boundary
+            new PartStream().skipAll();
+            started = true;
+        } else if (current != null) {
+            current.skipAll();
+        }
+
+        int first = readByte();
+        int second = readByte();
+        if (first == '-' && second == '-') {
+            finished = true;
+            return null;
+        }
+        if (first != '\r' || second != '\n') {
+            throw new IOException("Malformed multipart boundary");
+        }
+
+        String name = null;
+        String fileName = null;
+        String contentType = null;
+        String line;
+        while (!(line = readHeaderLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String header = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if (header.equalsIgnoreCase("Content-Disposition")) {
+                name = parameter(value, "name");
+                fileName = parameter(value, "filename");
+            } else if (header.equalsIgnoreCase("Content-Type")) {
+                contentType = value;
+            }
+        }
+
+        current = new PartStream();
+        return new Part(name, fileName, contentType, current);
+    }
+
+    private String readHeaderLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int previous = -1;
+        while (true) {
+            int b = readByte();
+            if (previous == '\r' && b == '\n') {
+                byte[] bytes = line.toByteArray();
+                return new String(bytes, 0, bytes.length - 1, StandardCharsets.UTF_8);
+            }
+            if (line.size() >= MAX_HEADER_BYTES) {
+                throw new IOException("Multipart part header too long");
+            }
+            line.write(b);
+            previous = b;
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill()) {
+            throw new IOException("Unexpected end of multipart body");
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer and reads more after them.
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read <= 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        outer:
+        for (int i = position; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String parameter(String headerValue, String name) {
+        for (String segment : headerValue.split(";")) {
+            String trimmed = segment.trim();
+            int equals = trimmed.indexOf('=');
+            if (equals > 0 && trimmed.substring(0, equals).trim().equalsIgnoreCase(name)) {
+                String value = trimmed.substring(equals + 1).trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One part of the body: its form field name, the file name for file parts, and its content.
+     */
+    static final class Part {
+        private final String name;
+        private final String fileName;
+        private final String contentType;
+        private final PartStream content;
+
+        private Part(String name, String fileName, String contentType, PartStream content) {
+            this.name = name;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getFileName() {
+            return fileName;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Gets the content of the part. The stream ends at the next boundary.
+         */
+        InputStream getInputStream() {
+            return content;
+        }
+
+        /**
+         * Reads a form field value.
+         *
+         * @param maxBytes the longest value accepted
+         * @return the value decoded as UTF-8
+         * @throws IOException if the value is longer than maxBytes or cannot be read
+         */
+        String readString(int maxBytes) throws IOException {
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            byte[] chunk = new byte[1024];
+            int read;
+            while ((read = content.read(chunk, 0, chunk.length)) > 0) {
+                if (value.size() + read > maxBytes) {
+                    throw new IOException("Form field " + name + " is too long");
+                }
+                value.write(chunk, 0, read);
+            }
+            return value.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads the body up to the next delimiter, keeping back enough bytes to recognize a
+     * delimiter split across two reads.
+     */
+    private final class PartStream extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                int found = indexOfDelimiter();
+                if (found == position) {
+                    position += delimiter.length;
+                    done = true;
+                    return -1;
+                }
+                int available = found >= 0 ? found - position : limit - position - (delimiter.length - 1);
+                if (available > 0) {
+                    int count = Math.min(length, available);
+                    System.arraycopy(buffer, position, target, offset, count);
+                    position += count;
+                    return count;
+                }
+                if (!fill()) {
+                    throw new IOException("Unexpected end of multipart body");
+                }
+            }
+        }
+
+        void skipAll() throws IOException {
+            byte[] discard = new byte[8 * 1024];
+            while (read(discard, 0, discard.length) >= 0) {
+                // Discard the rest of the part
+            }
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package springContents.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,19 +14,27 @@ import org.springframework.web.multipart.MultipartFile;
 import springContents.dao.RecordingDAO;
 import springContents.dao.ShiurSeriesDAO;
 import springContents.model.User;
+import springContents.service.RecordingJobService;
+import springContents.service.RecordingUploadService;
 import springContents.service.S3Service;
-import springContents.service.SNSService;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller for recording management operations.
- * Handles recording creation, retrieval, file uploads to S3, and SNS notifications.
+ * Handles recording creation, retrieval and file uploads to S3. Once a recording is stored,
+ * indexing and subscriber notifications are queued as background jobs.
+ * Large files can also be uploaded in resumable chunks: start an upload, PUT the chunks,
+ * then complete it with the recording details, which creates the recording.
  */
 @RestController
 @RequestMapping("/api")
@@ -32,11 +42,14 @@ public class RecordingController {
 
     private static final Logger logger = LoggerFactory.getLogger(RecordingController.class);
     private static final long MAX_FILE_SIZE = 1024L * 1024L * 1024L; // 1GB in bytes
+    private static final int MAX_FIELD_BYTES = 16 * 1024;
+    private static final long MAX_FORM_OVERHEAD = 1024L * 1024L; // room for the text fields and part headers
 
     private final RecordingDAO recordingDAO;
     private final ShiurSeriesDAO shiurSeriesDAO;
     private final S3Service s3Service;
-    private final SNSService snsService;
+    private final RecordingJobService recordingJobService;
+    private final RecordingUploadService recordingUploadService;
 
     /**
      * Constructs a new RecordingController with the specified dependencies.
@@ -44,17 +57,20 @@ public class RecordingController {
      * @param recordingDAO the RecordingDAO for recording operations
      * @param shiurSeriesDAO the ShiurSeriesDAO for series operations
      * @param s3Service the S3Service for file storage
-     * @param snsService the SNSService for notifications
+     * @param recordingJobService the service running post-upload processing
+     * @param recordingUploadService the service tracking resumable uploads
      */
     @Autowired
     public RecordingController(RecordingDAO recordingDAO,
                                ShiurSeriesDAO shiurSeriesDAO,
                                S3Service s3Service,
-                               SNSService snsService) {
+                               RecordingJobService recordingJobService,
+                               RecordingUploadService recordingUploadService) {
         this.recordingDAO = recordingDAO;
         this.shiurSeriesDAO = shiurSeriesDAO;
         this.s3Service = s3Service;
-        this.snsService = snsService;
+        this.recordingJobService = recordingJobService;
+        this.recordingUploadService = recordingUploadService;
     }
 
     /**
@@ -99,7 +115,43 @@ public class RecordingController {
     }
 
     /**
-     * Uploads a new recording for a series with file upload to S3 and SNS notification.
+     * Retrieves the state of the background processing of a recording, one job per stage.
+     *
+     * @param seriesId the series ID
+     * @param recordingId the recording ID
+     * @param session the HTTP session for authentication
+     * @return a response map with the jobs list, or error message
+     */
+    @GetMapping("/series/{seriesId}/recordings/{recordingId}/jobs")
+    public ResponseEntity<Map<String, Object>> getRecordingJobs(
+            @PathVariable Long seriesId,
+            @PathVariable Long recordingId,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+        User user = (User) session.getAttribute("user");
+
+        try {
+            ResponseEntity<Map<String, Object>> denied = checkUploader(user, seriesId, response);
+            if (denied != null) {
+                return denied;
+            }
+
+            response.put("success", true);
+            response.put("jobs", recordingJobService.getJobsForRecording(seriesId, recordingId));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error fetching jobs for recording {}: {}", recordingId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "Failed to fetch the recording's processing state.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Uploads a new recording for a series with file upload to S3. Indexing and the SNS
+     * notification are queued as background jobs.
      *
      * @param seriesId the series ID
      * @param title the recording title
@@ -186,13 +238,7 @@ public class RecordingController {
             }
 
             // Validate required fields
-            if (title == null || title.trim().isEmpty() ||
-                    keyword1 == null || keyword1.trim().isEmpty() ||
-                    keyword2 == null || keyword2.trim().isEmpty() ||
-                    keyword3 == null || keyword3.trim().isEmpty() ||
-                    keyword4 == null || keyword4.trim().isEmpty() ||
-                    keyword5 == null || keyword5.trim().isEmpty() ||
-                    keyword6 == null || keyword6.trim().isEmpty()) {
+            if (!hasRequiredFields(title, keyword1, keyword2, keyword3, keyword4, keyword5, keyword6)) {
                 response.put("success", false);
                 response.put("message", "All fields except description are required.");
                 return ResponseEntity.badRequest().body(response);
@@ -228,44 +274,183 @@ public class RecordingController {
             logger.info("Successfully created recording {} for series {} by user {}",
                     recordingId, seriesId, user.getUserId());
 
-            // Send notification to subscribers
-            try {
-                String topicArn = shiurSeriesDAO.getSeriesTopicArn(seriesId);
-                if (topicArn != null && !topicArn.trim().isEmpty()) {
-                    // Get series details for the notification
-                    Map<String, Object> seriesDetails = shiurSeriesDAO.getSeriesDetails(seriesId);
-
-                    if (seriesDetails != null) {
-                        String rebbiName = (String) seriesDetails.get("rebbiName");
-                        String topicName = (String) seriesDetails.get("topicName");
-                        String seriesDescription = (String) seriesDetails.get("description");
-
-                        // Format the recording date for the notification
-                        String formattedDate = recordedAt.format(DateTimeFormatter.ofPattern("MMMM d, yyyy"));
-
-                        snsService.notifyNewRecording(
-                                topicArn,
-                                title.trim(),
-                                rebbiName,
-                                topicName,
-                                seriesDescription,
-                                formattedDate
-                        );
-                        logger.info("Sent notification for new recording {} in series {}",
-                                recordingId, seriesId);
-                    }
+            // Index and notify in the background
+            recordingJobService.enqueueProcessing(recordingId);
+
+            response.put("success", true);
+            response.put("recordingId", recordingId);
+            response.put("message", "Shiur uploaded successfully!");
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error uploading recording for series {}: {}", seriesId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "An error occurred while uploading the shiur. Please try again.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Uploads a new recording like {@link #uploadRecording}, but reads the multipart body as a
+     * stream instead of letting Spring spool the file to disk first. The text fields must come
+     * before the audioFile part; the file is then piped straight into an S3 multipart upload
+     * under a generated key, and the recording is only created once the upload has succeeded.
+     *
+     * @param seriesId the series ID
+     * @param request the HTTP request carrying the multipart/form-data body
+     * @param session the HTTP session for authentication
+     * @return a response map with success status and recording ID, or error message
+     */
+    @PostMapping("/series/{seriesId}/recordings/stream")
+    public ResponseEntity<Map<String, Object>> uploadRecordingStream(
+            @PathVariable Long seriesId,
+            HttpServletRequest request,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            // Check authentication
+            User user = (User) session.getAttribute("user");
+            if (user == null) {
+                response.put("success", false);
+                response.put("message", "Not logged in.");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+
+            // Check if user is a gabbai for this series
+            if (!shiurSeriesDAO.isGabbaiForSeries(user.getUserId(), seriesId)) {
+                response.put("success", false);
+                response.put("message", "You do not have permission to upload to this series.");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            }
+
+            String boundary = MultipartBodyReader.boundaryOf(request.getContentType());
+            if (boundary == null) {
+                response.put("success", false);
+                response.put("message", "Expected a multipart/form-data upload.");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            // Reject oversized uploads before reading any of the body
+            if (request.getContentLengthLong() > MAX_FILE_SIZE + MAX_FORM_OVERHEAD) {
+                response.put("success", false);
+                response.put("message", "File size exceeds 1GB limit.");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            // Read the text fields up to the file part
+            MultipartBodyReader reader = new MultipartBodyReader(request.getInputStream(), boundary);
+            Map<String, String> fields = new HashMap<>();
+            MultipartBodyReader.Part audioPart = null;
+            MultipartBodyReader.Part part;
+            while ((part = reader.nextPart()) != null) {
+                if ("audioFile".equals(part.getName())) {
+                    audioPart = part;
+                    break;
                 }
-            } catch (Exception e) {
-                logger.error("Failed to send notification for recording {}, but recording was created",
-                        recordingId, e);
-                // Don't fail the operation if notification fails
+                if (part.getName() != null && part.getFileName() == null) {
+                    fields.put(part.getName(), part.readString(MAX_FIELD_BYTES));
+                }
+            }
+
+            // Validate file
+            if (audioPart == null || audioPart.getFileName() == null || audioPart.getFileName().isEmpty()) {
+                response.put("success", false);
+                response.put("message", "No file provided.");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            // Validate file type
+            String originalFilename = audioPart.getFileName();
+            if (!isValidAudioFile(originalFilename)) {
+                response.put("success", false);
+                response.put("message", "Invalid file type. Please upload an audio file.");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            // Get file extension
+            String fileExtension = getFileExtension(originalFilename);
+
+            // Parse recorded date/time
+            LocalDateTime recordedAt;
+            try {
+                recordedAt = LocalDateTime.parse(fields.getOrDefault("recordedAt", ""),
+                        DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            } catch (DateTimeParseException e) {
+                response.put("success", false);
+                response.put("message", "Invalid date/time format.");
+                return ResponseEntity.badRequest().body(response);
             }
 
+            // Validate required fields
+            String title = fields.get("title");
+            String[] keywords = new String[6];
+            for (int i = 0; i < keywords.length; i++) {
+                keywords[i] = fields.get("keyword" + (i + 1));
+            }
+            if (!hasRequiredFields(title, keywords)) {
+                response.put("success", false);
+                response.put("message", "All fields except description are required.");
+                return ResponseEntity.badRequest().body(response);
+            }
+            String description = fields.get("description");
+
+            // Stream the file part to S3 first, so a failed upload leaves no recording behind
+            String s3FilePath;
+            try {
+                s3FilePath = s3Service.uploadAudioStream(seriesId, UUID.randomUUID() + "." + fileExtension,
+                        audioPart.getInputStream(), audioPart.getContentType(), MAX_FILE_SIZE);
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("message", "File size exceeds 1GB limit.");
+                return ResponseEntity.badRequest().body(response);
+            } catch (RejectedExecutionException e) {
+                // Every upload buffer is held by other uploads
+                response.put("success", false);
+                response.put("message", "The server is busy with other uploads. Please try again shortly.");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .body(response);
+            }
+
+            long recordingId;
+            try {
+                recordingId = recordingDAO.createRecording(
+                        seriesId,
+                        s3FilePath,
+                        recordedAt,
+                        title.trim(),
+                        keywords[0].trim(),
+                        keywords[1].trim(),
+                        keywords[2].trim(),
+                        keywords[3].trim(),
+                        keywords[4].trim(),
+                        keywords[5].trim(),
+                        description != null && !description.trim().isEmpty() ? description.trim() : null
+                );
+            } catch (RuntimeException e) {
+                s3Service.deleteAudioFile(seriesId, s3FilePath);
+                throw e;
+            }
+
+            logger.info("Successfully created recording {} for series {} by user {} (streamed upload)",
+                    recordingId, seriesId, user.getUserId());
+
+            // Index and notify in the background
+            recordingJobService.enqueueProcessing(recordingId);
+
             response.put("success", true);
             response.put("recordingId", recordingId);
             response.put("message", "Shiur uploaded successfully!");
             return ResponseEntity.ok(response);
 
+        } catch (IOException e) {
+            // The client went away or sent a malformed body; nothing was uploaded
+            logger.warn("Could not read streamed upload for series {}: {}", seriesId, e.getMessage());
+            response.put("success", false);
+            response.put("message", "The upload could not be read. Please try again.");
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             logger.error("Error uploading recording for series {}: {}", seriesId, e.getMessage(), e);
             response.put("success", false);
@@ -274,6 +459,373 @@ public class RecordingController {
         }
     }
 
+    /**
+     * Starts a resumable upload. The client then sends the file in chunks of the returned
+     * chunkSize, numbered from 1 to totalChunks.
+     *
+     * @param seriesId the series ID
+     * @param body the request body containing fileName, fileSize and optionally contentType
+     * @param session the HTTP session for authentication
+     * @return a response map with the upload status, or error message
+     */
+    @PostMapping("/series/{seriesId}/uploads")
+    public ResponseEntity<Map<String, Object>> startUpload(
+            @PathVariable Long seriesId,
+            @RequestBody Map<String, Object> body,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+        User user = (User) session.getAttribute("user");
+
+        try {
+            ResponseEntity<Map<String, Object>> denied = checkUploader(user, seriesId, response);
+            if (denied != null) {
+                return denied;
+            }
+
+            String fileName = body.get("fileName") instanceof String ? (String) body.get("fileName") : null;
+            long fileSize = body.get("fileSize") instanceof Number ? ((Number) body.get("fileSize")).longValue() : 0;
+            String contentType = body.get("contentType") instanceof String ? (String) body.get("contentType") : null;
+
+            if (fileName == null || !isValidAudioFile(fileName)) {
+                response.put("success", false);
+                response.put("message", "Invalid file type. Please upload an audio file.");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (fileSize <= 0) {
+                response.put("success", false);
+                response.put("message", "No file provided.");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (fileSize > MAX_FILE_SIZE) {
+                response.put("success", false);
+                response.put("message", "File size exceeds 1GB limit.");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            response.putAll(recordingUploadService.startUpload(seriesId, user.getUserId(), fileName,
+                    contentType == null || contentType.isEmpty() ? null : contentType,
+                    fileSize, getFileExtension(fileName)));
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error starting upload for series {}: {}", seriesId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "Failed to start the upload. Please try again.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Gets the status of a resumable upload, including the chunks received so far,
+     * so an interrupted client can send only the missing ones.
+     *
+     * @param seriesId the series ID
+     * @param uploadId the upload ID
+     * @param session the HTTP session for authentication
+     * @return a response map with the upload status, or error message
+     */
+    @GetMapping("/series/{seriesId}/uploads/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getUploadStatus(
+            @PathVariable Long seriesId,
+            @PathVariable String uploadId,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+        User user = (User) session.getAttribute("user");
+
+        try {
+            ResponseEntity<Map<String, Object>> denied = checkUploader(user, seriesId, response);
+            if (denied != null) {
+                return denied;
+            }
+
+            Map<String, Object> upload = recordingUploadService.findUpload(uploadId, seriesId, user.getUserId());
+            if (upload == null) {
+                return uploadNotFound(response);
+            }
+
+            response.putAll(recordingUploadService.getStatus(upload));
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error fetching upload {}: {}", uploadId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "Failed to fetch the upload.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Receives one chunk of a resumable upload as the raw request body. The chunk's SHA-256
+     * checksum is sent in a Content-Digest header ("sha-256=:base64:"). Sending a chunk again
+     * replaces it, so a chunk whose response was lost can simply be retried.
+     *
+     * @param seriesId the series ID
+     * @param uploadId the upload ID
+     * @param chunkNumber the chunk number, starting at 1
+     * @param contentDigest the Content-Digest header
+     * @param request the HTTP request carrying the chunk
+     * @param session the HTTP session for authentication
+     * @return a response map with success status, or error message
+     */
+    @PutMapping("/series/{seriesId}/uploads/{uploadId}/chunks/{chunkNumber}")
+    public ResponseEntity<Map<String, Object>> uploadChunk(
+            @PathVariable Long seriesId,
+            @PathVariable String uploadId,
+            @PathVariable int chunkNumber,
+            @RequestHeader(value = "Content-Digest", required = false) String contentDigest,
+            HttpServletRequest request,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+        User user = (User) session.getAttribute("user");
+
+        try {
+            ResponseEntity<Map<String, Object>> denied = checkUploader(user, seriesId, response);
+            if (denied != null) {
+                return denied;
+            }
+
+            Map<String, Object> upload = recordingUploadService.findUpload(uploadId, seriesId, user.getUserId());
+            if (upload == null) {
+                return uploadNotFound(response);
+            }
+
+            String sha256 = sha256FromContentDigest(contentDigest);
+            if (sha256 == null) {
+                response.put("success", false);
+                response.put("message", "A Content-Digest header with a sha-256 checksum is required.");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            try {
+                recordingUploadService.receiveChunk(upload, chunkNumber, request.getInputStream(),
+                        request.getContentLengthLong(), sha256);
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            response.put("success", true);
+            response.put("chunkNumber", chunkNumber);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error receiving chunk {} of upload {}: {}", chunkNumber, uploadId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "Failed to store the chunk. Please retry it.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Completes a resumable upload and creates the recording. The recording is only created
+     * once every chunk has arrived and the file is assembled in S3.
+     *
+     * @param seriesId the series ID
+     * @param uploadId the upload ID
+     * @param body the recording details: title, recordedAt, keyword1 to keyword6 and optionally description
+     * @param session the HTTP session for authentication
+     * @return a response map with success status and recording ID, or error message
+     */
+    @PostMapping("/series/{seriesId}/uploads/{uploadId}/complete")
+    public ResponseEntity<Map<String, Object>> completeUpload(
+            @PathVariable Long seriesId,
+            @PathVariable String uploadId,
+            @RequestBody Map<String, Object> body,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+        User user = (User) session.getAttribute("user");
+
+        try {
+            ResponseEntity<Map<String, Object>> denied = checkUploader(user, seriesId, response);
+            if (denied != null) {
+                return denied;
+            }
+
+            Map<String, Object> upload = recordingUploadService.findUpload(uploadId, seriesId, user.getUserId());
+            if (upload == null) {
+                return uploadNotFound(response);
+            }
+
+            // Validate the recording details before assembling the file
+            LocalDateTime recordedAt;
+            try {
+                recordedAt = LocalDateTime.parse(String.valueOf(body.get("recordedAt")),
+                        DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            } catch (DateTimeParseException e) {
+                response.put("success", false);
+                response.put("message", "Invalid date/time format.");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            String title = body.get("title") instanceof String ? (String) body.get("title") : null;
+            String[] keywords = new String[6];
+            for (int i = 0; i < keywords.length; i++) {
+                Object keyword = body.get("keyword" + (i + 1));
+                keywords[i] = keyword instanceof String ? (String) keyword : null;
+            }
+            if (!hasRequiredFields(title, keywords)) {
+                response.put("success", false);
+                response.put("message", "All fields except description are required.");
+                return ResponseEntity.badRequest().body(response);
+            }
+            String description = body.get("description") instanceof String ? (String) body.get("description") : null;
+
+            String s3FilePath;
+            try {
+                s3FilePath = recordingUploadService.completeUpload(upload);
+            } catch (IllegalStateException e) {
+                response.put("success", false);
+                response.put("message", "The upload is missing chunks: " + e.getMessage());
+                response.putAll(recordingUploadService.getStatus(upload));
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
+            // Only now that the file is in place is the recording created
+            long recordingId;
+            try {
+                recordingId = recordingDAO.createRecording(
+                        seriesId,
+                        s3FilePath,
+                        recordedAt,
+                        title.trim(),
+                        keywords[0].trim(),
+                        keywords[1].trim(),
+                        keywords[2].trim(),
+                        keywords[3].trim(),
+                        keywords[4].trim(),
+                        keywords[5].trim(),
+                        description != null && !description.trim().isEmpty() ? description.trim() : null
+                );
+            } catch (RuntimeException e) {
+                s3Service.deleteAudioFile(seriesId, s3FilePath);
+                throw e;
+            }
+
+            logger.info("Successfully created recording {} for series {} by user {} (resumable upload {})",
+                    recordingId, seriesId, user.getUserId(), uploadId);
+
+            // Index and notify in the background
+            recordingJobService.enqueueProcessing(recordingId);
+
+            response.put("success", true);
+            response.put("recordingId", recordingId);
+            response.put("message", "Shiur uploaded successfully!");
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error completing upload {} for series {}: {}", uploadId, seriesId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "An error occurred while uploading the shiur. Please try again.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Aborts a resumable upload and discards the chunks received.
+     *
+     * @param seriesId the series ID
+     * @param uploadId the upload ID
+     * @param session the HTTP session for authentication
+     * @return a response map with success status, or error message
+     */
+    @DeleteMapping("/series/{seriesId}/uploads/{uploadId}")
+    public ResponseEntity<Map<String, Object>> abortUpload(
+            @PathVariable Long seriesId,
+            @PathVariable String uploadId,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+        User user = (User) session.getAttribute("user");
+
+        try {
+            ResponseEntity<Map<String, Object>> denied = checkUploader(user, seriesId, response);
+            if (denied != null) {
+                return denied;
+            }
+
+            Map<String, Object> upload = recordingUploadService.findUpload(uploadId, seriesId, user.getUserId());
+            if (upload == null) {
+                return uploadNotFound(response);
+            }
+
+            recordingUploadService.abortUpload(upload);
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error aborting upload {}: {}", uploadId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "Failed to cancel the upload.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Check that the user is logged in and a gabbai of the series, returning the error response if not
+     */
+    private ResponseEntity<Map<String, Object>> checkUploader(User user, Long seriesId, Map<String, Object> response) {
+        if (user == null) {
+            response.put("success", false);
+            response.put("message", "Not logged in.");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        if (!shiurSeriesDAO.isGabbaiForSeries(user.getUserId(), seriesId)) {
+            response.put("success", false);
+            response.put("message", "You do not have permission to upload to this series.");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+        return null;
+    }
+
+    private ResponseEntity<Map<String, Object>> uploadNotFound(Map<String, Object> response) {
+        response.put("success", false);
+        response.put("message", "Upload not found. It may have expired; please start again.");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
+    /**
+     * Extract the base64 SHA-256 checksum from a Content-Digest header (RFC 9530), or null if there is none
+     */
+    private static String sha256FromContentDigest(String contentDigest) {
+        if (contentDigest == null) {
+            return null;
+        }
+        for (String entry : contentDigest.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.regionMatches(true, 0, "sha-256=:", 0, 9) && trimmed.endsWith(":")) {
+                String value = trimmed.substring(9, trimmed.length() - 1);
+                try {
+                    return Base64.getDecoder().decode(value).length == 32 ? value : null;
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check that the title and all keywords are present
+     */
+    private static boolean hasRequiredFields(String title, String... keywords) {
+        if (title == null || title.trim().isEmpty()) {
+            return false;
+        }
+        for (String keyword : keywords) {
+            if (keyword == null || keyword.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Check if the file is a valid audio file based on extension
      */
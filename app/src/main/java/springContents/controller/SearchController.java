@@ -5,17 +5,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import springContents.model.SearchResult;
+import springContents.model.SearchPage;
 import springContents.model.User;
 import springContents.service.SearchService;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
  * REST controller for search operations.
- * Handles search queries for series and recordings with pagination support.
+ * Handles search queries for series and recordings with offset and cursor pagination support.
  */
 @RestController
 @RequestMapping("/api/search")
@@ -35,10 +34,12 @@ public class SearchController {
 
     /**
      * Performs a search query for series and recordings with pagination.
+     * The page and the total result count come from a single search execution.
      *
      * @param query the search query string
      * @param page the page number (0-based)
      * @param pageSize the number of results per page
+     * @param cursor the nextCursor from a previous response, to continue after that page
      * @param session the HTTP session for authentication
      * @return a response map with search results, pagination info, and success status
      * @throws RuntimeException if search execution fails
@@ -48,6 +49,7 @@ public class SearchController {
             @RequestParam("q") String query,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "pageSize", defaultValue = "20") int pageSize,
+            @RequestParam(value = "cursor", required = false) String cursor,
             HttpSession session) {
 
         Map<String, Object> response = new HashMap<>();
@@ -68,23 +70,36 @@ public class SearchController {
                 return ResponseEntity.badRequest().body(response);
             }
 
+            if (page < 0 || pageSize < 1) {
+                response.put("success", false);
+                response.put("message", "Invalid page or page size");
+                return ResponseEntity.badRequest().body(response);
+            }
+
             // Perform search
-            List<SearchResult> results = searchService.search(query, user.getUserId(), page, pageSize);
-            int totalResults = searchService.getTotalResults(query, user.getUserId());
+            SearchPage searchPage = searchService.search(query, user.getUserId(), page, pageSize, cursor);
+            int totalResults = searchPage.getTotalResults();
             int totalPages = (int) Math.ceil((double) totalResults / pageSize);
 
             response.put("success", true);
             response.put("query", query);
-            response.put("results", results);
+            response.put("results", searchPage.getResults());
             response.put("page", page);
             response.put("pageSize", pageSize);
             response.put("totalResults", totalResults);
+            response.put("totalIsApproximate", searchPage.isTotalApproximate());
+            response.put("partial", searchPage.isPartial());
             response.put("totalPages", totalPages);
-            response.put("hasNextPage", page < totalPages - 1);
+            response.put("nextCursor", searchPage.getNextCursor());
+            response.put("hasNextPage", searchPage.getNextCursor() != null);
             response.put("hasPreviousPage", page > 0);
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error performing search: " + e.getMessage());
@@ -25,6 +25,8 @@ import springContents.model.Topic;
 import springContents.model.User;
 import springContents.service.SNSService;
 import springContents.service.S3Service;
+import springContents.service.SearchIndex;
+import springContents.service.SeriesTeardownService;
 
 import java.util.HashMap;
 import java.util.List;
@@ -48,6 +50,8 @@ public class SeriesController {
     private final AdminDAO adminDAO;
     private final SNSService snsService;
     private final S3Service s3Service;
+    private final SearchIndex searchIndex;
+    private final SeriesTeardownService seriesTeardownService;
 
     /**
      * Constructs a new SeriesController with the specified dependencies.
@@ -59,6 +63,8 @@ public class SeriesController {
      * @param adminDAO the AdminDAO for admin operations
      * @param snsService the SNSService for SNS operations
      * @param s3Service the S3Service for S3 operations
+     * @param searchIndex the SearchIndex to refresh after series changes
+     * @param seriesTeardownService the SeriesTeardownService removing the buckets of deleted series
      */
     @Autowired
     public SeriesController(TopicDAO topicDAO,
@@ -67,7 +73,9 @@ public class SeriesController {
                             UserDAO userDAO,
                             AdminDAO adminDAO,
                             SNSService snsService,
-                            S3Service s3Service) {
+                            S3Service s3Service,
+                            SearchIndex searchIndex,
+                            SeriesTeardownService seriesTeardownService) {
         this.topicDAO = topicDAO;
         this.rebbiDAO = rebbiDAO;
         this.shiurSeriesDAO = shiurSeriesDAO;
@@ -75,6 +83,8 @@ public class SeriesController {
         this.adminDAO = adminDAO;
         this.snsService = snsService;
         this.s3Service = s3Service;
+        this.searchIndex = searchIndex;
+        this.seriesTeardownService = seriesTeardownService;
     }
 
     /**
@@ -249,6 +259,8 @@ public class SeriesController {
             }
         }
 
+        searchIndex.requestRefresh();
+
         resp.put("success", true);
         resp.put("seriesId", seriesId);
         resp.put("needsVerification", needsVerification);
@@ -300,11 +312,12 @@ public class SeriesController {
     }
 
     /**
-     * Deletes a series and its associated S3 bucket and SNS topic.
+     * Deletes a series and its associated S3 bucket and SNS topic. The bucket is emptied and
+     * removed in the background; its progress is available from {@link #getSeriesTeardown}.
      *
      * @param id the series ID to delete
      * @param session the HTTP session for authentication
-     * @return a response map with success status and message
+     * @return a response map with success status, message and the teardown progress URL
      * @throws RuntimeException if deletion fails
      */
     @DeleteMapping("/series/{id}")
@@ -333,6 +346,7 @@ public class SeriesController {
             // Delete the series (this will CASCADE delete related records)
             shiurSeriesDAO.deleteSeries(id);
             logger.info("Deleted series {} by user {}", id, user.getUserId());
+            searchIndex.requestRefresh();
 
             // Delete the SNS topic if it exists
             if (topicArn != null && !topicArn.trim().isEmpty()) {
@@ -346,18 +360,20 @@ public class SeriesController {
                 }
             }
 
-            // Delete S3 bucket if needed
+            // Queue the removal of the S3 bucket, carried out in the background
             try {
-                s3Service.deleteSeriesBucket(id);
-                logger.info("Deleted S3 bucket for series {}", id);
+                seriesTeardownService.start(id, user.getUserId());
             } catch (Exception e) {
-                logger.error("Failed to delete S3 bucket for series {}, but series was deleted",
+                logger.error("Failed to queue the S3 bucket teardown for series {}, but series was deleted",
                         id, e);
-                // Don't fail the operation if S3 deletion fails
+                resp.put("success", true);
+                resp.put("message", "Series deleted, but its recordings could not be scheduled for removal.");
+                return ResponseEntity.ok(resp);
             }
 
             resp.put("success", true);
-            resp.put("message", "Series deleted successfully.");
+            resp.put("message", "Series deleted successfully. Its recordings are being removed in the background.");
+            resp.put("teardownUrl", "/api/series/" + id + "/teardown");
             return ResponseEntity.ok(resp);
 
         } catch (Exception e) {
@@ -368,6 +384,36 @@ public class SeriesController {
         }
     }
 
+    /**
+     * Reports the progress of removing the S3 bucket of a deleted series, to the user who deleted it.
+     *
+     * @param id the ID of the deleted series
+     * @param session the HTTP session for authentication
+     * @return a response map with the status, attempts, the number of objects deleted so far
+     *         and the last error, or NOT_FOUND if this user has no teardown of the series
+     */
+    @GetMapping("/series/{id}/teardown")
+    public ResponseEntity<Map<String, Object>> getSeriesTeardown(@PathVariable("id") Long id,
+                                                                 HttpSession session) {
+        Map<String, Object> resp = new HashMap<>();
+        User user = (User) session.getAttribute("user");
+        if (user == null) {
+            resp.put("success", false);
+            resp.put("message", "Not logged in.");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(resp);
+        }
+
+        Map<String, Object> progress = seriesTeardownService.getProgress(id, user.getUserId());
+        if (progress == null) {
+            resp.put("success", false);
+            resp.put("message", "No deletion of this series was found.");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(resp);
+        }
+        resp.putAll(progress);
+        resp.put("success", true);
+        return ResponseEntity.ok(resp);
+    }
+
     /**
      * Converts an object to a Long value.
      *
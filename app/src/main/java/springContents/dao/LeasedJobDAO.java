@@ -0,0 +1,264 @@
+package springContents.dao;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class of the Data Access Objects for background job tables, holding the lease logic
+ * they share. A job moves from PENDING to RUNNING when a worker claims it, then to SUCCEEDED,
+ * back to PENDING with a later next_run_at for a retry, or to DEAD once it has used up its
+ * attempts. Claims use SELECT ... FOR UPDATE SKIP LOCKED, so several application instances
+ * can share a table without running a job twice. A worker renews locked_at while it runs a
+ * job, and only the worker still holding a job (locked_by) may record its outcome, so a
+ * worker whose lease was taken over cannot overwrite the run that replaced it. All times are
+ * taken from the database clock.
+ * <p>
+ * A job table has a BIGINT key and the columns status, attempts, next_run_at, locked_by,
+ * locked_at and last_error, as recording_jobs and series_teardowns in db_create_tables.sql.
+ */
+public abstract class LeasedJobDAO {
+
+    protected final DataSource dataSource;
+    private final String table;
+    private final String idColumn;
+    private final String jobName;
+
+    /**
+     * Constructs a new LeasedJobDAO for one job table.
+     *
+     * @param dataSource the data source for database connections
+     * @param table the job table
+     * @param idColumn the key column of the table
+     * @param jobName what a job is called in error messages, such as "recording job"
+     */
+    protected LeasedJobDAO(DataSource dataSource, String table, String idColumn, String jobName) {
+        this.dataSource = dataSource;
+        this.table = table;
+        this.idColumn = idColumn;
+        this.jobName = jobName;
+    }
+
+    /**
+     * Claims due jobs for a worker, marking them RUNNING and counting the attempt.
+     *
+     * @param workerId the identifier of the claiming worker
+     * @param limit the most jobs to claim
+     * @param columns the columns the mapper reads besides the key and attempts, comma separated
+     * @param mapper maps a claimed row to a job map
+     * @return a list of the mapped jobs, each with attempts (including this one) added
+     * @throws RuntimeException if a database error occurs
+     */
+    protected List<Map<String, Object>> claimDue(String workerId, int limit, String columns, JobRowMapper mapper) {
+        String selectSql = "SELECT " + idColumn + ", attempts, " + columns + " FROM " + table + " " +
+                "WHERE status = 'PENDING' AND next_run_at <= CURRENT_TIMESTAMP " +
+                "ORDER BY next_run_at LIMIT ? FOR UPDATE SKIP LOCKED";
+        String claimSql = "UPDATE " + table + " SET status = 'RUNNING', attempts = attempts + 1, " +
+                "locked_by = ?, locked_at = CURRENT_TIMESTAMP WHERE " + idColumn + " = ?";
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        List<Long> jobIds = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql);
+                 PreparedStatement claimStmt = conn.prepareStatement(claimSql)) {
+
+                selectStmt.setInt(1, limit);
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        Map<String, Object> job = mapper.map(rs);
+                        job.put("attempts", rs.getInt("attempts") + 1);
+                        jobs.add(job);
+                        jobIds.add(rs.getLong(idColumn));
+                    }
+                }
+
+                for (Long jobId : jobIds) {
+                    claimStmt.setString(1, workerId);
+                    claimStmt.setLong(2, jobId);
+                    claimStmt.addBatch();
+                }
+                if (!jobIds.isEmpty()) {
+                    claimStmt.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error claiming " + jobName + "s", e);
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Extends the lease of jobs a worker is still running.
+     *
+     * @param workerId the identifier of the worker holding the jobs
+     * @param jobIds the jobs the worker is running
+     * @return the number of jobs renewed; fewer than given if some were taken over
+     * @throws RuntimeException if a database error occurs
+     */
+    public int renewLeases(String workerId, Collection<Long> jobIds) {
+        String sql = "UPDATE " + table + " SET locked_at = CURRENT_TIMESTAMP " +
+                "WHERE " + idColumn + " = ? AND locked_by = ? AND status = 'RUNNING'";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Long jobId : jobIds) {
+                stmt.setLong(1, jobId);
+                stmt.setString(2, workerId);
+                stmt.addBatch();
+            }
+            int renewed = 0;
+            for (int count : stmt.executeBatch()) {
+                renewed += Math.max(0, count);
+            }
+            return renewed;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error renewing " + jobName + " leases", e);
+        }
+    }
+
+    /**
+     * Marks a job as finished.
+     *
+     * @param jobId the job ID
+     * @param workerId the identifier of the worker that ran the job
+     * @return true if the worker still held the job and it was updated
+     * @throws RuntimeException if a database error occurs
+     */
+    public boolean markSucceeded(Long jobId, String workerId) {
+        String sql = "UPDATE " + table + " SET status = 'SUCCEEDED', last_error = NULL, " +
+                "locked_by = NULL, locked_at = NULL WHERE " + idColumn + " = ? AND locked_by = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, jobId);
+            stmt.setString(2, workerId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating " + jobName, e);
+        }
+    }
+
+    /**
+     * Puts a failed job back in the queue to be retried after a delay.
+     *
+     * @param jobId the job ID
+     * @param workerId the identifier of the worker that ran the job
+     * @param error the failure message
+     * @param delaySeconds the seconds to wait before the next attempt
+     * @return true if the worker still held the job and it was updated
+     * @throws RuntimeException if a database error occurs
+     */
+    public boolean markForRetry(Long jobId, String workerId, String error, long delaySeconds) {
+        String sql = "UPDATE " + table + " SET status = 'PENDING', last_error = ?, " +
+                "next_run_at = CURRENT_TIMESTAMP + INTERVAL ? SECOND, locked_by = NULL, locked_at = NULL " +
+                "WHERE " + idColumn + " = ? AND locked_by = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, error);
+            stmt.setLong(2, delaySeconds);
+            stmt.setLong(3, jobId);
+            stmt.setString(4, workerId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating " + jobName, e);
+        }
+    }
+
+    /**
+     * Moves a job that has used up its attempts to the dead-letter status.
+     *
+     * @param jobId the job ID
+     * @param workerId the identifier of the worker that ran the job
+     * @param error the failure message
+     * @return true if the worker still held the job and it was updated
+     * @throws RuntimeException if a database error occurs
+     */
+    public boolean markDead(Long jobId, String workerId, String error) {
+        String sql = "UPDATE " + table + " SET status = 'DEAD', last_error = ?, " +
+                "locked_by = NULL, locked_at = NULL WHERE " + idColumn + " = ? AND locked_by = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, error);
+            stmt.setLong(2, jobId);
+            stmt.setString(3, workerId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating " + jobName, e);
+        }
+    }
+
+    /**
+     * Releases jobs whose worker has not renewed them within the lease, for example because the
+     * instance running them was stopped. They are retried, or marked DEAD if out of attempts.
+     *
+     * @param leaseSeconds how long a worker may hold a job without renewing it
+     * @param maxAttempts the attempts after which a job is dead
+     * @return the number of jobs released
+     * @throws RuntimeException if a database error occurs
+     */
+    public int releaseExpiredJobs(long leaseSeconds, int maxAttempts) {
+        String sql = "UPDATE " + table + " SET status = IF(attempts >= ?, 'DEAD', 'PENDING'), " +
+                "last_error = 'Worker lease expired', next_run_at = CURRENT_TIMESTAMP, " +
+                "locked_by = NULL, locked_at = NULL " +
+                "WHERE status = 'RUNNING' AND locked_at < CURRENT_TIMESTAMP - INTERVAL ? SECOND";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, maxAttempts);
+            stmt.setLong(2, leaseSeconds);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error releasing expired " + jobName + "s", e);
+        }
+    }
+
+    /**
+     * Puts a dead job back in the queue with a fresh set of attempts.
+     *
+     * @param jobId the job ID
+     * @return true if a dead job was requeued
+     * @throws RuntimeException if a database error occurs
+     */
+    public boolean retryDeadJob(Long jobId) {
+        String sql = "UPDATE " + table + " SET status = 'PENDING', attempts = 0, " +
+                "next_run_at = CURRENT_TIMESTAMP WHERE " + idColumn + " = ? AND status = 'DEAD'";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, jobId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrying " + jobName, e);
+        }
+    }
+
+    /**
+     * Maps a claimed row of a job table to a job map.
+     */
+    @FunctionalInterface
+    protected interface JobRowMapper {
+        Map<String, Object> map(ResultSet rs) throws SQLException;
+    }
+}
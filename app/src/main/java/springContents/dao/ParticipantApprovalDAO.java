@@ -9,9 +9,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Data Access Object for participant approval operations.
@@ -59,6 +63,42 @@ public class ParticipantApprovalDAO {
         return false;
     }
 
+    /**
+     * Finds which of the given series the user has a pending application for, in one query.
+     *
+     * @param userId the user ID to check
+     * @param seriesIds the series IDs to check
+     * @return the subset of seriesIds with a pending application from the user
+     * @throws RuntimeException if a database error occurs
+     */
+    public Set<Long> getPendingSeriesIds(Long userId, Collection<Long> seriesIds) {
+        if (seriesIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(seriesIds.size(), "?"));
+        String sql = "SELECT series_id FROM users_pending_approval_to_series " +
+                "WHERE user_id = ? AND series_id IN (" + placeholders + ")";
+
+        Set<Long> pending = new HashSet<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int paramIndex = 1;
+            stmt.setLong(paramIndex++, userId);
+            for (Long seriesId : seriesIds) {
+                stmt.setLong(paramIndex++, seriesId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    pending.add(rs.getLong("series_id"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error checking pending applications", e);
+        }
+        return pending;
+    }
+
     /**
      * Checks if a user is already a participant in a series.
      *
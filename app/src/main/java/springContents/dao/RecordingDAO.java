@@ -2,6 +2,7 @@ package springContents.dao;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import springContents.model.AudioMetadata;
 
 import javax.sql.DataSource;
 import java.sql.*;
@@ -124,11 +125,141 @@ public class RecordingDAO {
         }
     }
 
+    /**
+     * Retrieves a single recording.
+     *
+     * @param recordingId the recording ID
+     * @return a map with recordingId, seriesId, s3FilePath, title and recordedAt, or null if not found
+     * @throws RuntimeException if a database error occurs
+     */
+    public Map<String, Object> getRecording(Long recordingId) {
+        String sql = "SELECT recording_id, series_id, s3_file_path, title, recorded_at " +
+                "FROM shiur_recordings WHERE recording_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, recordingId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Map<String, Object> recording = new HashMap<>();
+                    recording.put("recordingId", rs.getLong("recording_id"));
+                    recording.put("seriesId", rs.getLong("series_id"));
+                    recording.put("s3FilePath", rs.getString("s3_file_path"));
+                    recording.put("title", rs.getString("title"));
+                    recording.put("recordedAt", rs.getTimestamp("recorded_at").toLocalDateTime());
+                    return recording;
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching recording", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Records the size and audio details of a recording's file, and that the file has been probed.
+     *
+     * @param recordingId the recording ID
+     * @param fileSize the file size in bytes
+     * @param metadata the audio details, or null if the format was not recognized
+     * @throws RuntimeException if a database error occurs
+     */
+    public void updateAudioMetadata(Long recordingId, long fileSize, AudioMetadata metadata) {
+        String sql = "UPDATE shiur_recordings SET file_size = ?, duration_ms = ?, bitrate_kbps = ?, " +
+                "codec = ?, sample_rate = ?, channels = ?, probed_at = CURRENT_TIMESTAMP WHERE recording_id = ?";
+        AudioMetadata details = metadata != null ? metadata : new AudioMetadata();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, fileSize);
+            stmt.setObject(2, details.getDurationMs(), Types.BIGINT);
+            stmt.setObject(3, details.getBitrateKbps(), Types.INTEGER);
+            stmt.setString(4, details.getCodec());
+            stmt.setObject(5, details.getSampleRate(), Types.INTEGER);
+            stmt.setObject(6, details.getChannels(), Types.INTEGER);
+            stmt.setLong(7, recordingId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating audio metadata for recording", e);
+        }
+    }
+
+    /**
+     * Records the key of a recording's low-bitrate streaming rendition.
+     *
+     * @param recordingId the recording ID
+     * @param renditionPath the rendition's key in the series bucket
+     * @throws RuntimeException if a database error occurs
+     */
+    public void updateRenditionPath(Long recordingId, String renditionPath) {
+        String sql = "UPDATE shiur_recordings SET rendition_path = ? WHERE recording_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, renditionPath);
+            stmt.setLong(2, recordingId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating rendition for recording", e);
+        }
+    }
+
+    /**
+     * Records the key of a recording's HLS playlist.
+     *
+     * @param recordingId the recording ID
+     * @param hlsPlaylistPath the playlist's key in the series bucket
+     * @throws RuntimeException if a database error occurs
+     */
+    public void updateHlsPlaylistPath(Long recordingId, String hlsPlaylistPath) {
+        String sql = "UPDATE shiur_recordings SET hls_playlist_path = ? WHERE recording_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, hlsPlaylistPath);
+            stmt.setLong(2, recordingId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating HLS playlist for recording", e);
+        }
+    }
+
+    /**
+     * Gets the key of the streaming rendition of a recording, looked up by its original file.
+     *
+     * @param seriesId the series ID
+     * @param s3FilePath the key of the recording's original file
+     * @return the rendition key, or null if the recording has no rendition (yet)
+     * @throws RuntimeException if a database error occurs
+     */
+    public String getRenditionPath(Long seriesId, String s3FilePath) {
+        String sql = "SELECT rendition_path FROM shiur_recordings WHERE series_id = ? AND s3_file_path = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, seriesId);
+            stmt.setString(2, s3FilePath);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("rendition_path") : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching rendition for recording", e);
+        }
+    }
+
     /**
      * Get all recordings for a series
      * @param seriesId The series ID
      * @param sortOrder Sort order: "newest", "oldest", or "title"
-     * @return List of recording maps with recordingId, title, recordedAt, description, s3FilePath
+     * @return List of recording maps with recordingId, title, recordedAt, description, s3FilePath,
+     *         fileSize, durationMs, bitrateKbps, codec, sampleRate and channels (null until known),
+     *         and hlsAvailable
      */
     public List<Map<String, Object>> getRecordingsForSeries(Long seriesId, String sortOrder) {
         String orderByClause = switch (sortOrder) {
@@ -137,7 +268,9 @@ public class RecordingDAO {
             default -> "ORDER BY recorded_at DESC";
         };
 
-        String sql = "SELECT recording_id, title, recorded_at, description, s3_file_path " +
+        String sql = "SELECT recording_id, title, recorded_at, description, s3_file_path, " +
+                "file_size, duration_ms, bitrate_kbps, codec, sample_rate, channels, " +
+                "hls_playlist_path IS NOT NULL AS hls_available " +
                 "FROM shiur_recordings " +
                 "WHERE series_id = ? " +
                 orderByClause;
@@ -156,6 +289,13 @@ public class RecordingDAO {
                     recording.put("recordedAt", rs.getTimestamp("recorded_at").toLocalDateTime());
                     recording.put("description", rs.getString("description"));
                     recording.put("s3FilePath", rs.getString("s3_file_path"));
+                    recording.put("fileSize", rs.getObject("file_size", Long.class));
+                    recording.put("durationMs", rs.getObject("duration_ms", Long.class));
+                    recording.put("bitrateKbps", rs.getObject("bitrate_kbps", Integer.class));
+                    recording.put("codec", rs.getString("codec"));
+                    recording.put("sampleRate", rs.getObject("sample_rate", Integer.class));
+                    recording.put("channels", rs.getObject("channels", Integer.class));
+                    recording.put("hlsAvailable", rs.getBoolean("hls_available"));
                     recordings.add(recording);
                 }
             }
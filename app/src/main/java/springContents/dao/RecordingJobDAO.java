@@ -0,0 +1,204 @@
+package springContents.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for the post-upload processing jobs of recordings, one per recording
+ * and stage. Claims, leases and outcomes work as described in {@link LeasedJobDAO}.
+ */
+@Repository
+public class RecordingJobDAO extends LeasedJobDAO {
+
+    /**
+     * Constructs a new RecordingJobDAO with the specified data source.
+     *
+     * @param dataSource the data source for database connections
+     */
+    @Autowired
+    public RecordingJobDAO(DataSource dataSource) {
+        super(dataSource, "recording_jobs", "job_id", "recording job");
+    }
+
+    /**
+     * Queues jobs for a recording, one per stage. Stages already queued for the recording are left alone.
+     *
+     * @param recordingId the recording ID
+     * @param stages the stages to run
+     * @throws RuntimeException if a database error occurs
+     */
+    public void enqueueJobs(Long recordingId, List<String> stages) {
+        String sql = "INSERT IGNORE INTO recording_jobs (recording_id, stage) VALUES (?, ?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (String stage : stages) {
+                stmt.setLong(1, recordingId);
+                stmt.setString(2, stage);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error queueing recording jobs", e);
+        }
+    }
+
+    /**
+     * Queues a stage for every recording whose audio file has not been probed, for example
+     * recordings uploaded before metadata extraction existed. Files that were probed but not
+     * recognized keep no duration and are not queued again. Finished and dead jobs of the stage
+     * are queued again with a fresh set of attempts; pending and running ones are left alone.
+     *
+     * @param stage the stage to run
+     * @throws RuntimeException if a database error occurs
+     */
+    public void enqueueForRecordingsMissingMetadata(String stage) {
+        // MySQL applies the assignments in order, so status must be updated last
+        String sql = "INSERT INTO recording_jobs (recording_id, stage) " +
+                "SELECT recording_id, ? FROM shiur_recordings WHERE probed_at IS NULL " +
+                "ON DUPLICATE KEY UPDATE " +
+                "attempts = IF(status IN ('PENDING', 'RUNNING'), attempts, 0), " +
+                "next_run_at = IF(status IN ('PENDING', 'RUNNING'), next_run_at, CURRENT_TIMESTAMP), " +
+                "status = IF(status IN ('PENDING', 'RUNNING'), status, 'PENDING')";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, stage);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error queueing recording metadata backfill", e);
+        }
+    }
+
+    /**
+     * Claims due jobs for a worker, marking them RUNNING and counting the attempt.
+     *
+     * @param workerId the identifier of the claiming worker
+     * @param limit the most jobs to claim
+     * @return a list of job maps with jobId, recordingId, stage and attempts (including this one)
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<Map<String, Object>> claimDueJobs(String workerId, int limit) {
+        return claimDue(workerId, limit, "recording_id, stage", rs -> {
+            Map<String, Object> job = new HashMap<>();
+            job.put("jobId", rs.getLong("job_id"));
+            job.put("recordingId", rs.getLong("recording_id"));
+            job.put("stage", rs.getString("stage"));
+            return job;
+        });
+    }
+
+    /**
+     * Retrieves the jobs of a recording in a series.
+     *
+     * @param seriesId the series ID
+     * @param recordingId the recording ID
+     * @return a list of job maps with jobId, stage, status, attempts, lastError and updatedAt
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<Map<String, Object>> getJobsForRecording(Long seriesId, Long recordingId) {
+        String sql = "SELECT j.job_id, j.recording_id, j.stage, j.status, j.attempts, j.last_error, j.updated_at " +
+                "FROM recording_jobs j " +
+                "JOIN shiur_recordings r ON r.recording_id = j.recording_id " +
+                "WHERE j.recording_id = ? AND r.series_id = ? " +
+                "ORDER BY j.job_id";
+        List<Map<String, Object>> jobs = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, recordingId);
+            stmt.setLong(2, seriesId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(mapJob(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching recording jobs", e);
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Retrieves the most recently failed dead jobs.
+     *
+     * @param limit the most jobs to return
+     * @return a list of job maps as returned by {@link #getJobsForRecording(Long, Long)}, with recordingId
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<Map<String, Object>> getDeadJobs(int limit) {
+        String sql = "SELECT job_id, recording_id, stage, status, attempts, last_error, updated_at " +
+                "FROM recording_jobs WHERE status = 'DEAD' ORDER BY updated_at DESC LIMIT ?";
+        List<Map<String, Object>> jobs = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(mapJob(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching dead recording jobs", e);
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Counts jobs by stage and status.
+     *
+     * @return a list of maps with stage, status and count
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<Map<String, Object>> getJobCounts() {
+        String sql = "SELECT stage, status, COUNT(*) AS job_count FROM recording_jobs " +
+                "GROUP BY stage, status ORDER BY stage, status";
+        List<Map<String, Object>> counts = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                Map<String, Object> count = new HashMap<>();
+                count.put("stage", rs.getString("stage"));
+                count.put("status", rs.getString("status"));
+                count.put("count", rs.getLong("job_count"));
+                counts.add(count);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting recording jobs", e);
+        }
+
+        return counts;
+    }
+
+    private Map<String, Object> mapJob(ResultSet rs) throws SQLException {
+        Map<String, Object> job = new HashMap<>();
+        job.put("jobId", rs.getLong("job_id"));
+        job.put("recordingId", rs.getLong("recording_id"));
+        job.put("stage", rs.getString("stage"));
+        job.put("status", rs.getString("status"));
+        job.put("attempts", rs.getInt("attempts"));
+        job.put("lastError", rs.getString("last_error"));
+        job.put("updatedAt", rs.getTimestamp("updated_at").toLocalDateTime());
+        return job;
+    }
+}
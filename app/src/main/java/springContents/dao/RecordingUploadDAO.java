@@ -0,0 +1,230 @@
+package springContents.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for resumable recording uploads.
+ * Tracks each upload in progress together with the S3 multipart upload backing it,
+ * and the chunks (S3 parts) received so far, so an interrupted upload can be resumed.
+ */
+@Repository
+public class RecordingUploadDAO {
+
+    private final DataSource dataSource;
+
+    /**
+     * Constructs a new RecordingUploadDAO with the specified data source.
+     *
+     * @param dataSource the data source for database connections
+     */
+    @Autowired
+    public RecordingUploadDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Records a new upload.
+     *
+     * @param uploadId the upload ID handed to the client
+     * @param seriesId the series the recording belongs to
+     * @param userId the user uploading
+     * @param s3Key the S3 key the file is uploaded to
+     * @param s3UploadId the ID of the S3 multipart upload
+     * @param fileName the original file name
+     * @param contentType the content type of the file, may be null
+     * @param fileSize the size of the whole file in bytes
+     * @param chunkSize the size of every chunk but the last in bytes
+     * @throws RuntimeException if a database error occurs
+     */
+    public void createUpload(String uploadId, Long seriesId, Long userId, String s3Key, String s3UploadId,
+                             String fileName, String contentType, long fileSize, int chunkSize) {
+        String sql = "INSERT INTO recording_uploads (upload_id, series_id, user_id, s3_key, s3_upload_id, " +
+                "file_name, content_type, file_size, chunk_size) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, uploadId);
+            stmt.setLong(2, seriesId);
+            stmt.setLong(3, userId);
+            stmt.setString(4, s3Key);
+            stmt.setString(5, s3UploadId);
+            stmt.setString(6, fileName);
+            stmt.setString(7, contentType);
+            stmt.setLong(8, fileSize);
+            stmt.setInt(9, chunkSize);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating recording upload", e);
+        }
+    }
+
+    /**
+     * Retrieves an upload.
+     *
+     * @param uploadId the upload ID
+     * @return a map with uploadId, seriesId, userId, s3Key, s3UploadId, fileName, contentType,
+     *         fileSize and chunkSize, or null if there is no such upload
+     * @throws RuntimeException if a database error occurs
+     */
+    public Map<String, Object> getUpload(String uploadId) {
+        String sql = "SELECT upload_id, series_id, user_id, s3_key, s3_upload_id, file_name, content_type, " +
+                "file_size, chunk_size FROM recording_uploads WHERE upload_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, uploadId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapUpload(rs);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching recording upload", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Records a received chunk, replacing an earlier copy of the same chunk, and marks the upload active.
+     *
+     * @param uploadId the upload ID
+     * @param partNumber the chunk (S3 part) number, starting at 1
+     * @param size the chunk size in bytes
+     * @param sha256 the base64 SHA-256 checksum of the chunk
+     * @param etag the ETag S3 returned for the part
+     * @throws RuntimeException if a database error occurs
+     */
+    public void savePart(String uploadId, int partNumber, long size, String sha256, String etag) {
+        String partSql = "INSERT INTO recording_upload_parts (upload_id, part_number, size, sha256, etag) " +
+                "VALUES (?, ?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE size = VALUES(size), sha256 = VALUES(sha256), etag = VALUES(etag)";
+        String touchSql = "UPDATE recording_uploads SET updated_at = CURRENT_TIMESTAMP WHERE upload_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement partStmt = conn.prepareStatement(partSql);
+             PreparedStatement touchStmt = conn.prepareStatement(touchSql)) {
+
+            partStmt.setString(1, uploadId);
+            partStmt.setInt(2, partNumber);
+            partStmt.setLong(3, size);
+            partStmt.setString(4, sha256);
+            partStmt.setString(5, etag);
+            partStmt.executeUpdate();
+
+            touchStmt.setString(1, uploadId);
+            touchStmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving recording upload part", e);
+        }
+    }
+
+    /**
+     * Retrieves the chunks received for an upload in part number order.
+     *
+     * @param uploadId the upload ID
+     * @return a list of part maps with partNumber, size, sha256 and etag
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<Map<String, Object>> getParts(String uploadId) {
+        String sql = "SELECT part_number, size, sha256, etag FROM recording_upload_parts " +
+                "WHERE upload_id = ? ORDER BY part_number";
+        List<Map<String, Object>> parts = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, uploadId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> part = new HashMap<>();
+                    part.put("partNumber", rs.getInt("part_number"));
+                    part.put("size", rs.getLong("size"));
+                    part.put("sha256", rs.getString("sha256"));
+                    part.put("etag", rs.getString("etag"));
+                    parts.add(part);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching recording upload parts", e);
+        }
+
+        return parts;
+    }
+
+    /**
+     * Deletes an upload and its parts.
+     *
+     * @param uploadId the upload ID
+     * @throws RuntimeException if a database error occurs
+     */
+    public void deleteUpload(String uploadId) {
+        String sql = "DELETE FROM recording_uploads WHERE upload_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, uploadId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting recording upload", e);
+        }
+    }
+
+    /**
+     * Retrieves uploads that have received no chunk since the cutoff.
+     *
+     * @param cutoff the last activity time before which an upload counts as abandoned
+     * @return a list of upload maps as returned by {@link #getUpload(String)}
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<Map<String, Object>> getUploadsInactiveSince(LocalDateTime cutoff) {
+        String sql = "SELECT upload_id, series_id, user_id, s3_key, s3_upload_id, file_name, content_type, " +
+                "file_size, chunk_size FROM recording_uploads WHERE updated_at < ?";
+        List<Map<String, Object>> uploads = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    uploads.add(mapUpload(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching inactive recording uploads", e);
+        }
+
+        return uploads;
+    }
+
+    private Map<String, Object> mapUpload(ResultSet rs) throws SQLException {
+        Map<String, Object> upload = new HashMap<>();
+        upload.put("uploadId", rs.getString("upload_id"));
+        upload.put("seriesId", rs.getLong("series_id"));
+        upload.put("userId", rs.getLong("user_id"));
+        upload.put("s3Key", rs.getString("s3_key"));
+        upload.put("s3UploadId", rs.getString("s3_upload_id"));
+        upload.put("fileName", rs.getString("file_name"));
+        upload.put("contentType", rs.getString("content_type"));
+        upload.put("fileSize", rs.getLong("file_size"));
+        upload.put("chunkSize", rs.getInt("chunk_size"));
+        return upload;
+    }
+}
@@ -1,50 +1,110 @@
 package springContents.dao;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import springContents.model.SearchDocument;
 import springContents.model.SearchResult;
 
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 /**
  * Data Access Object for search operations.
  * Handles database queries for searching series and recordings based on keywords,
  * Rebbi names, topic names, and institution names, with access control filtering.
+ * Keywords are matched against the text columns either with LIKE or with the FULLTEXT
+ * indexes from db_scripts/create_fulltext_indices.sql, selected by the search.sql.strategy
+ * property in dbcredentials.properties. With the FULLTEXT strategy SearchService sends every
+ * search here instead of to the in-memory index.
  */
 @Repository
 public class SearchDAO {
+    private static final Logger logger = LoggerFactory.getLogger(SearchDAO.class);
+
+    /**
+     * How keywords are matched against the series and recording text columns.
+     */
+    public enum TextMatchStrategy {
+        /** Substring match with LIKE '%keyword%' on every column. */
+        LIKE,
+        /** MATCH ... AGAINST in boolean mode on the FULLTEXT indexes. */
+        FULLTEXT
+    }
+
+    // FULLTEXT relevance is scaled by this and capped so it ranks alongside, not above, title matches
+    private static final double FULLTEXT_SCORE_WEIGHT = 10.0;
+    private static final int FULLTEXT_SCORE_CAP = 50;
+
+    // Must list the columns of ft_recording_text exactly for MATCH to use the index
+    private static final String RECORDING_FULLTEXT_COLUMNS =
+            "sr.title, sr.description, sr.keyword_1, sr.keyword_2, sr.keyword_3, " +
+            "sr.keyword_4, sr.keyword_5, sr.keyword_6";
+
+    // Recording search documents with their series names, shared by the bulk and single loaders
+    private static final String RECORDING_DOCUMENT_SQL =
+            "SELECT sr.recording_id, sr.series_id, sr.title, sr.description, sr.recorded_at, " +
+            "sr.keyword_1, sr.keyword_2, sr.keyword_3, sr.keyword_4, sr.keyword_5, sr.keyword_6, " +
+            "CONCAT(r.title, ' ', r.fname, ' ', r.lname) AS rebbi_name, " +
+            "t.name AS topic_name, i.name AS institution_name " +
+            "FROM shiur_recordings sr " +
+            "JOIN shiur_series ss ON sr.series_id = ss.series_id " +
+            "JOIN rebbeim r ON ss.rebbi_id = r.rebbi_id " +
+            "JOIN topics t ON ss.topic_id = t.topic_id " +
+            "JOIN institutions i ON ss.inst_id = i.inst_id";
 
     private final DataSource dataSource;
+    private final TextMatchStrategy strategy;
 
     /**
-     * Constructs a new SearchDAO with the specified data source.
+     * Constructs a new SearchDAO with the specified data source and text match strategy.
+     * An unknown strategy is logged and LIKE is used instead.
      *
      * @param dataSource the data source for database connections
+     * @param strategyName the search.sql.strategy setting, like or fulltext
      */
     @Autowired
-    public SearchDAO(DataSource dataSource) {
+    public SearchDAO(DataSource dataSource, @Value("${search.sql.strategy:like}") String strategyName) {
         this.dataSource = dataSource;
+        this.strategy = parseStrategy(strategyName);
+        logger.info("SearchDAO using {} text matching", strategy);
+    }
+
+    /**
+     * Gets the text match strategy in use.
+     *
+     * @return the strategy selected by search.sql.strategy
+     */
+    public TextMatchStrategy getStrategy() {
+        return strategy;
     }
 
     /**
      * Searches for series matching the query terms.
+     * With the FULLTEXT strategy each result's relevance score is preset to the scaled
+     * MATCH relevance of its text, for use as a base score; with LIKE it is 0.
      *
      * @param keywords the set of keyword strings to search for
      * @param rebbiNames the set of Rebbi names to match
      * @param topicNames the set of topic names to match
      * @param institutionNames the set of institution names to match
      * @param userId the user ID for access control checking
+     * @param maxRows the maximum number of rows to return, or 0 for no limit
      * @return a list of SearchResult objects for matching series
      * @throws RuntimeException if a database error occurs
      */
     public List<SearchResult> searchSeries(Set<String> keywords, Set<String> rebbiNames,
                                            Set<String> topicNames, Set<String> institutionNames,
-                                           Long userId) {
+                                           Long userId, int maxRows) {
         List<SearchResult> results = new ArrayList<>();
+        String fullTextQuery = fullTextQuery(keywords);
 
         // Build dynamic SQL based on search criteria
         StringBuilder sql = new StringBuilder();
@@ -52,7 +112,9 @@ public class SearchDAO {
         sql.append("CONCAT(r.title, ' ', r.fname, ' ', r.lname) AS rebbi_name, ");
         sql.append("t.name AS topic_name, ");
         sql.append("i.name AS institution_name, ");
-        sql.append("EXISTS(SELECT 1 FROM shiur_participants sp WHERE sp.series_id = ss.series_id AND sp.user_id = ?) AS has_access ");
+        sql.append("EXISTS(SELECT 1 FROM shiur_participants sp WHERE sp.series_id = ss.series_id AND sp.user_id = ?) AS has_access, ");
+        sql.append(fullTextQuery != null ? "MATCH(ss.description) AGAINST(? IN BOOLEAN MODE) " : "0 ");
+        sql.append("AS text_relevance ");
         sql.append("FROM shiur_series ss ");
         sql.append("JOIN rebbeim r ON ss.rebbi_id = r.rebbi_id ");
         sql.append("JOIN topics t ON ss.topic_id = t.topic_id ");
@@ -63,7 +125,21 @@ public class SearchDAO {
         List<String> params = new ArrayList<>();
 
         // Add keyword search conditions
-        if (!keywords.isEmpty()) {
+        if (fullTextQuery != null) {
+            // The description goes through the FULLTEXT index; the short name columns stay on LIKE
+            List<String> keywordConditions = new ArrayList<>();
+            keywordConditions.add("MATCH(ss.description) AGAINST(? IN BOOLEAN MODE)");
+            params.add(fullTextQuery);
+            for (String keyword : keywords) {
+                keywordConditions.add("(t.name LIKE ? OR i.name LIKE ? OR " +
+                        "CONCAT(r.title, ' ', r.fname, ' ', r.lname) LIKE ?)");
+                String likePattern = "%" + keyword + "%";
+                params.add(likePattern);
+                params.add(likePattern);
+                params.add(likePattern);
+            }
+            conditions.add("(" + String.join(" OR ", keywordConditions) + ")");
+        } else if (!keywords.isEmpty()) {
             List<String> keywordConditions = new ArrayList<>();
             for (String keyword : keywords) {
                 keywordConditions.add("(ss.description LIKE ? OR t.name LIKE ? OR i.name LIKE ? OR " +
@@ -111,13 +187,18 @@ public class SearchDAO {
             sql.append("AND (").append(String.join(" OR ", conditions)).append(") ");
         }
 
-        sql.append("ORDER BY has_access DESC");
+        sql.append("ORDER BY has_access DESC, text_relevance DESC");
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
+            stmt.setMaxRows(maxRows);
+
             int paramIndex = 1;
             stmt.setLong(paramIndex++, userId);
+            if (fullTextQuery != null) {
+                stmt.setString(paramIndex++, fullTextQuery);
+            }
 
             for (String param : params) {
                 stmt.setString(paramIndex++, param);
@@ -133,6 +214,7 @@ public class SearchDAO {
                     result.setTopicName(rs.getString("topic_name"));
                     result.setInstitutionName(rs.getString("institution_name"));
                     result.setHasAccess(rs.getBoolean("has_access"));
+                    result.setRelevanceScore(fullTextScore(rs.getDouble("text_relevance")));
                     results.add(result);
                 }
             }
@@ -145,19 +227,23 @@ public class SearchDAO {
 
     /**
      * Searches for recordings matching the query terms.
+     * With the FULLTEXT strategy each result's relevance score is preset to the scaled
+     * MATCH relevance of its text, for use as a base score; with LIKE it is 0.
      *
      * @param keywords the set of keyword strings to search for
      * @param rebbiNames the set of Rebbi names to match
      * @param topicNames the set of topic names to match
      * @param institutionNames the set of institution names to match
      * @param userId the user ID for access control checking
+     * @param maxRows the maximum number of rows to return, or 0 for no limit
      * @return a list of SearchResult objects for matching recordings
      * @throws RuntimeException if a database error occurs
      */
     public List<SearchResult> searchRecordings(Set<String> keywords, Set<String> rebbiNames,
                                                Set<String> topicNames, Set<String> institutionNames,
-                                               Long userId) {
+                                               Long userId, int maxRows) {
         List<SearchResult> results = new ArrayList<>();
+        String fullTextQuery = fullTextQuery(keywords);
 
         StringBuilder sql = new StringBuilder();
         sql.append("SELECT DISTINCT sr.recording_id, sr.series_id, sr.title, sr.description, sr.recorded_at, ");
@@ -165,7 +251,9 @@ public class SearchDAO {
         sql.append("CONCAT(r.title, ' ', r.fname, ' ', r.lname) AS rebbi_name, ");
         sql.append("t.name AS topic_name, ");
         sql.append("i.name AS institution_name, ");
-        sql.append("EXISTS(SELECT 1 FROM shiur_participants sp WHERE sp.series_id = ss.series_id AND sp.user_id = ?) AS has_access ");
+        sql.append("EXISTS(SELECT 1 FROM shiur_participants sp WHERE sp.series_id = ss.series_id AND sp.user_id = ?) AS has_access, ");
+        sql.append(fullTextQuery != null ? "MATCH(" + RECORDING_FULLTEXT_COLUMNS + ") AGAINST(? IN BOOLEAN MODE) " : "0 ");
+        sql.append("AS text_relevance ");
         sql.append("FROM shiur_recordings sr ");
         sql.append("JOIN shiur_series ss ON sr.series_id = ss.series_id ");
         sql.append("JOIN rebbeim r ON ss.rebbi_id = r.rebbi_id ");
@@ -177,7 +265,21 @@ public class SearchDAO {
         List<String> params = new ArrayList<>();
 
         // Add keyword search conditions
-        if (!keywords.isEmpty()) {
+        if (fullTextQuery != null) {
+            // Recording text goes through the FULLTEXT index; the short name columns stay on LIKE
+            List<String> keywordConditions = new ArrayList<>();
+            keywordConditions.add("MATCH(" + RECORDING_FULLTEXT_COLUMNS + ") AGAINST(? IN BOOLEAN MODE)");
+            params.add(fullTextQuery);
+            for (String keyword : keywords) {
+                keywordConditions.add("(t.name LIKE ? OR i.name LIKE ? OR " +
+                        "CONCAT(r.title, ' ', r.fname, ' ', r.lname) LIKE ?)");
+                String likePattern = "%" + keyword + "%";
+                params.add(likePattern);
+                params.add(likePattern);
+                params.add(likePattern);
+            }
+            conditions.add("(" + String.join(" OR ", keywordConditions) + ")");
+        } else if (!keywords.isEmpty()) {
             List<String> keywordConditions = new ArrayList<>();
             for (String keyword : keywords) {
                 keywordConditions.add("(sr.title LIKE ? OR sr.description LIKE ? OR " +
@@ -228,13 +330,18 @@ public class SearchDAO {
             sql.append("AND (").append(String.join(" OR ", conditions)).append(") ");
         }
 
-        sql.append("ORDER BY has_access DESC, sr.recorded_at DESC");
+        sql.append("ORDER BY has_access DESC, text_relevance DESC, sr.recorded_at DESC");
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
+            stmt.setMaxRows(maxRows);
+
             int paramIndex = 1;
             stmt.setLong(paramIndex++, userId);
+            if (fullTextQuery != null) {
+                stmt.setString(paramIndex++, fullTextQuery);
+            }
 
             for (String param : params) {
                 stmt.setString(paramIndex++, param);
@@ -253,6 +360,7 @@ public class SearchDAO {
                     result.setTopicName(rs.getString("topic_name"));
                     result.setInstitutionName(rs.getString("institution_name"));
                     result.setHasAccess(rs.getBoolean("has_access"));
+                    result.setRelevanceScore(fullTextScore(rs.getDouble("text_relevance")));
                     results.add(result);
                 }
             }
@@ -263,6 +371,36 @@ public class SearchDAO {
         return results;
     }
 
+    /**
+     * Builds the boolean-mode search string for the keywords, or returns null when the
+     * LIKE strategy is in use or there are no keywords. Each keyword becomes an optional
+     * prefix term, so a row matches if it contains any of them.
+     */
+    private String fullTextQuery(Set<String> keywords) {
+        if (strategy != TextMatchStrategy.FULLTEXT || keywords.isEmpty()) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String keyword : keywords) {
+            // Drop boolean-mode operators so user input cannot change the query structure
+            String term = keyword.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (!term.isEmpty()) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append(term).append('*');
+            }
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    /**
+     * Converts a MATCH relevance value into the integer score carried on the result.
+     */
+    private static int fullTextScore(double relevance) {
+        return (int) Math.min(FULLTEXT_SCORE_CAP, Math.round(relevance * FULLTEXT_SCORE_WEIGHT));
+    }
+
     /**
      * Retrieves all Rebbi names from the database for search matching.
      *
@@ -332,6 +470,33 @@ public class SearchDAO {
         return names;
     }
 
+    /**
+     * Computes a cheap fingerprint of the rebbeim, topics and institutions tables.
+     * The fingerprint changes whenever a row in any of those tables is added, removed or renamed,
+     * which lets callers detect changes made outside the application.
+     *
+     * @return the fingerprint string
+     * @throws RuntimeException if a database error occurs
+     */
+    public String getDictionaryFingerprint() {
+        String sql = "SELECT " +
+                "(SELECT CONCAT(COUNT(*), '-', COALESCE(SUM(CRC32(CONCAT(title, ' ', fname, ' ', lname))), 0)) FROM rebbeim) AS rebbi_fp, " +
+                "(SELECT CONCAT(COUNT(*), '-', COALESCE(SUM(CRC32(name)), 0)) FROM topics) AS topic_fp, " +
+                "(SELECT CONCAT(COUNT(*), '-', COALESCE(SUM(CRC32(name)), 0)) FROM institutions) AS inst_fp";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getString("rebbi_fp") + "/" + rs.getString("topic_fp") + "/" + rs.getString("inst_fp");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error computing dictionary fingerprint", e);
+        }
+
+        return "";
+    }
+
     /**
      * Retrieves the institution IDs associated with a user.
      *
@@ -357,4 +522,141 @@ public class SearchDAO {
 
         return institutionIds;
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves every series with its Rebbi, topic and institution names for the search index.
+     *
+     * @return a list of SearchDocument objects, one per series
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<SearchDocument> getAllSeriesDocuments() {
+        List<SearchDocument> documents = new ArrayList<>();
+        String sql = "SELECT ss.series_id, ss.description, " +
+                "CONCAT(r.title, ' ', r.fname, ' ', r.lname) AS rebbi_name, " +
+                "t.name AS topic_name, i.name AS institution_name " +
+                "FROM shiur_series ss " +
+                "JOIN rebbeim r ON ss.rebbi_id = r.rebbi_id " +
+                "JOIN topics t ON ss.topic_id = t.topic_id " +
+                "JOIN institutions i ON ss.inst_id = i.inst_id";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                SearchDocument document = new SearchDocument();
+                document.setType("SERIES");
+                document.setId(rs.getLong("series_id"));
+                document.setSeriesId(rs.getLong("series_id"));
+                document.setDescription(rs.getString("description"));
+                document.setRebbiName(rs.getString("rebbi_name"));
+                document.setTopicName(rs.getString("topic_name"));
+                document.setInstitutionName(rs.getString("institution_name"));
+                documents.add(document);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading series for search index", e);
+        }
+
+        return documents;
+    }
+
+    /**
+     * Retrieves every recording with its keywords and series names for the search index.
+     *
+     * @return a list of SearchDocument objects, one per recording
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<SearchDocument> getAllRecordingDocuments() {
+        List<SearchDocument> documents = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RECORDING_DOCUMENT_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                documents.add(mapRecordingDocument(rs));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading recordings for search index", e);
+        }
+
+        return documents;
+    }
+
+    /**
+     * Retrieves a single recording with its keywords and series names for the search index.
+     *
+     * @param recordingId the recording ID
+     * @return the SearchDocument for the recording, or null if it does not exist
+     * @throws RuntimeException if a database error occurs
+     */
+    public SearchDocument getRecordingDocument(Long recordingId) {
+        String sql = RECORDING_DOCUMENT_SQL + " WHERE sr.recording_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, recordingId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapRecordingDocument(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading recording for search index", e);
+        }
+    }
+
+    private SearchDocument mapRecordingDocument(ResultSet rs) throws SQLException {
+        SearchDocument document = new SearchDocument();
+        document.setType("RECORDING");
+        document.setId(rs.getLong("recording_id"));
+        document.setSeriesId(rs.getLong("series_id"));
+        document.setTitle(rs.getString("title"));
+        document.setDescription(rs.getString("description"));
+        document.setRecordedAt(rs.getString("recorded_at"));
+        List<String> keywords = new ArrayList<>(6);
+        for (int i = 1; i <= 6; i++) {
+            String keyword = rs.getString("keyword_" + i);
+            if (keyword != null) {
+                keywords.add(keyword);
+            }
+        }
+        document.setKeywords(keywords);
+        document.setRebbiName(rs.getString("rebbi_name"));
+        document.setTopicName(rs.getString("topic_name"));
+        document.setInstitutionName(rs.getString("institution_name"));
+        return document;
+    }
+
+    /**
+     * Retrieves the IDs of all series the user participates in.
+     *
+     * @param userId the user ID
+     * @return a set of series IDs the user has access to
+     * @throws RuntimeException if a database error occurs
+     */
+    public Set<Long> getParticipantSeriesIds(Long userId) {
+        Set<Long> seriesIds = new HashSet<>();
+        String sql = "SELECT series_id FROM shiur_participants WHERE user_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    seriesIds.add(rs.getLong("series_id"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching participant series", e);
+        }
+
+        return seriesIds;
+    }
+
+    private static TextMatchStrategy parseStrategy(String strategyName) {
+        try {
+            return TextMatchStrategy.valueOf(strategyName.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.error("Unknown search.sql.strategy '{}', expected like or fulltext; using LIKE", strategyName);
+            return TextMatchStrategy.LIKE;
+        }
+    }
+}
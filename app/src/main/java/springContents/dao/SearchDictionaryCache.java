@@ -0,0 +1,210 @@
+package springContents.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Versioned cache of the Rebbi, topic and institution name dictionaries used for query parsing.
+ * Each invalidation bumps the version; the next read after that reloads all three lists in one
+ * refresh and publishes them as a new immutable {@link Dictionaries} snapshot. Writes through
+ * the DAOs invalidate the cache directly, and a periodic fingerprint check picks up changes made
+ * outside the application.
+ */
+@Repository
+public class SearchDictionaryCache {
+    private static final Logger logger = LoggerFactory.getLogger(SearchDictionaryCache.class);
+
+    private final SearchDAO searchDAO;
+    private final AtomicLong version = new AtomicLong(1);
+    private final Object refreshLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder externalChanges = new LongAdder();
+    private final LongAdder totalRefreshNanos = new LongAdder();
+    private volatile long lastRefreshNanos;
+
+    private volatile Dictionaries current;
+
+    /**
+     * Constructs a new SearchDictionaryCache backed by the given SearchDAO.
+     *
+     * @param searchDAO the SearchDAO used to load the dictionaries
+     */
+    @Autowired
+    public SearchDictionaryCache(SearchDAO searchDAO) {
+        this.searchDAO = searchDAO;
+    }
+
+    /**
+     * Gets the current dictionaries, reloading them if they have been invalidated.
+     *
+     * @return the current dictionaries snapshot
+     * @throws RuntimeException if the dictionaries need reloading and a database error occurs
+     */
+    public Dictionaries get() {
+        Dictionaries dictionaries = current;
+        if (dictionaries != null && dictionaries.version == version.get()) {
+            hits.increment();
+            return dictionaries;
+        }
+        misses.increment();
+        return refresh();
+    }
+
+    /**
+     * Marks the cached dictionaries as stale. If called inside a transaction the cache is
+     * invalidated again after commit so a reload during the transaction cannot stick.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Periodically compares the table fingerprint with the one the cached dictionaries
+     * were loaded with, and invalidates the cache if they differ.
+     */
+    @Scheduled(fixedDelayString = "${search.dictionary.check-interval-ms:60000}",
+            initialDelayString = "${search.dictionary.check-interval-ms:60000}")
+    public void checkForExternalChanges() {
+        Dictionaries dictionaries = current;
+        if (dictionaries == null) {
+            return;
+        }
+        try {
+            String fingerprint = searchDAO.getDictionaryFingerprint();
+            if (!fingerprint.equals(dictionaries.fingerprint)) {
+                logger.info("Search dictionaries changed outside the application, invalidating cache");
+                externalChanges.increment();
+                invalidate();
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to check search dictionaries for changes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns cache statistics: hits, misses, refresh count and refresh durations.
+     *
+     * @return a map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long refreshCount = refreshes.sum();
+        Dictionaries dictionaries = current;
+        metrics.put("version", dictionaries != null ? dictionaries.version : 0);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRatio", hitCount + missCount == 0 ? 0.0 : hitCount / (double) (hitCount + missCount));
+        metrics.put("refreshes", refreshCount);
+        metrics.put("externalChanges", externalChanges.sum());
+        metrics.put("lastRefreshMillis", lastRefreshNanos / 1_000_000.0);
+        metrics.put("averageRefreshMillis", refreshCount == 0 ? 0.0 : totalRefreshNanos.sum() / (double) refreshCount / 1_000_000.0);
+        return metrics;
+    }
+
+    private Dictionaries refresh() {
+        synchronized (refreshLock) {
+            long targetVersion = version.get();
+            Dictionaries dictionaries = current;
+            if (dictionaries != null && dictionaries.version == targetVersion) {
+                // Another thread refreshed while we were waiting
+                return dictionaries;
+            }
+
+            long start = System.nanoTime();
+            String fingerprint = searchDAO.getDictionaryFingerprint();
+            dictionaries = new Dictionaries(targetVersion,
+                    List.copyOf(searchDAO.getAllRebbiNames()),
+                    List.copyOf(searchDAO.getAllTopicNames()),
+                    List.copyOf(searchDAO.getAllInstitutionNames()),
+                    fingerprint);
+            current = dictionaries;
+
+            long elapsed = System.nanoTime() - start;
+            lastRefreshNanos = elapsed;
+            totalRefreshNanos.add(elapsed);
+            refreshes.increment();
+            logger.debug("Refreshed search dictionaries to version {} in {} ms", targetVersion, elapsed / 1_000_000);
+            return dictionaries;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the name dictionaries at one version. All names are lowercase.
+     */
+    public static final class Dictionaries {
+        private final long version;
+        private final List<String> rebbiNames;
+        private final List<String> topicNames;
+        private final List<String> institutionNames;
+        private final String fingerprint;
+
+        private Dictionaries(long version, List<String> rebbiNames, List<String> topicNames,
+                             List<String> institutionNames, String fingerprint) {
+            this.version = version;
+            this.rebbiNames = rebbiNames;
+            this.topicNames = topicNames;
+            this.institutionNames = institutionNames;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Gets the version this snapshot was loaded at.
+         *
+         * @return the snapshot version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets all Rebbi full names.
+         *
+         * @return the Rebbi names
+         */
+        public List<String> getRebbiNames() {
+            return rebbiNames;
+        }
+
+        /**
+         * Gets all topic names.
+         *
+         * @return the topic names
+         */
+        public List<String> getTopicNames() {
+            return topicNames;
+        }
+
+        /**
+         * Gets all institution names.
+         *
+         * @return the institution names
+         */
+        public List<String> getInstitutionNames() {
+            return institutionNames;
+        }
+    }
+}
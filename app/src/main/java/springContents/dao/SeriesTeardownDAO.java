@@ -0,0 +1,139 @@
+package springContents.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for the removal of the S3 buckets of deleted series, one job per series
+ * keyed by series_id. Claims, leases and outcomes work as described in {@link LeasedJobDAO};
+ * the worker also saves the number of objects deleted, so progress survives a restart.
+ */
+@Repository
+public class SeriesTeardownDAO extends LeasedJobDAO {
+
+    /**
+     * Constructs a new SeriesTeardownDAO with the specified data source.
+     *
+     * @param dataSource the data source for database connections
+     */
+    @Autowired
+    public SeriesTeardownDAO(DataSource dataSource) {
+        super(dataSource, "series_teardowns", "series_id", "series teardown");
+    }
+
+    /**
+     * Queues the teardown of a series bucket. A teardown already recorded for the series is
+     * queued again with a fresh set of attempts unless it is pending or running.
+     *
+     * @param seriesId the ID of the deleted series
+     * @param userId the ID of the user who deleted it
+     * @throws RuntimeException if a database error occurs
+     */
+    public void enqueue(Long seriesId, Long userId) {
+        // MySQL applies the assignments in order, so status must be updated last
+        String sql = "INSERT INTO series_teardowns (series_id, requested_by) VALUES (?, ?) " +
+                "ON DUPLICATE KEY UPDATE " +
+                "requested_by = VALUES(requested_by), " +
+                "attempts = IF(status IN ('PENDING', 'RUNNING'), attempts, 0), " +
+                "next_run_at = IF(status IN ('PENDING', 'RUNNING'), next_run_at, CURRENT_TIMESTAMP), " +
+                "status = IF(status IN ('PENDING', 'RUNNING'), status, 'PENDING')";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, seriesId);
+            stmt.setLong(2, userId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error queueing series teardown", e);
+        }
+    }
+
+    /**
+     * Claims due teardowns for a worker, marking them RUNNING and counting the attempt.
+     *
+     * @param workerId the identifier of the claiming worker
+     * @param limit the most teardowns to claim
+     * @return a list of teardown maps with seriesId, objectsDeleted and attempts (including this one)
+     * @throws RuntimeException if a database error occurs
+     */
+    public List<Map<String, Object>> claimDueTeardowns(String workerId, int limit) {
+        return claimDue(workerId, limit, "objects_deleted", rs -> {
+            Map<String, Object> teardown = new HashMap<>();
+            teardown.put("seriesId", rs.getLong("series_id"));
+            teardown.put("objectsDeleted", rs.getLong("objects_deleted"));
+            return teardown;
+        });
+    }
+
+    /**
+     * Saves the progress of a running teardown.
+     *
+     * @param seriesId the ID of the deleted series
+     * @param workerId the identifier of the worker running the teardown
+     * @param objectsDeleted the objects deleted so far, over all attempts
+     * @return true if the worker still held the teardown and it was updated
+     * @throws RuntimeException if a database error occurs
+     */
+    public boolean saveProgress(Long seriesId, String workerId, long objectsDeleted) {
+        String sql = "UPDATE series_teardowns SET objects_deleted = ? " +
+                "WHERE series_id = ? AND locked_by = ? AND status = 'RUNNING'";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, objectsDeleted);
+            stmt.setLong(2, seriesId);
+            stmt.setString(3, workerId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving series teardown progress", e);
+        }
+    }
+
+    /**
+     * Retrieves the teardown of a series, if it was requested by the given user.
+     *
+     * @param seriesId the ID of the deleted series
+     * @param userId the ID of the user asking
+     * @return a map with status, attempts, objectsDeleted, queuedAt, updatedAt, nextRunAt and
+     *         error, or null if this user has no teardown of the series
+     * @throws RuntimeException if a database error occurs
+     */
+    public Map<String, Object> getTeardown(Long seriesId, Long userId) {
+        String sql = "SELECT status, attempts, objects_deleted, created_at, updated_at, next_run_at, last_error " +
+                "FROM series_teardowns WHERE series_id = ? AND requested_by = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, seriesId);
+            stmt.setLong(2, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                Map<String, Object> teardown = new HashMap<>();
+                teardown.put("status", rs.getString("status"));
+                teardown.put("attempts", rs.getInt("attempts"));
+                teardown.put("objectsDeleted", rs.getLong("objects_deleted"));
+                teardown.put("queuedAt", rs.getTimestamp("created_at").toLocalDateTime());
+                teardown.put("updatedAt", rs.getTimestamp("updated_at").toLocalDateTime());
+                teardown.put("nextRunAt", rs.getTimestamp("next_run_at").toLocalDateTime());
+                teardown.put("error", rs.getString("last_error"));
+                return teardown;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching series teardown", e);
+        }
+    }
+}
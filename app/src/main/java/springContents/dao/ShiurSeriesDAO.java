@@ -23,15 +23,18 @@ import java.util.Map;
 public class ShiurSeriesDAO {
 
     private final DataSource dataSource;
+    private final SearchDictionaryCache dictionaryCache;
 
     /**
      * Constructs a new ShiurSeriesDAO with the specified data source.
      *
      * @param dataSource the data source for database connections
+     * @param dictionaryCache the search dictionary cache to invalidate on writes
      */
     @Autowired
-    public ShiurSeriesDAO(DataSource dataSource) {
+    public ShiurSeriesDAO(DataSource dataSource, SearchDictionaryCache dictionaryCache) {
         this.dataSource = dataSource;
+        this.dictionaryCache = dictionaryCache;
     }
 
     /**
@@ -66,6 +69,7 @@ public class ShiurSeriesDAO {
             if (rows == 0) {
                 throw new SQLException("Creating series failed, no rows affected.");
             }
+            dictionaryCache.invalidate();
 
             try (ResultSet keys = stmt.getGeneratedKeys()) {
                 if (keys.next()) {
@@ -281,6 +285,44 @@ public class ShiurSeriesDAO {
         return false;
     }
 
+    /**
+     * Checks if a user may listen to a series. Series that do not require permission are open
+     * to everyone; the others are open to their participants and gabbaim.
+     *
+     * @param userId the user ID, or null for an anonymous listener
+     * @param seriesId the series ID
+     * @return true if the user may access the series, false otherwise or if the series does not exist
+     * @throws RuntimeException if a database error occurs
+     */
+    public boolean canAccessSeries(Long userId, Long seriesId) {
+        String sql =
+                "SELECT s.requires_permission, " +
+                        "EXISTS (SELECT 1 FROM shiur_participants p WHERE p.series_id = s.series_id AND p.user_id = ?) " +
+                        "OR EXISTS (SELECT 1 FROM gabbaim g WHERE g.series_id = s.series_id AND g.user_id = ?) AS is_member " +
+                        "FROM shiur_series s " +
+                        "WHERE s.series_id = ?";
+
+        // No user row has a negative ID, so an anonymous listener is never a member
+        long memberId = userId != null ? userId : -1L;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, memberId);
+            stmt.setLong(2, memberId);
+            stmt.setLong(3, seriesId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return !rs.getBoolean("requires_permission") || rs.getBoolean("is_member");
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error checking access to series", e);
+        }
+
+        return false;
+    }
+
     /**
      * Checks if a user is a gabbai for a specific series.
      *
@@ -0,0 +1,104 @@
+package springContents.model;
+
+/**
+ * Technical details of a recording's audio file, read from its container and stream headers.
+ * Any field may be null when the file does not carry it or its format is not recognized.
+ */
+public class AudioMetadata {
+
+    private String codec;
+    private Long durationMs;
+    private Integer bitrateKbps;
+    private Integer sampleRate;
+    private Integer channels;
+
+    /**
+     * Gets the codec name, such as "mp3", "aac", "opus", "vorbis", "flac" or "pcm".
+     *
+     * @return the codec
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    /**
+     * Sets the codec name.
+     *
+     * @param codec the codec to set
+     */
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Gets the playing time in milliseconds.
+     *
+     * @return the duration
+     */
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * Sets the playing time in milliseconds.
+     *
+     * @param durationMs the duration to set
+     */
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * Gets the average bitrate in kilobits per second.
+     *
+     * @return the bitrate
+     */
+    public Integer getBitrateKbps() {
+        return bitrateKbps;
+    }
+
+    /**
+     * Sets the average bitrate in kilobits per second.
+     *
+     * @param bitrateKbps the bitrate to set
+     */
+    public void setBitrateKbps(Integer bitrateKbps) {
+        this.bitrateKbps = bitrateKbps;
+    }
+
+    /**
+     * Gets the sample rate in hertz.
+     *
+     * @return the sample rate
+     */
+    public Integer getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Sets the sample rate in hertz.
+     *
+     * @param sampleRate the sample rate to set
+     */
+    public void setSampleRate(Integer sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Gets the number of audio channels.
+     *
+     * @return the channel count
+     */
+    public Integer getChannels() {
+        return channels;
+    }
+
+    /**
+     * Sets the number of audio channels.
+     *
+     * @param channels the channel count to set
+     */
+    public void setChannels(Integer channels) {
+        this.channels = channels;
+    }
+}
@@ -0,0 +1,387 @@
+package springContents.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Represents a searchable series or recording as loaded into the in-memory search index.
+ * Holds the user-independent text fields of the item; per-user fields such as access
+ * and pending application status are filled in on the SearchResult built from it.
+ * Lowercased and tokenized forms of the text are computed once by {@link #normalize()}
+ * so that matching and scoring never re-lowercase the raw strings.
+ */
+public class SearchDocument {
+    private String type; // "SERIES" or "RECORDING"
+    private Long id;
+    private Long seriesId;
+    private String title;
+    private String description;
+    private List<String> keywords = new ArrayList<>();
+    private String rebbiName;
+    private String topicName;
+    private String institutionName;
+    private String recordedAt; // For recordings only
+    private int engineScore; // Relevance from the database text search, when loaded from SQL
+
+    // Normalized forms, filled in by normalize()
+    private String normalizedTitle;
+    private String normalizedRebbiName;
+    private String normalizedTopicName;
+    private String normalizedInstitutionName;
+    private NavigableSet<String> titleTokens = Collections.emptyNavigableSet();
+    private NavigableSet<String> descriptionTokens = Collections.emptyNavigableSet();
+    private Set<String> searchTokens = Collections.emptySet();
+
+    /**
+     * Default constructor for SearchDocument.
+     */
+    public SearchDocument() {
+    }
+
+    /**
+     * Gets the document type, either "SERIES" or "RECORDING".
+     *
+     * @return the document type
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Sets the document type.
+     *
+     * @param type the type to set, either "SERIES" or "RECORDING"
+     */
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the unique identifier of the series or recording.
+     *
+     * @return the ID
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the unique identifier.
+     *
+     * @param id the ID to set
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the series ID. For series documents this equals the document ID.
+     *
+     * @return the series ID
+     */
+    public Long getSeriesId() {
+        return seriesId;
+    }
+
+    /**
+     * Sets the series ID.
+     *
+     * @param seriesId the series ID to set
+     */
+    public void setSeriesId(Long seriesId) {
+        this.seriesId = seriesId;
+    }
+
+    /**
+     * Gets the title of the recording, or null for series.
+     *
+     * @return the title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the title.
+     *
+     * @param title the title to set
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Gets the description of the series or recording.
+     *
+     * @return the description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Sets the description.
+     *
+     * @param description the description to set
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Gets the recording keywords. Empty for series.
+     *
+     * @return the list of keywords
+     */
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * Sets the recording keywords.
+     *
+     * @param keywords the keywords to set
+     */
+    public void setKeywords(List<String> keywords) {
+        this.keywords = keywords;
+    }
+
+    /**
+     * Gets the full name of the Rebbi.
+     *
+     * @return the Rebbi name
+     */
+    public String getRebbiName() {
+        return rebbiName;
+    }
+
+    /**
+     * Sets the Rebbi name.
+     *
+     * @param rebbiName the Rebbi name to set
+     */
+    public void setRebbiName(String rebbiName) {
+        this.rebbiName = rebbiName;
+    }
+
+    /**
+     * Gets the topic name.
+     *
+     * @return the topic name
+     */
+    public String getTopicName() {
+        return topicName;
+    }
+
+    /**
+     * Sets the topic name.
+     *
+     * @param topicName the topic name to set
+     */
+    public void setTopicName(String topicName) {
+        this.topicName = topicName;
+    }
+
+    /**
+     * Gets the institution name.
+     *
+     * @return the institution name
+     */
+    public String getInstitutionName() {
+        return institutionName;
+    }
+
+    /**
+     * Sets the institution name.
+     *
+     * @param institutionName the institution name to set
+     */
+    public void setInstitutionName(String institutionName) {
+        this.institutionName = institutionName;
+    }
+
+    /**
+     * Gets the recording date/time, applicable only for recordings.
+     *
+     * @return the recorded date/time as a string
+     */
+    public String getRecordedAt() {
+        return recordedAt;
+    }
+
+    /**
+     * Sets the recording date/time.
+     *
+     * @param recordedAt the recorded date/time to set
+     */
+    public void setRecordedAt(String recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    /**
+     * Gets the relevance contributed by the database full-text search, or 0 if none.
+     *
+     * @return the engine relevance score
+     */
+    public int getEngineScore() {
+        return engineScore;
+    }
+
+    /**
+     * Sets the relevance contributed by the database full-text search.
+     *
+     * @param engineScore the engine relevance score to set
+     */
+    public void setEngineScore(int engineScore) {
+        this.engineScore = engineScore;
+    }
+
+    /**
+     * Computes the lowercased names and title, the sorted token sets of the title and the
+     * description, and the token set of all searchable text. Must be called again after any
+     * of the text fields change.
+     */
+    public void normalize() {
+        normalizedTitle = title != null ? title.toLowerCase() : null;
+        normalizedRebbiName = rebbiName != null ? rebbiName.toLowerCase() : null;
+        normalizedTopicName = topicName != null ? topicName.toLowerCase() : null;
+        normalizedInstitutionName = institutionName != null ? institutionName.toLowerCase() : null;
+
+        TreeSet<String> title = new TreeSet<>();
+        tokenize(this.title, title);
+        TreeSet<String> description = new TreeSet<>();
+        tokenize(this.description, description);
+
+        Set<String> all = new HashSet<>(title);
+        all.addAll(description);
+        for (String keyword : keywords) {
+            tokenize(keyword, all);
+        }
+        tokenize(rebbiName, all);
+        tokenize(topicName, all);
+        tokenize(institutionName, all);
+
+        titleTokens = Collections.unmodifiableNavigableSet(title);
+        descriptionTokens = Collections.unmodifiableNavigableSet(description);
+        searchTokens = Set.copyOf(all);
+    }
+
+    /**
+     * Gets the lowercased title, or null if there is no title.
+     *
+     * @return the normalized title
+     */
+    public String getNormalizedTitle() {
+        return normalizedTitle;
+    }
+
+    /**
+     * Gets the lowercase tokens of the title in sorted order, so that tokens starting with a
+     * prefix can be looked up without scanning.
+     *
+     * @return the title tokens, empty if there is no title
+     */
+    public NavigableSet<String> getTitleTokens() {
+        return titleTokens;
+    }
+
+    /**
+     * Gets the lowercase tokens of the description in sorted order.
+     *
+     * @return the description tokens, empty if there is no description
+     */
+    public NavigableSet<String> getDescriptionTokens() {
+        return descriptionTokens;
+    }
+
+    /**
+     * Gets the lowercased Rebbi name.
+     *
+     * @return the normalized Rebbi name
+     */
+    public String getNormalizedRebbiName() {
+        return normalizedRebbiName;
+    }
+
+    /**
+     * Gets the lowercased topic name.
+     *
+     * @return the normalized topic name
+     */
+    public String getNormalizedTopicName() {
+        return normalizedTopicName;
+    }
+
+    /**
+     * Gets the lowercased institution name.
+     *
+     * @return the normalized institution name
+     */
+    public String getNormalizedInstitutionName() {
+        return normalizedInstitutionName;
+    }
+
+    /**
+     * Gets the set of lowercase tokens across all searchable fields: title, description,
+     * keywords and the Rebbi, topic and institution names.
+     *
+     * @return all searchable tokens
+     */
+    public Set<String> getSearchTokens() {
+        return searchTokens;
+    }
+
+    /**
+     * Splits text into lowercase tokens made of letters, digits and apostrophes.
+     *
+     * @param text the text to tokenize, may be null
+     * @param tokens the collection to add tokens to
+     */
+    public static void tokenize(String text, Collection<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '\'') {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+    }
+
+    /**
+     * Builds a SearchResult for this document with the given access status.
+     *
+     * @param hasAccess whether the searching user has access to the series
+     * @return a new SearchResult populated from this document
+     */
+    public SearchResult toSearchResult(boolean hasAccess) {
+        SearchResult result = new SearchResult();
+        result.setType(type);
+        result.setId(id);
+        if ("RECORDING".equals(type)) {
+            result.setSeriesId(seriesId);
+            result.setTitle(title);
+            result.setRecordedAt(recordedAt);
+        }
+        result.setDescription(description);
+        result.setRebbiName(rebbiName);
+        result.setTopicName(topicName);
+        result.setInstitutionName(institutionName);
+        result.setHasAccess(hasAccess);
+        return result;
+    }
+}
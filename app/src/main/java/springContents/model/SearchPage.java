@@ -0,0 +1,113 @@
+package springContents.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents one page of search results together with the total number of matches.
+ * Produced by a single execution of a search so the page and the count always agree.
+ */
+public class SearchPage {
+    private List<SearchResult> results = new ArrayList<>();
+    private int totalResults;
+    private boolean totalApproximate;
+    private String nextCursor;
+    private boolean partial;
+
+    /**
+     * Default constructor for SearchPage.
+     */
+    public SearchPage() {
+    }
+
+    /**
+     * Gets the results on this page.
+     *
+     * @return the list of search results
+     */
+    public List<SearchResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Sets the results on this page.
+     *
+     * @param results the results to set
+     */
+    public void setResults(List<SearchResult> results) {
+        this.results = results;
+    }
+
+    /**
+     * Gets the total number of matching results across all pages.
+     *
+     * @return the total result count
+     */
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    /**
+     * Sets the total number of matching results.
+     *
+     * @param totalResults the total result count to set
+     */
+    public void setTotalResults(int totalResults) {
+        this.totalResults = totalResults;
+    }
+
+    /**
+     * Checks if the total is a lower bound rather than an exact count.
+     *
+     * @return true if the total result count is approximate
+     */
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+
+    /**
+     * Sets whether the total is approximate.
+     *
+     * @param totalApproximate true if the total result count is approximate
+     */
+    public void setTotalApproximate(boolean totalApproximate) {
+        this.totalApproximate = totalApproximate;
+    }
+
+    /**
+     * Gets the opaque cursor for fetching the page after this one.
+     *
+     * @return the next cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor for the next page.
+     *
+     * @param nextCursor the next cursor to set, or null if there are no more results
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Checks if some lookups missed the search deadline, so results may be missing
+     * or show the wrong access status.
+     *
+     * @return true if the results are partial
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Sets whether the results are partial.
+     *
+     * @param partial true if some lookups missed the search deadline
+     */
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+}
\ No newline at end of file
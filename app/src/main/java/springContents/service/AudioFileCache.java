@@ -0,0 +1,601 @@
+package springContents.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded on-disk cache of audio objects, evicting the least recently used files first.
+ * Objects are written to the cache while they are streamed to a client on a miss, or fetched
+ * in the background after a ranged miss, and hits are served straight from the file so they
+ * cost no S3 request or egress. The controller hands hits to the servlet container's sendfile
+ * support by {@link CachedAudio#path()} where it has one, and copies them otherwise.
+ * Configured in dbcredentials.properties with audio.cache.enabled, audio.cache.dir and
+ * audio.cache.max-bytes.
+ * Each entry keeps the ETag and last-modified time of the object it was filled from, so hits
+ * can be revalidated by clients; files indexed from a previous run have none.
+ */
+@Service
+public class AudioFileCache {
+    private static final Logger logger = LoggerFactory.getLogger(AudioFileCache.class);
+    private static final String TEMP_DIRECTORY = ".partial";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+
+    // Cached files in access order, eldest first; guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private final Set<String> fillsInProgress = ConcurrentHashMap.newKeySet();
+    private final ExecutorService backgroundFills = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "audio-cache-fill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+    private final LongAdder fills = new LongAdder();
+    private final LongAdder abortedFills = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictedBytes = new LongAdder();
+
+    /**
+     * Constructs a new AudioFileCache and indexes any files left in the cache directory by a
+     * previous run.
+     *
+     * @param enabled whether audio objects are cached at all
+     * @param directory the cache directory, or empty for shiurbank-audio-cache in the temp directory
+     * @param maxBytes the most bytes of audio kept on disk
+     * @throws IOException if the cache directory cannot be created
+     */
+    @Autowired
+    public AudioFileCache(@Value("${audio.cache.enabled:true}") boolean enabled,
+                          @Value("${audio.cache.dir:}") String directory,
+                          @Value("${audio.cache.max-bytes:5368709120}") long maxBytes) throws IOException {
+        this.enabled = enabled;
+        this.directory = directory.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "shiurbank-audio-cache")
+                : Paths.get(directory.trim());
+        this.maxBytes = maxBytes;
+
+        if (enabled) {
+            Files.createDirectories(directory.resolve(TEMP_DIRECTORY));
+            loadExisting();
+            logger.info("Audio cache at {} holding {} files ({} of {} bytes)",
+                    directory, entries.size(), currentBytes, maxBytes);
+        } else {
+            logger.info("Audio cache disabled");
+        }
+    }
+
+    /**
+     * Builds the cache key for a file in a series bucket.
+     *
+     * @param seriesId the series ID
+     * @param fileName the file name in the series bucket
+     * @return the cache key
+     */
+    public static String seriesKey(Long seriesId, String fileName) {
+        return "series/" + seriesId + "/" + fileName;
+    }
+
+    /**
+     * Builds the cache key for a file in the default audio bucket.
+     *
+     * @param key the object key
+     * @return the cache key
+     */
+    public static String defaultKey(String key) {
+        return "default/" + key;
+    }
+
+    /**
+     * Opens a cached object for reading. The caller must close the returned handle.
+     *
+     * @param cacheKey the cache key
+     * @return the cached object, or null on a miss
+     */
+    public CachedAudio open(String cacheKey) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(cacheKey);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        try {
+            // An open channel keeps the file readable even if it is evicted meanwhile
+            FileChannel channel = FileChannel.open(entry.path, StandardOpenOption.READ);
+            hits.increment();
+            return new CachedAudio(channel, entry.path, entry.size, entry.eTag, entry.lastModified, bytesServed);
+        } catch (IOException e) {
+            logger.warn("Dropping unreadable cache file {}: {}", entry.path, e.getMessage());
+            remove(cacheKey);
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Starts writing an object into the cache. Returns null if caching is disabled, the object
+     * does not fit, or another fill of the same object is already running.
+     *
+     * @param cacheKey the cache key
+     * @param expectedSize the full size of the object in bytes
+     * @param eTag the object's ETag, may be null
+     * @param lastModified the object's last-modified time, may be null
+     * @return the fill to write the object's bytes to, or null if it should not be cached
+     */
+    public Fill startFill(String cacheKey, long expectedSize, String eTag, Instant lastModified) {
+        if (!enabled || expectedSize <= 0 || expectedSize > maxBytes) {
+            return null;
+        }
+        synchronized (this) {
+            if (entries.containsKey(cacheKey)) {
+                return null;
+            }
+        }
+        if (!fillsInProgress.add(cacheKey)) {
+            return null;
+        }
+        try {
+            Path tempFile = Files.createTempFile(directory.resolve(TEMP_DIRECTORY), "fill", ".part");
+            FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+            return new Fill(cacheKey, tempFile, channel, expectedSize, eTag, lastModified);
+        } catch (IOException e) {
+            fillsInProgress.remove(cacheKey);
+            logger.warn("Could not start caching {}: {}", cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fetches a whole object into the cache on a background thread, unless it is already
+     * cached or being cached.
+     *
+     * @param cacheKey the cache key
+     * @param expectedSize the full size of the object in bytes
+     * @param eTag the object's ETag, may be null
+     * @param lastModified the object's last-modified time, may be null
+     * @param source opens a stream of the whole object
+     */
+    public void fillInBackground(String cacheKey, long expectedSize, String eTag, Instant lastModified,
+                                 Supplier<InputStream> source) {
+        Fill fill = startFill(cacheKey, expectedSize, eTag, lastModified);
+        if (fill == null) {
+            return;
+        }
+        backgroundFills.execute(() -> {
+            try (InputStream in = source.get()) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    fill.write(buffer, 0, read);
+                }
+                fill.commit();
+            } catch (Exception e) {
+                logger.warn("Background caching of {} failed: {}", cacheKey, e.getMessage());
+                fill.abort();
+            }
+        });
+    }
+
+    /**
+     * Removes an object from the cache, for example after it is overwritten or deleted.
+     *
+     * @param cacheKey the cache key
+     */
+    public void invalidate(String cacheKey) {
+        if (enabled) {
+            remove(cacheKey);
+        }
+    }
+
+    /**
+     * Removes every cached object whose key starts with the prefix.
+     *
+     * @param keyPrefix the cache key prefix, such as the series prefix of a deleted series
+     */
+    public void invalidatePrefix(String keyPrefix) {
+        if (!enabled) {
+            return;
+        }
+        List<Path> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> mapping = iterator.next();
+                if (mapping.getKey().startsWith(keyPrefix)) {
+                    currentBytes -= mapping.getValue().size;
+                    removed.add(mapping.getValue().path);
+                    iterator.remove();
+                }
+            }
+        }
+        removed.forEach(this::deleteQuietly);
+    }
+
+    /**
+     * Returns cache statistics: hit ratio, bytes served from disk instead of S3, fills and evictions.
+     *
+     * @return a map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        synchronized (this) {
+            metrics.put("files", entries.size());
+            metrics.put("bytes", currentBytes);
+        }
+        metrics.put("enabled", enabled);
+        metrics.put("maxBytes", maxBytes);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRatio", hitCount + missCount == 0 ? 0.0 : hitCount / (double) (hitCount + missCount));
+        metrics.put("bytesSaved", bytesServed.sum());
+        metrics.put("fills", fills.sum());
+        metrics.put("abortedFills", abortedFills.sum());
+        metrics.put("fillsInProgress", fillsInProgress.size());
+        metrics.put("evictions", evictions.sum());
+        metrics.put("evictedBytes", evictedBytes.sum());
+        return metrics;
+    }
+
+    /**
+     * Stops background fills.
+     */
+    @PreDestroy
+    public void shutdown() {
+        backgroundFills.shutdownNow();
+    }
+
+    private void admit(String cacheKey, Path tempFile, long size, String eTag, Instant lastModified)
+            throws IOException {
+        Path target = directory.resolve(URLEncoder.encode(cacheKey, StandardCharsets.UTF_8));
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = entries.put(cacheKey, new Entry(target, size, eTag, lastModified));
+            currentBytes += size - (previous != null ? previous.size : 0);
+
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> mapping = eldest.next();
+                if (mapping.getKey().equals(cacheKey)) {
+                    continue;
+                }
+                currentBytes -= mapping.getValue().size;
+                evictions.increment();
+                evictedBytes.add(mapping.getValue().size);
+                evicted.add(mapping.getValue().path);
+                eldest.remove();
+            }
+        }
+        evicted.forEach(this::deleteQuietly);
+        fills.increment();
+    }
+
+    private void remove(String cacheKey) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(cacheKey);
+            if (entry != null) {
+                currentBytes -= entry.size;
+            }
+        }
+        if (entry != null) {
+            deleteQuietly(entry.path);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete cache file {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Index files left by a previous run, oldest first so recently written files survive
+     * eviction, and clear out unfinished fills.
+     */
+    private void loadExisting() throws IOException {
+        try (DirectoryStream<Path> partials = Files.newDirectoryStream(directory.resolve(TEMP_DIRECTORY))) {
+            for (Path partial : partials) {
+                deleteQuietly(partial);
+            }
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            stream.forEach(files::add);
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        files.sort(Comparator.comparing(modified::get));
+
+        for (Path file : files) {
+            String cacheKey = URLDecoder.decode(file.getFileName().toString(), StandardCharsets.UTF_8);
+            long size = Files.size(file);
+            entries.put(cacheKey, new Entry(file, size, null, null));
+            currentBytes += size;
+        }
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            currentBytes -= entry.size;
+            deleteQuietly(entry.path);
+            eldest.remove();
+        }
+    }
+
+    private static final class Entry {
+        final Path path;
+        final long size;
+        final String eTag;
+        final Instant lastModified;
+
+        Entry(Path path, long size, String eTag, Instant lastModified) {
+            this.path = path;
+            this.size = size;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * An open cached object. Closing it releases the file.
+     */
+    public static final class CachedAudio implements Closeable {
+        private final FileChannel channel;
+        private final Path path;
+        private final long size;
+        private final String eTag;
+        private final Instant lastModified;
+        private final LongAdder bytesServed;
+
+        private CachedAudio(FileChannel channel, Path path, long size, String eTag, Instant lastModified,
+                            LongAdder bytesServed) {
+            this.channel = channel;
+            this.path = path;
+            this.size = size;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.bytesServed = bytesServed;
+        }
+
+        /**
+         * Gets the size of the cached object.
+         *
+         * @return the size in bytes
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * Gets the ETag of the object the cached copy was filled from.
+         *
+         * @return the ETag, or null if unknown
+         */
+        public String eTag() {
+            return eTag;
+        }
+
+        /**
+         * Gets the last-modified time of the object the cached copy was filled from.
+         *
+         * @return the last-modified time, or null if unknown
+         */
+        public Instant lastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets the path of the cache file, for a server that sends the file itself. Eviction
+         * may delete the file once this handle is closed, so the path is only good for as
+         * long as it takes the server to open it.
+         *
+         * @return the path of the cache file
+         */
+        public Path path() {
+            return path;
+        }
+
+        /**
+         * Counts bytes that were sent from the file by other means than this handle.
+         *
+         * @param count the number of bytes sent
+         */
+        public void recordServed(long count) {
+            bytesServed.add(count);
+        }
+
+        /**
+         * Copies a byte range of the object to the target. The copy avoids the heap only when
+         * the target is a file or socket channel; any other channel, such as one wrapping a
+         * servlet output stream, is written through an intermediate buffer.
+         *
+         * @param position the first byte to copy
+         * @param count the number of bytes to copy
+         * @param target the channel to write to
+         * @throws IOException if reading the file or writing the target fails
+         */
+        public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            long end = position + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("Cached audio file ended early");
+                }
+                position += transferred;
+                bytesServed.add(transferred);
+            }
+        }
+
+        /**
+         * Reads bytes of the object into a buffer, as many as fit or remain.
+         *
+         * @param target the buffer to fill
+         * @param position the first byte to read
+         * @throws IOException if reading the file fails or it ends early
+         */
+        public void read(ByteBuffer target, long position) throws IOException {
+            int length = target.remaining();
+            while (target.hasRemaining()) {
+                int read = channel.read(target, position + length - target.remaining());
+                if (read < 0) {
+                    throw new IOException("Cached audio file ended early");
+                }
+            }
+            bytesServed.add(length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * An object being written into the cache. Exactly one of {@link #commit()} or
+     * {@link #abort()} must be called.
+     */
+    public final class Fill {
+        private final String cacheKey;
+        private final Path tempFile;
+        private final FileChannel channel;
+        private final long expectedSize;
+        private final String eTag;
+        private final Instant lastModified;
+        private long written;
+        private boolean finished;
+
+        private Fill(String cacheKey, Path tempFile, FileChannel channel, long expectedSize,
+                     String eTag, Instant lastModified) {
+            this.cacheKey = cacheKey;
+            this.tempFile = tempFile;
+            this.channel = channel;
+            this.expectedSize = expectedSize;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Appends bytes to the cached copy.
+         *
+         * @param buffer the bytes
+         * @param offset the offset of the first byte
+         * @param length the number of bytes
+         * @throws IOException if writing fails or more bytes arrive than expected
+         */
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            write(ByteBuffer.wrap(buffer, offset, length));
+        }
+
+        /**
+         * Appends the remaining bytes of a buffer to the cached copy.
+         *
+         * @param bytes the bytes, consumed by the call
+         * @throws IOException if writing fails or more bytes arrive than expected
+         */
+        public void write(ByteBuffer bytes) throws IOException {
+            int length = bytes.remaining();
+            if (written + length > expectedSize) {
+                throw new IOException("More bytes than expected for " + cacheKey);
+            }
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            written += length;
+        }
+
+        /**
+         * Adds the written object to the cache if it is complete, otherwise discards it.
+         */
+        public void commit() {
+            if (finished) {
+                return;
+            }
+            if (written != expectedSize) {
+                abort();
+                return;
+            }
+            finished = true;
+            try {
+                channel.close();
+                admit(cacheKey, tempFile, written, eTag, lastModified);
+            } catch (IOException e) {
+                logger.warn("Could not add {} to the audio cache: {}", cacheKey, e.getMessage());
+                abortedFills.increment();
+                deleteQuietly(tempFile);
+            } finally {
+                fillsInProgress.remove(cacheKey);
+            }
+        }
+
+        /**
+         * Discards the partially written object.
+         */
+        public void abort() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            abortedFills.increment();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Deleting the file below is all that matters
+            }
+            deleteQuietly(tempFile);
+            fillsInProgress.remove(cacheKey);
+        }
+    }
+}
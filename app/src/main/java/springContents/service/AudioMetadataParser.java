@@ -0,0 +1,561 @@
+package springContents.service;
+
+import springContents.model.AudioMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads codec, duration, bitrate, sample rate and channel count from the headers of MP3,
+ * MP4/M4A, Ogg (Vorbis and Opus), FLAC and WAV files without decoding any audio.
+ * The file is read through a {@link Source} of random reads so that only the few places
+ * holding headers are fetched: the start of the file, and for Ogg the last page and for
+ * MP4 the moov box, which encoders often write at the end.
+ */
+final class AudioMetadataParser {
+    static final int PROBE_BYTES = 16 * 1024;
+    private static final int OGG_MAX_PAGE_BYTES = 27 + 255 + 255 * 255;
+    private static final int MAX_BOXES = 1024;
+
+    private static final int[][] MPEG1_BITRATES = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448}, // Layer I
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},    // Layer II
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},     // Layer III
+    };
+    private static final int[][] MPEG2_BITRATES = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},    // Layer I
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},         // Layers II and III
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+    };
+    private static final int[][] MPEG_SAMPLE_RATES = {
+            {11025, 12000, 8000},  // MPEG 2.5
+            {0, 0, 0},             // reserved
+            {22050, 24000, 16000}, // MPEG 2
+            {44100, 48000, 32000}, // MPEG 1
+    };
+
+    /**
+     * Random access to the bytes of an audio file.
+     */
+    interface Source {
+        /**
+         * @return the size of the file in bytes
+         */
+        long size();
+
+        /**
+         * Reads bytes from the file.
+         *
+         * @param offset the position of the first byte
+         * @param length the number of bytes wanted
+         * @return the bytes read, fewer than length only at the end of the file
+         * @throws IOException if the file cannot be read
+         */
+        byte[] read(long offset, int length) throws IOException;
+    }
+
+    private AudioMetadataParser() {
+    }
+
+    /**
+     * Parses the headers of an audio file. The format is recognized from the content, not the file name.
+     *
+     * @param source the file
+     * @return the metadata, or null if the format is not recognized or the headers are malformed
+     * @throws IOException if the file cannot be read
+     */
+    static AudioMetadata parse(Source source) throws IOException {
+        try {
+            long start = skipId3v2(source);
+            byte[] magic = source.read(start, 12);
+            if (matches(magic, 0, "fLaC")) {
+                return parseFlac(source, start);
+            }
+            if (matches(magic, 0, "OggS")) {
+                return parseOgg(source, start);
+            }
+            if (matches(magic, 0, "RIFF") && matches(magic, 8, "WAVE")) {
+                return parseWav(source, start);
+            }
+            if (matches(magic, 4, "ftyp")) {
+                return parseMp4(source, start);
+            }
+            return parseMpegAudio(source, start);
+        } catch (IndexOutOfBoundsException e) {
+            // A header claimed more bytes than the file holds
+            return null;
+        }
+    }
+
+    /**
+     * Returns the offset after an ID3v2 tag at the start of the file, or 0 if there is none.
+     */
+    private static long skipId3v2(Source source) throws IOException {
+        byte[] header = source.read(0, 10);
+        if (header.length < 10 || !matches(header, 0, "ID3")) {
+            return 0;
+        }
+        long tagSize = ((header[6] & 0x7f) << 21) | ((header[7] & 0x7f) << 14)
+                | ((header[8] & 0x7f) << 7) | (header[9] & 0x7f);
+        boolean hasFooter = (header[5] & 0x10) != 0;
+        return 10 + tagSize + (hasFooter ? 10 : 0);
+    }
+
+    // ============ MP3 (MPEG audio) ============
+
+    private static AudioMetadata parseMpegAudio(Source source, long start) throws IOException {
+        byte[] buffer = source.read(start, PROBE_BYTES);
+        for (int i = 0; i + 4 <= buffer.length; i++) {
+            MpegFrame frame = MpegFrame.parse(buffer, i);
+            if (frame == null) {
+                continue;
+            }
+            // A real frame is followed by another one; this skips sync-like bytes in junk data
+            int next = i + frame.length;
+            if (next + 4 <= buffer.length && MpegFrame.parse(buffer, next) == null) {
+                continue;
+            }
+            return mpegMetadata(source, buffer, i, start + i, frame);
+        }
+        return null;
+    }
+
+    private static AudioMetadata mpegMetadata(Source source, byte[] buffer, int frameIndex, long audioStart,
+                                              MpegFrame frame) throws IOException {
+        long size = source.size();
+        long audioBytes = size - audioStart;
+        if (size >= 128 && matches(source.read(size - 128, 3), 0, "TAG")) {
+            audioBytes -= 128; // ID3v1 tag
+        }
+
+        // A VBR file records its frame count in a Xing/Info or VBRI header in the first frame
+        long frames = -1;
+        int xing = frameIndex + 4 + frame.sideInfoLength();
+        int vbri = frameIndex + 4 + 32;
+        if (matches(buffer, xing, "Xing") || matches(buffer, xing, "Info")) {
+            long flags = u32be(buffer, xing + 4);
+            int field = xing + 8;
+            if ((flags & 1) != 0) {
+                frames = u32be(buffer, field);
+                field += 4;
+            }
+            if ((flags & 2) != 0) {
+                audioBytes = u32be(buffer, field);
+            }
+        } else if (matches(buffer, vbri, "VBRI")) {
+            audioBytes = u32be(buffer, vbri + 10);
+            frames = u32be(buffer, vbri + 14);
+        }
+
+        AudioMetadata metadata = new AudioMetadata();
+        metadata.setCodec(switch (frame.layer) {
+            case 1 -> "mp1";
+            case 2 -> "mp2";
+            default -> "mp3";
+        });
+        metadata.setSampleRate(frame.sampleRate);
+        metadata.setChannels(frame.channels);
+        if (frames > 0) {
+            long durationMs = frames * frame.samplesPerFrame * 1000 / frame.sampleRate;
+            metadata.setDurationMs(durationMs);
+            metadata.setBitrateKbps(bitrateKbps(audioBytes, durationMs));
+        } else {
+            // Constant bitrate: the size and bitrate give the duration
+            metadata.setBitrateKbps(frame.bitrateKbps);
+            metadata.setDurationMs(audioBytes * 8 / frame.bitrateKbps);
+        }
+        return metadata;
+    }
+
+    /**
+     * An MPEG audio frame header.
+     */
+    private static final class MpegFrame {
+        final int version; // 3 = MPEG 1, 2 = MPEG 2, 0 = MPEG 2.5
+        final int layer;
+        final int bitrateKbps;
+        final int sampleRate;
+        final int channels;
+        final int samplesPerFrame;
+        final int length;
+
+        private MpegFrame(int version, int layer, int bitrateKbps, int sampleRate, int channels, boolean padding) {
+            this.version = version;
+            this.layer = layer;
+            this.bitrateKbps = bitrateKbps;
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+            this.samplesPerFrame = layer == 1 ? 384 : layer == 3 && version != 3 ? 576 : 1152;
+            int paddingBytes = padding ? 1 : 0;
+            this.length = layer == 1
+                    ? (12 * bitrateKbps * 1000 / sampleRate + paddingBytes) * 4
+                    : samplesPerFrame / 8 * bitrateKbps * 1000 / sampleRate + paddingBytes;
+        }
+
+        static MpegFrame parse(byte[] buffer, int i) {
+            int b1 = buffer[i] & 0xff;
+            int b2 = buffer[i + 1] & 0xff;
+            int b3 = buffer[i + 2] & 0xff;
+            int b4 = buffer[i + 3] & 0xff;
+            if (b1 != 0xff || (b2 & 0xe0) != 0xe0) {
+                return null;
+            }
+            int version = (b2 >> 3) & 3;
+            int layer = 4 - ((b2 >> 1) & 3);
+            int bitrateIndex = (b3 >> 4) & 0xf;
+            int sampleRateIndex = (b3 >> 2) & 3;
+            // Reserved values, and free-format bitrate, which cannot be measured from headers
+            if (version == 1 || layer == 4 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                return null;
+            }
+            int bitrate = (version == 3 ? MPEG1_BITRATES : MPEG2_BITRATES)[layer - 1][bitrateIndex];
+            int sampleRate = MPEG_SAMPLE_RATES[version][sampleRateIndex];
+            int channels = ((b4 >> 6) & 3) == 3 ? 1 : 2;
+            return new MpegFrame(version, layer, bitrate, sampleRate, channels, ((b3 >> 1) & 1) != 0);
+        }
+
+        /**
+         * Length of the Layer III side information that precedes a Xing header.
+         */
+        int sideInfoLength() {
+            if (version == 3) {
+                return channels == 1 ? 17 : 32;
+            }
+            return channels == 1 ? 9 : 17;
+        }
+    }
+
+    // ============ WAV ============
+
+    private static AudioMetadata parseWav(Source source, long start) throws IOException {
+        long size = source.size();
+        long offset = start + 12;
+        byte[] format = null;
+        long dataSize = -1;
+
+        for (int chunks = 0; chunks < MAX_BOXES && offset + 8 <= size; chunks++) {
+            byte[] header = source.read(offset, 8);
+            long chunkSize = u32le(header, 4);
+            if (matches(header, 0, "fmt ")) {
+                format = source.read(offset + 8, (int) Math.min(chunkSize, 40));
+            } else if (matches(header, 0, "data")) {
+                // Streamed files leave the data size unset
+                dataSize = chunkSize == 0xffffffffL || offset + 8 + chunkSize > size
+                        ? size - offset - 8
+                        : chunkSize;
+                if (format != null) {
+                    break;
+                }
+            }
+            offset += 8 + chunkSize + (chunkSize & 1);
+        }
+        if (format == null || format.length < 16) {
+            return null;
+        }
+
+        int formatTag = u16le(format, 0);
+        if (formatTag == 0xfffe && format.length >= 26) {
+            // WAVE_FORMAT_EXTENSIBLE: the real format is the start of the sub-format GUID
+            formatTag = u16le(format, 24);
+        }
+        long byteRate = u32le(format, 8);
+
+        AudioMetadata metadata = new AudioMetadata();
+        metadata.setCodec(switch (formatTag) {
+            case 1 -> "pcm";
+            case 2, 0x11 -> "adpcm";
+            case 3 -> "pcm_float";
+            case 6 -> "alaw";
+            case 7 -> "mulaw";
+            case 0x55 -> "mp3";
+            default -> "wav_" + Integer.toHexString(formatTag);
+        });
+        metadata.setChannels(u16le(format, 2));
+        metadata.setSampleRate((int) u32le(format, 4));
+        if (byteRate > 0) {
+            metadata.setBitrateKbps((int) (byteRate * 8 / 1000));
+            if (dataSize >= 0) {
+                metadata.setDurationMs(dataSize * 1000 / byteRate);
+            }
+        }
+        return metadata;
+    }
+
+    // ============ FLAC ============
+
+    private static AudioMetadata parseFlac(Source source, long start) throws IOException {
+        long offset = start + 4;
+        byte[] block = source.read(offset, 4 + 34);
+        if ((block[0] & 0x7f) != 0) {
+            return null; // STREAMINFO must come first
+        }
+
+        int info = 4;
+        int sampleRate = ((block[info + 10] & 0xff) << 12) | ((block[info + 11] & 0xff) << 4)
+                | ((block[info + 12] & 0xff) >> 4);
+        int channels = ((block[info + 12] >> 1) & 7) + 1;
+        long totalSamples = ((long) (block[info + 13] & 0x0f) << 32) | u32be(block, info + 14);
+
+        // The audio frames follow the last metadata block
+        for (int blocks = 0; blocks < MAX_BOXES; blocks++) {
+            byte[] header = source.read(offset, 4);
+            long length = ((header[1] & 0xffL) << 16) | ((header[2] & 0xff) << 8) | (header[3] & 0xff);
+            offset += 4 + length;
+            if ((header[0] & 0x80) != 0) {
+                break;
+            }
+        }
+
+        AudioMetadata metadata = new AudioMetadata();
+        metadata.setCodec("flac");
+        metadata.setSampleRate(sampleRate);
+        metadata.setChannels(channels);
+        if (sampleRate > 0 && totalSamples > 0) {
+            long durationMs = totalSamples * 1000 / sampleRate;
+            metadata.setDurationMs(durationMs);
+            metadata.setBitrateKbps(bitrateKbps(source.size() - offset, durationMs));
+        }
+        return metadata;
+    }
+
+    // ============ Ogg (Vorbis, Opus) ============
+
+    private static AudioMetadata parseOgg(Source source, long start) throws IOException {
+        byte[] page = source.read(start, 27 + 255 + 64);
+        long serial = u32le(page, 14);
+        int packet = 27 + (page[26] & 0xff);
+
+        AudioMetadata metadata = new AudioMetadata();
+        long preSkip = 0;
+        int granuleRate;
+        if (page[packet] == 1 && matches(page, packet + 1, "vorbis")) {
+            metadata.setCodec("vorbis");
+            metadata.setChannels(page[packet + 11] & 0xff);
+            granuleRate = (int) u32le(page, packet + 12);
+            metadata.setSampleRate(granuleRate);
+        } else if (matches(page, packet, "OpusHead")) {
+            metadata.setCodec("opus");
+            metadata.setChannels(page[packet + 9] & 0xff);
+            preSkip = u16le(page, packet + 10);
+            long inputRate = u32le(page, packet + 12);
+            // Opus always decodes at 48 kHz; the input rate is informational and may be 0
+            metadata.setSampleRate(inputRate > 0 ? (int) inputRate : 48000);
+            granuleRate = 48000;
+        } else {
+            return null;
+        }
+
+        // The granule position of the stream's last page is its length in samples
+        long granule = lastGranule(source, start, serial, PROBE_BYTES);
+        if (granule < 0) {
+            granule = lastGranule(source, start, serial, OGG_MAX_PAGE_BYTES + PROBE_BYTES);
+        }
+        if (granule > preSkip && granuleRate > 0) {
+            long durationMs = (granule - preSkip) * 1000 / granuleRate;
+            metadata.setDurationMs(durationMs);
+            metadata.setBitrateKbps(bitrateKbps(source.size() - start, durationMs));
+        }
+        return metadata;
+    }
+
+    private static long lastGranule(Source source, long start, long serial, int tailBytes) throws IOException {
+        long tailStart = Math.max(start, source.size() - tailBytes);
+        byte[] tail = source.read(tailStart, (int) (source.size() - tailStart));
+        for (int i = tail.length - 27; i >= 0; i--) {
+            if (matches(tail, i, "OggS") && u32le(tail, i + 14) == serial) {
+                long granule = u64le(tail, i + 6);
+                if (granule != -1) {
+                    return granule;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // ============ MP4 / M4A ============
+
+    private static AudioMetadata parseMp4(Source source, long start) throws IOException {
+        long size = source.size();
+        long[] moov = null;
+        long mdatBytes = -1;
+
+        long offset = start;
+        for (int boxes = 0; boxes < MAX_BOXES && offset + 8 <= size; boxes++) {
+            long[] box = readBox(source, offset, size);
+            if (box == null) {
+                break;
+            }
+            String type = boxType(source, offset);
+            if (type.equals("moov")) {
+                moov = box;
+            } else if (type.equals("mdat")) {
+                mdatBytes = box[1] - box[0];
+            }
+            offset = box[1];
+        }
+        if (moov == null) {
+            return null;
+        }
+
+        AudioMetadata metadata = new AudioMetadata();
+        long[] mvhd = findChild(source, moov, "mvhd");
+        if (mvhd != null) {
+            byte[] header = source.read(mvhd[0], 32);
+            long timescale;
+            long duration;
+            if (header[0] == 1) {
+                timescale = u32be(header, 20);
+                duration = u64be(header, 24);
+            } else {
+                timescale = u32be(header, 12);
+                duration = u32be(header, 16);
+            }
+            if (timescale > 0 && duration > 0 && duration != 0xffffffffL) {
+                long durationMs = duration * 1000 / timescale;
+                metadata.setDurationMs(durationMs);
+                metadata.setBitrateKbps(bitrateKbps(mdatBytes > 0 ? mdatBytes : size - start, durationMs));
+            }
+        }
+
+        // The codec, channels and sample rate are in the sample description of the sound track
+        offset = moov[0];
+        for (int boxes = 0; boxes < MAX_BOXES && offset + 8 <= moov[1]; boxes++) {
+            long[] trak = readBox(source, offset, moov[1]);
+            if (trak == null) {
+                break;
+            }
+            if (boxType(source, offset).equals("trak")) {
+                long[] mdia = findChild(source, trak, "mdia");
+                long[] hdlr = mdia != null ? findChild(source, mdia, "hdlr") : null;
+                if (hdlr != null && matches(source.read(hdlr[0] + 8, 4), 0, "soun")) {
+                    long[] stsd = findPath(source, mdia, "minf", "stbl", "stsd");
+                    if (stsd != null) {
+                        readSampleEntry(source.read(stsd[0] + 8, 8 + 28), metadata);
+                    }
+                    break;
+                }
+            }
+            offset = trak[1];
+        }
+
+        return metadata.getCodec() == null && metadata.getDurationMs() == null ? null : metadata;
+    }
+
+    private static void readSampleEntry(byte[] entry, AudioMetadata metadata) {
+        String format = new String(entry, 4, 4, StandardCharsets.ISO_8859_1);
+        metadata.setCodec(switch (format) {
+            case "mp4a" -> "aac";
+            case "alac" -> "alac";
+            case "Opus" -> "opus";
+            case "fLaC" -> "flac";
+            case "ac-3" -> "ac3";
+            case "ec-3" -> "eac3";
+            case ".mp3" -> "mp3";
+            default -> format.trim().toLowerCase();
+        });
+        // Audio sample entry: 6 reserved, data reference index, 8 reserved, channels,
+        // sample size, 4 reserved, then the sample rate as 16.16 fixed point
+        int fields = 8 + 16;
+        metadata.setChannels(u16be(entry, fields));
+        int sampleRate = (int) (u32be(entry, fields + 8) >>> 16);
+        if (sampleRate > 0) {
+            metadata.setSampleRate(sampleRate);
+        }
+    }
+
+    /**
+     * Reads the box header at offset.
+     *
+     * @return the payload start and the box end, or null if the header is invalid
+     */
+    private static long[] readBox(Source source, long offset, long limit) throws IOException {
+        byte[] header = source.read(offset, 16);
+        if (header.length < 8) {
+            return null;
+        }
+        long boxSize = u32be(header, 0);
+        int headerSize = 8;
+        if (boxSize == 1 && header.length == 16) {
+            boxSize = u64be(header, 8);
+            headerSize = 16;
+        } else if (boxSize == 0) {
+            boxSize = limit - offset; // extends to the end
+        }
+        if (boxSize < headerSize || offset + boxSize > limit) {
+            return null;
+        }
+        return new long[]{offset + headerSize, offset + boxSize};
+    }
+
+    private static String boxType(Source source, long offset) throws IOException {
+        return new String(source.read(offset + 4, 4), StandardCharsets.ISO_8859_1);
+    }
+
+    private static long[] findChild(Source source, long[] parent, String type) throws IOException {
+        long offset = parent[0];
+        for (int boxes = 0; boxes < MAX_BOXES && offset + 8 <= parent[1]; boxes++) {
+            long[] box = readBox(source, offset, parent[1]);
+            if (box == null) {
+                return null;
+            }
+            if (boxType(source, offset).equals(type)) {
+                return box;
+            }
+            offset = box[1];
+        }
+        return null;
+    }
+
+    private static long[] findPath(Source source, long[] parent, String... types) throws IOException {
+        long[] box = parent;
+        for (String type : types) {
+            box = findChild(source, box, type);
+            if (box == null) {
+                return null;
+            }
+        }
+        return box;
+    }
+
+    // ============ Helpers ============
+
+    private static Integer bitrateKbps(long bytes, long durationMs) {
+        return durationMs > 0 && bytes > 0 ? (int) (bytes * 8 / durationMs) : null;
+    }
+
+    private static boolean matches(byte[] buffer, int offset, String ascii) {
+        if (offset < 0 || offset + ascii.length() > buffer.length) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (buffer[offset + i] != (byte) ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u16be(byte[] b, int i) {
+        return ((b[i] & 0xff) << 8) | (b[i + 1] & 0xff);
+    }
+
+    private static long u32be(byte[] b, int i) {
+        return ((long) (b[i] & 0xff) << 24) | ((b[i + 1] & 0xff) << 16) | ((b[i + 2] & 0xff) << 8) | (b[i + 3] & 0xff);
+    }
+
+    private static long u64be(byte[] b, int i) {
+        return (u32be(b, i) << 32) | u32be(b, i + 4);
+    }
+
+    private static int u16le(byte[] b, int i) {
+        return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8);
+    }
+
+    private static long u32le(byte[] b, int i) {
+        return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8) | ((b[i + 2] & 0xff) << 16) | ((long) (b[i + 3] & 0xff) << 24);
+    }
+
+    private static long u64le(byte[] b, int i) {
+        return u32le(b, i) | (u32le(b, i + 4) << 32);
+    }
+}
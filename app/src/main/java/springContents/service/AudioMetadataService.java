@@ -0,0 +1,141 @@
+package springContents.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import springContents.model.AudioMetadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Extracts {@link AudioMetadata} from recordings stored in S3 using ranged reads, so only the
+ * header regions of a file are downloaded rather than the whole recording.
+ */
+@Service
+public class AudioMetadataService {
+    private static final Logger logger = LoggerFactory.getLogger(AudioMetadataService.class);
+
+    // Reads are rounded out to whole blocks so neighbouring header reads share one request
+    private static final int BLOCK_SIZE = AudioMetadataParser.PROBE_BYTES;
+    private static final int MAX_REQUESTS = 8;
+
+    private final S3Service s3Service;
+
+    /**
+     * Constructs a new AudioMetadataService.
+     *
+     * @param s3Service the S3Service holding the audio files
+     */
+    @Autowired
+    public AudioMetadataService(S3Service s3Service) {
+        this.s3Service = s3Service;
+    }
+
+    /**
+     * Reads the metadata of an audio file in a series bucket.
+     *
+     * @param seriesId the series ID
+     * @param key the file name/key in the bucket
+     * @param fileSize the size of the file in bytes
+     * @return the metadata, or null if the format is not recognized
+     * @throws IOException if the file cannot be read
+     */
+    public AudioMetadata extract(Long seriesId, String key, long fileSize) throws IOException {
+        SeriesObjectSource source = new SeriesObjectSource(seriesId, key, fileSize);
+        AudioMetadata metadata = AudioMetadataParser.parse(source);
+        logger.debug("Read metadata of {}/{} with {} ranged requests", seriesId, key, source.requests);
+        return metadata;
+    }
+
+    /**
+     * A series bucket object read in cached blocks, with a cap on the number of requests in
+     * case a malformed file sends the parser across the whole object.
+     */
+    private final class SeriesObjectSource implements AudioMetadataParser.Source {
+        private final Long seriesId;
+        private final String key;
+        private final long size;
+        private final Map<Long, byte[]> blocks = new HashMap<>();
+        private int requests;
+
+        SeriesObjectSource(Long seriesId, String key, long size) {
+            this.seriesId = seriesId;
+            this.key = key;
+            this.size = size;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public byte[] read(long offset, int length) throws IOException {
+            if (offset >= size || length <= 0) {
+                return new byte[0];
+            }
+            int wanted = (int) Math.min(length, size - offset);
+            long firstBlock = offset / BLOCK_SIZE;
+            long lastBlock = (offset + wanted - 1) / BLOCK_SIZE;
+            fetchMissing(firstBlock, lastBlock);
+
+            byte[] result = new byte[wanted];
+            for (int copied = 0; copied < wanted; ) {
+                long position = offset + copied;
+                byte[] block = blocks.get(position / BLOCK_SIZE);
+                int blockOffset = (int) (position % BLOCK_SIZE);
+                int count = Math.min(wanted - copied, block.length - blockOffset);
+                System.arraycopy(block, blockOffset, result, copied, count);
+                copied += count;
+            }
+            return result;
+        }
+
+        /**
+         * Fetches each run of consecutive missing blocks with a single ranged GET.
+         */
+        private void fetchMissing(long firstBlock, long lastBlock) throws IOException {
+            long block = firstBlock;
+            while (block <= lastBlock) {
+                if (blocks.containsKey(block)) {
+                    block++;
+                    continue;
+                }
+                long runEnd = block;
+                while (runEnd < lastBlock && !blocks.containsKey(runEnd + 1)) {
+                    runEnd++;
+                }
+                fetch(block, runEnd);
+                block = runEnd + 1;
+            }
+        }
+
+        private void fetch(long firstBlock, long lastBlock) throws IOException {
+            if (++requests > MAX_REQUESTS) {
+                throw new IOException("Too many reads parsing the headers of " + key);
+            }
+            long start = firstBlock * BLOCK_SIZE;
+            long end = Math.min(size, (lastBlock + 1) * BLOCK_SIZE) - 1;
+            byte[] bytes;
+            try (InputStream in = s3Service.getAudioFileFromSeriesBucket(seriesId, key,
+                    "bytes=" + start + "-" + end)) {
+                bytes = in.readAllBytes();
+            }
+            if (bytes.length != end - start + 1) {
+                throw new IOException("Short read of " + key + ": expected " + (end - start + 1)
+                        + " bytes, got " + bytes.length);
+            }
+            for (long block = firstBlock; block <= lastBlock; block++) {
+                int from = (int) ((block - firstBlock) * BLOCK_SIZE);
+                int to = (int) Math.min(bytes.length, from + (long) BLOCK_SIZE);
+                byte[] data = new byte[to - from];
+                System.arraycopy(bytes, from, data, 0, data.length);
+                blocks.put(block, data);
+            }
+        }
+    }
+}
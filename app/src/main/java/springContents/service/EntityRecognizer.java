@@ -0,0 +1,255 @@
+package springContents.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton that finds every known Rebbi, topic and institution name in a
+ * query with a single left-to-right pass. Matching is case-insensitive without copying
+ * the query, only accepts matches that start and end on word boundaries, and keeps the
+ * leftmost-longest match when names overlap. Instances are immutable and tagged with
+ * the dictionary version they were built from, so they can be swapped atomically.
+ */
+final class EntityRecognizer {
+    private static final int REBBI = 1;
+    private static final int TOPIC = 2;
+    private static final int INSTITUTION = 4;
+
+    private final long version;
+    private final String[] patterns;
+    private final int[] patternCategories;
+
+    // Trie edges, stored per node as a sorted run in edgeLabels/edgeTargets
+    private final int[] edgeStart;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final int[] failure;
+    private final int[] output;
+    private final int[] outputLink;
+
+    private EntityRecognizer(long version, String[] patterns, int[] patternCategories, int[] edgeStart,
+                             char[] edgeLabels, int[] edgeTargets, int[] failure, int[] output, int[] outputLink) {
+        this.version = version;
+        this.patterns = patterns;
+        this.patternCategories = patternCategories;
+        this.edgeStart = edgeStart;
+        this.edgeLabels = edgeLabels;
+        this.edgeTargets = edgeTargets;
+        this.failure = failure;
+        this.output = output;
+        this.outputLink = outputLink;
+    }
+
+    /**
+     * Builds a recognizer for the given lowercase name dictionaries.
+     *
+     * @param version the dictionary version the names were loaded at
+     * @param rebbiNames the Rebbi names
+     * @param topicNames the topic names
+     * @param institutionNames the institution names
+     * @return the compiled recognizer
+     */
+    static EntityRecognizer build(long version, List<String> rebbiNames, List<String> topicNames,
+                                  List<String> institutionNames) {
+        Map<String, Integer> categoriesByName = new LinkedHashMap<>();
+        addPatterns(categoriesByName, rebbiNames, REBBI);
+        addPatterns(categoriesByName, topicNames, TOPIC);
+        addPatterns(categoriesByName, institutionNames, INSTITUTION);
+
+        String[] patterns = categoriesByName.keySet().toArray(new String[0]);
+        int[] patternCategories = new int[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            patternCategories[i] = categoriesByName.get(patterns[i]);
+        }
+
+        // Build the trie with sorted child maps
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> nodeOutput = new ArrayList<>();
+        children.add(new TreeMap<>());
+        nodeOutput.add(-1);
+        for (int id = 0; id < patterns.length; id++) {
+            int node = 0;
+            String pattern = patterns[id];
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(c, next);
+                    children.add(new TreeMap<>());
+                    nodeOutput.add(-1);
+                }
+                node = next;
+            }
+            nodeOutput.set(node, id);
+        }
+
+        int nodeCount = children.size();
+        int[] edgeStart = new int[nodeCount + 1];
+        int edgeCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            edgeStart[node] = edgeCount;
+            edgeCount += children.get(node).size();
+        }
+        edgeStart[nodeCount] = edgeCount;
+        char[] edgeLabels = new char[edgeCount];
+        int[] edgeTargets = new int[edgeCount];
+        int[] output = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            int e = edgeStart[node];
+            for (Map.Entry<Character, Integer> edge : children.get(node).entrySet()) {
+                edgeLabels[e] = edge.getKey();
+                edgeTargets[e++] = edge.getValue();
+            }
+            output[node] = nodeOutput.get(node);
+        }
+
+        // Breadth-first pass to compute failure and output links
+        int[] failure = new int[nodeCount];
+        int[] outputLink = new int[nodeCount];
+        Arrays.fill(outputLink, -1);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[0]; e < edgeStart[1]; e++) {
+            queue.add(edgeTargets[e]);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.remove();
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                char c = edgeLabels[e];
+                int child = edgeTargets[e];
+                int fallback = failure[node];
+                int target = step(edgeStart, edgeLabels, edgeTargets, fallback, c);
+                while (target < 0 && fallback != 0) {
+                    fallback = failure[fallback];
+                    target = step(edgeStart, edgeLabels, edgeTargets, fallback, c);
+                }
+                failure[child] = target < 0 || target == child ? 0 : target;
+                int suffix = failure[child];
+                outputLink[child] = output[suffix] >= 0 ? suffix : outputLink[suffix];
+                queue.add(child);
+            }
+        }
+
+        return new EntityRecognizer(version, patterns, patternCategories, edgeStart, edgeLabels, edgeTargets,
+                failure, output, outputLink);
+    }
+
+    /**
+     * Gets the dictionary version this recognizer was built from.
+     *
+     * @return the dictionary version
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Finds the entity names in the query and adds them to the parsed query.
+     *
+     * @param query the raw query text
+     * @param parsed the parsed query to add recognized names to
+     */
+    void recognize(CharSequence query, ParsedQuery parsed) {
+        int length = query.length();
+        int[] matchStarts = new int[8];
+        int[] matchEnds = new int[8];
+        int[] matchIds = new int[8];
+        int matchCount = 0;
+
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(query.charAt(i));
+            int next = step(edgeStart, edgeLabels, edgeTargets, state, c);
+            while (next < 0 && state != 0) {
+                state = failure[state];
+                next = step(edgeStart, edgeLabels, edgeTargets, state, c);
+            }
+            state = next < 0 ? 0 : next;
+
+            for (int node = output[state] >= 0 ? state : outputLink[state]; node >= 0; node = outputLink[node]) {
+                int id = output[node];
+                int end = i + 1;
+                int start = end - patterns[id].length();
+                if (isBoundary(query, start - 1) && isBoundary(query, end)) {
+                    if (matchCount == matchIds.length) {
+                        matchStarts = Arrays.copyOf(matchStarts, matchCount * 2);
+                        matchEnds = Arrays.copyOf(matchEnds, matchCount * 2);
+                        matchIds = Arrays.copyOf(matchIds, matchCount * 2);
+                    }
+                    matchStarts[matchCount] = start;
+                    matchEnds[matchCount] = end;
+                    matchIds[matchCount++] = id;
+                }
+            }
+        }
+
+        // Keep the leftmost-longest match wherever matches overlap
+        int lastEnd = 0;
+        while (true) {
+            int best = -1;
+            for (int m = 0; m < matchCount; m++) {
+                if (matchStarts[m] < lastEnd) {
+                    continue;
+                }
+                if (best < 0 || matchStarts[m] < matchStarts[best]
+                        || (matchStarts[m] == matchStarts[best] && matchEnds[m] > matchEnds[best])) {
+                    best = m;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            addMatch(matchIds[best], parsed);
+            lastEnd = matchEnds[best];
+        }
+    }
+
+    private void addMatch(int id, ParsedQuery parsed) {
+        String name = patterns[id];
+        int categories = patternCategories[id];
+        if ((categories & REBBI) != 0) {
+            parsed.rebbiNames.add(name);
+        }
+        if ((categories & TOPIC) != 0) {
+            parsed.topicNames.add(name);
+        }
+        if ((categories & INSTITUTION) != 0) {
+            parsed.institutionNames.add(name);
+        }
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    private static int step(int[] edgeStart, char[] edgeLabels, int[] edgeTargets, int node, char c) {
+        int low = edgeStart[node];
+        int high = edgeStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = edgeLabels[mid];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static void addPatterns(Map<String, Integer> categoriesByName, List<String> names, int category) {
+        for (String name : names) {
+            if (name != null && !name.isBlank()) {
+                categoriesByName.merge(name.toLowerCase(), category, (a, b) -> a | b);
+            }
+        }
+    }
+}
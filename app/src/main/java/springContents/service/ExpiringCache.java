@@ -0,0 +1,84 @@
+package springContents.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-memory map whose entries expire a fixed time after they were stored.
+ * Once full, storing an entry evicts the least recently used one, so memory stays
+ * bounded however many keys are looked up.
+ */
+final class ExpiringCache<K, V> {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries; // guarded by this
+
+    ExpiringCache(int maxEntries, Duration ttl) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets a value that has not expired yet.
+     *
+     * @param key the key
+     * @return the value, or null if there is none or it has expired
+     */
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.storedAt > ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Stores a value, replacing any previous one and restarting its time to live.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key the key
+     */
+    synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every value whose key matches.
+     *
+     * @param condition selects the keys to remove
+     */
+    synchronized void invalidateIf(Predicate<K> condition) {
+        entries.keySet().removeIf(condition);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long storedAt;
+
+        private Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+}
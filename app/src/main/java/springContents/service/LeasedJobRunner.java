@@ -0,0 +1,186 @@
+package springContents.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import springContents.dao.LeasedJobDAO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs jobs claimed from a {@link LeasedJobDAO} table for the service that owns the table.
+ * It holds the lease of each running job until the job ends and records the outcome. A failed
+ * job is retried with exponential backoff, and after maxAttempts it is left in the DEAD status.
+ * The owning service claims the jobs, decides what each one does, and calls
+ * {@link #renewLeases()} and {@link #releaseExpiredJobs()} from its scheduled tasks.
+ */
+public class LeasedJobRunner {
+    private static final Logger logger = LoggerFactory.getLogger(LeasedJobRunner.class);
+    private static final long MAX_RETRY_DELAY_SECONDS = 3600;
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final LeasedJobDAO jobDAO;
+    private final String jobKind;
+    private final String workerId;
+    private final int maxAttempts;
+    private final long retryDelaySeconds;
+    private final long leaseSeconds;
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+
+    /**
+     * Constructs a new LeasedJobRunner.
+     *
+     * @param jobDAO the DAO of the job table
+     * @param jobKind what the jobs are called in log messages, plural, such as "recording jobs"
+     * @param maxAttempts the attempts after which a job is dead
+     * @param retryDelaySeconds the delay before the first retry, doubled for each further attempt
+     * @param leaseSeconds how long a job may go without a lease renewal before another worker may take it over
+     */
+    public LeasedJobRunner(LeasedJobDAO jobDAO, String jobKind, int maxAttempts, long retryDelaySeconds,
+                           long leaseSeconds) {
+        this.jobDAO = jobDAO;
+        this.jobKind = jobKind;
+        this.workerId = jobKind.replace(' ', '-') + "-" + UUID.randomUUID();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelaySeconds = Math.max(1, retryDelaySeconds);
+        this.leaseSeconds = Math.max(1, leaseSeconds);
+    }
+
+    /**
+     * Gets the identifier this instance claims jobs under.
+     *
+     * @return the worker ID
+     */
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Runs a claimed job and records its outcome. Exceptions from the task are recorded rather
+     * than thrown.
+     *
+     * @param jobId the key of the job
+     * @param attempts the attempts of the job, including this one
+     * @param description the job in log messages, such as "TRANSCODE job 12 for recording 7"
+     * @param task the work of the job
+     */
+    public void run(Long jobId, int attempts, String description, JobTask task) {
+        runningJobs.add(jobId);
+        try {
+            task.run();
+            if (jobDAO.markSucceeded(jobId, workerId)) {
+                succeeded.incrementAndGet();
+            } else {
+                logger.warn("{} finished after its lease was taken over", description);
+            }
+        } catch (Exception e) {
+            recordFailure(jobId, attempts, description, e);
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * Renews the lease of the jobs this instance is running, however long they take.
+     */
+    public void renewLeases() {
+        List<Long> jobIds = new ArrayList<>(runningJobs);
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        try {
+            int renewed = jobDAO.renewLeases(workerId, jobIds);
+            if (renewed < jobIds.size()) {
+                logger.warn("{} of {} running {} were taken over by another worker",
+                        jobIds.size() - renewed, jobIds.size(), jobKind);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to renew {} leases: {}", jobKind, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Releases jobs held past their lease by workers that are gone.
+     */
+    public void releaseExpiredJobs() {
+        try {
+            int released = jobDAO.releaseExpiredJobs(leaseSeconds, maxAttempts);
+            if (released > 0) {
+                logger.warn("Released {} {} whose worker lease expired", released, jobKind);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to release expired {}: {}", jobKind, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the number of jobs this instance finished since startup.
+     *
+     * @return the count
+     */
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    /**
+     * Gets the number of failures this instance put back in the queue since startup.
+     *
+     * @return the count
+     */
+    public long getRetried() {
+        return retried.get();
+    }
+
+    /**
+     * Gets the number of jobs this instance moved to DEAD since startup.
+     *
+     * @return the count
+     */
+    public long getDead() {
+        return dead.get();
+    }
+
+    private void recordFailure(Long jobId, int attempts, String description, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        try {
+            if (attempts >= maxAttempts) {
+                if (jobDAO.markDead(jobId, workerId, error)) {
+                    dead.incrementAndGet();
+                    logger.error("{} failed after {} attempts", description, attempts, e);
+                } else {
+                    logger.warn("{} failed after its lease was taken over: {}", description, error);
+                }
+            } else {
+                long delay = Math.min(MAX_RETRY_DELAY_SECONDS, retryDelaySeconds << Math.min(attempts - 1, 20));
+                if (jobDAO.markForRetry(jobId, workerId, error, delay)) {
+                    retried.incrementAndGet();
+                    logger.warn("{} failed (attempt {}), retrying in {} s: {}", description, attempts, delay, error);
+                } else {
+                    logger.warn("{} failed after its lease was taken over: {}", description, error);
+                }
+            }
+        } catch (Exception updateError) {
+            // The lease expiry will release the job instead
+            logger.error("Failed to record the failure of {}: {}", description, updateError.getMessage(), updateError);
+        }
+    }
+
+    /**
+     * The work of one job.
+     */
+    @FunctionalInterface
+    public interface JobTask {
+        void run() throws Exception;
+    }
+}
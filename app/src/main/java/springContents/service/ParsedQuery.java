@@ -0,0 +1,15 @@
+package springContents.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Holds the structured components of a parsed search query: free-text keywords
+ * and the Rebbi, topic and institution names recognized in the query (all lowercase).
+ */
+class ParsedQuery {
+    final Set<String> keywords = new HashSet<>();
+    final Set<String> rebbiNames = new HashSet<>();
+    final Set<String> topicNames = new HashSet<>();
+    final Set<String> institutionNames = new HashSet<>();
+}
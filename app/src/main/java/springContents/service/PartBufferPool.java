@@ -0,0 +1,66 @@
+package springContents.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of reusable part buffers shared by all streaming uploads.
+ * Buffers are allocated lazily up to the limit; once they are all in use, uploads
+ * wait for one to be returned, which bounds upload memory and slows the readers
+ * down to the speed S3 accepts parts. The wait is bounded, so a few slow uploads
+ * holding every buffer turn the others away instead of hanging their threads.
+ */
+final class PartBufferPool {
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final long maxWaitMillis;
+    private final BlockingQueue<byte[]> free;
+    private int allocated; // guarded by this
+
+    PartBufferPool(int bufferSize, int maxBuffers, long maxWaitMillis) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.maxWaitMillis = maxWaitMillis;
+        this.free = new ArrayBlockingQueue<>(maxBuffers);
+    }
+
+    /**
+     * Takes a buffer, waiting up to the pool's time limit for one to be released if all are in use.
+     *
+     * @return a buffer of {@link #bufferSize()} bytes
+     * @throws InterruptedException if interrupted while waiting
+     * @throws RejectedExecutionException if no buffer was released in time
+     */
+    byte[] acquire() throws InterruptedException {
+        byte[] buffer = free.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        synchronized (this) {
+            if (allocated < maxBuffers) {
+                allocated++;
+                return new byte[bufferSize];
+            }
+        }
+        buffer = free.poll(maxWaitMillis, TimeUnit.MILLISECONDS);
+        if (buffer == null) {
+            throw new RejectedExecutionException("No upload buffer was free within " + maxWaitMillis + " ms");
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     *
+     * @param buffer a buffer obtained from {@link #acquire()}
+     */
+    void release(byte[] buffer) {
+        free.offer(buffer);
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,335 @@
+package springContents.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import springContents.dao.RecordingDAO;
+import springContents.dao.RecordingJobDAO;
+import springContents.dao.ShiurSeriesDAO;
+import springContents.model.AudioMetadata;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the post-upload processing of recordings in the background.
+ * An upload only stores the audio and the recording row, then queues one job per
+ * {@link RecordingJobStage} in the recording_jobs table. A scheduled poller claims due jobs
+ * for a fixed pool of workers, which run them through a {@link LeasedJobRunner}. A failed job is retried with exponential backoff and, after
+ * recording.jobs.max-attempts, left in the DEAD status until an admin retries it. Workers
+ * renew the lease of their running jobs every recording.jobs.lease-renew-interval-ms, so a long
+ * encode keeps its job; jobs held by a worker that died are released once their lease expires,
+ * so stages run at least once.
+ */
+@Service
+public class RecordingJobService {
+    private static final Logger logger = LoggerFactory.getLogger(RecordingJobService.class);
+    private static final int DEAD_JOBS_SHOWN = 50;
+
+    private final RecordingJobDAO recordingJobDAO;
+    private final RecordingDAO recordingDAO;
+    private final ShiurSeriesDAO shiurSeriesDAO;
+    private final S3Service s3Service;
+    private final SNSService snsService;
+    private final SearchIndex searchIndex;
+    private final AudioMetadataService audioMetadataService;
+    private final WaveformService waveformService;
+    private final TranscodeService transcodeService;
+    private final int workerCount;
+    private final LeasedJobRunner jobRunner;
+    private final ExecutorService workers;
+    private final Semaphore idleWorkers;
+
+    /**
+     * Constructs a new RecordingJobService.
+     *
+     * @param recordingJobDAO the DAO holding the job queue
+     * @param recordingDAO the DAO for the recordings being processed
+     * @param shiurSeriesDAO the DAO for series details used in notifications
+     * @param s3Service the S3Service holding the audio files
+     * @param snsService the SNSService for subscriber notifications
+     * @param searchIndex the SearchIndex to add recordings to
+     * @param audioMetadataService the service reading audio file headers
+     * @param waveformService the service computing waveform peaks
+     * @param transcodeService the service encoding streaming renditions
+     * @param workerCount the number of jobs run at once
+     * @param maxAttempts the attempts after which a job is dead
+     * @param retryDelaySeconds the delay before the first retry, doubled for each further attempt
+     * @param leaseMinutes how long a job may go without a lease renewal before another worker may take it over
+     */
+    @Autowired
+    public RecordingJobService(RecordingJobDAO recordingJobDAO,
+                               RecordingDAO recordingDAO,
+                               ShiurSeriesDAO shiurSeriesDAO,
+                               S3Service s3Service,
+                               SNSService snsService,
+                               SearchIndex searchIndex,
+                               AudioMetadataService audioMetadataService,
+                               WaveformService waveformService,
+                               TranscodeService transcodeService,
+                               @Value("${recording.jobs.workers:2}") int workerCount,
+                               @Value("${recording.jobs.max-attempts:5}") int maxAttempts,
+                               @Value("${recording.jobs.retry-delay-seconds:30}") long retryDelaySeconds,
+                               @Value("${recording.jobs.lease-minutes:15}") long leaseMinutes) {
+        this.recordingJobDAO = recordingJobDAO;
+        this.recordingDAO = recordingDAO;
+        this.shiurSeriesDAO = shiurSeriesDAO;
+        this.s3Service = s3Service;
+        this.snsService = snsService;
+        this.searchIndex = searchIndex;
+        this.audioMetadataService = audioMetadataService;
+        this.waveformService = waveformService;
+        this.transcodeService = transcodeService;
+        this.workerCount = Math.max(1, workerCount);
+        this.jobRunner = new LeasedJobRunner(recordingJobDAO, "recording jobs", maxAttempts, retryDelaySeconds,
+                TimeUnit.MINUTES.toSeconds(Math.max(1, leaseMinutes)));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "recording-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.idleWorkers = new Semaphore(this.workerCount);
+    }
+
+    /**
+     * Queues every processing stage for a new recording. The recording is already stored, so a
+     * failure here is logged rather than failing the upload; the search index still picks the
+     * recording up on its next periodic rebuild.
+     *
+     * @param recordingId the ID of the new recording
+     */
+    public void enqueueProcessing(long recordingId) {
+        List<String> stages = new ArrayList<>();
+        for (RecordingJobStage stage : RecordingJobStage.values()) {
+            stages.add(stage.name());
+        }
+        try {
+            recordingJobDAO.enqueueJobs(recordingId, stages);
+        } catch (Exception e) {
+            logger.error("Failed to queue processing for recording {}: {}", recordingId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queues the metadata stage for every recording whose audio file has not been probed yet.
+     * The jobs are run by the same workers as new uploads, so the backfill is throttled to the pool size.
+     */
+    public void backfillMetadata() {
+        recordingJobDAO.enqueueForRecordingsMissingMetadata(RecordingJobStage.METADATA.name());
+        logger.info("Queued audio metadata backfill");
+    }
+
+    /**
+     * Claims due jobs for the idle workers and starts them.
+     */
+    @Scheduled(fixedDelayString = "${recording.jobs.poll-interval-ms:2000}",
+            initialDelayString = "${recording.jobs.poll-interval-ms:2000}")
+    public void pollJobs() {
+        int idle = idleWorkers.availablePermits();
+        if (idle == 0) {
+            return;
+        }
+        try {
+            for (Map<String, Object> job : recordingJobDAO.claimDueJobs(jobRunner.getWorkerId(), idle)) {
+                idleWorkers.acquireUninterruptibly();
+                workers.execute(() -> {
+                    try {
+                        runJob(job);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            logger.error("Failed to claim recording jobs: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Renews the lease of the jobs this instance is running, however long they take.
+     */
+    @Scheduled(fixedDelayString = "${recording.jobs.lease-renew-interval-ms:60000}",
+            initialDelayString = "${recording.jobs.lease-renew-interval-ms:60000}")
+    public void renewLeases() {
+        jobRunner.renewLeases();
+    }
+
+    /**
+     * Periodically releases jobs held past their lease by workers that are gone.
+     */
+    @Scheduled(fixedDelayString = "${recording.jobs.lease-check-interval-ms:60000}",
+            initialDelayString = "${recording.jobs.lease-check-interval-ms:60000}")
+    public void releaseExpiredJobs() {
+        jobRunner.releaseExpiredJobs();
+    }
+
+    /**
+     * Puts a dead job back in the queue.
+     *
+     * @param jobId the job ID
+     * @return true if the job was dead and has been requeued
+     */
+    public boolean retryDeadJob(Long jobId) {
+        return recordingJobDAO.retryDeadJob(jobId);
+    }
+
+    /**
+     * Gets the processing state of a recording.
+     *
+     * @param seriesId the series ID
+     * @param recordingId the recording ID
+     * @return a list of job maps, one per stage, empty if the recording is not in the series
+     */
+    public List<Map<String, Object>> getJobsForRecording(Long seriesId, Long recordingId) {
+        return recordingJobDAO.getJobsForRecording(seriesId, recordingId);
+    }
+
+    /**
+     * Gets job queue metrics: counts by stage and status, the latest dead jobs and the
+     * outcomes seen by this instance's workers since startup.
+     *
+     * @return a map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("workers", workerCount);
+        metrics.put("busyWorkers", workerCount - idleWorkers.availablePermits());
+        metrics.put("succeeded", jobRunner.getSucceeded());
+        metrics.put("retried", jobRunner.getRetried());
+        metrics.put("dead", jobRunner.getDead());
+        metrics.put("jobCounts", recordingJobDAO.getJobCounts());
+        metrics.put("deadJobs", recordingJobDAO.getDeadJobs(DEAD_JOBS_SHOWN));
+        return metrics;
+    }
+
+    /**
+     * Stops the workers. Jobs still running are taken over by another instance once their lease expires.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void runJob(Map<String, Object> job) {
+        Long jobId = (Long) job.get("jobId");
+        Long recordingId = (Long) job.get("recordingId");
+        String stage = (String) job.get("stage");
+        int attempts = (Integer) job.get("attempts");
+
+        jobRunner.run(jobId, attempts, stage + " job " + jobId + " for recording " + recordingId,
+                () -> process(RecordingJobStage.valueOf(stage), recordingId));
+    }
+
+    private void process(RecordingJobStage stage, Long recordingId) throws Exception {
+        switch (stage) {
+            case METADATA -> extractMetadata(recordingId);
+            case WAVEFORM -> generateWaveform(recordingId);
+            case TRANSCODE -> transcode(recordingId);
+            case HLS -> packageHls(recordingId);
+            case SEARCH_INDEX -> searchIndex.indexRecordingAndWait(recordingId);
+            case NOTIFICATION -> notifySubscribers(recordingId);
+        }
+    }
+
+    private void extractMetadata(Long recordingId) throws IOException {
+        Map<String, Object> recording = recordingDAO.getRecording(recordingId);
+        if (recording == null) {
+            // Deleted since it was queued
+            return;
+        }
+        Long seriesId = (Long) recording.get("seriesId");
+        String key = (String) recording.get("s3FilePath");
+        long fileSize = s3Service.getAudioFileSizeFromSeriesBucket(seriesId, key);
+        AudioMetadata metadata = audioMetadataService.extract(seriesId, key, fileSize);
+        if (metadata == null) {
+            logger.warn("Could not recognize the audio format of recording {} ({})", recordingId, key);
+        }
+        recordingDAO.updateAudioMetadata(recordingId, fileSize, metadata);
+    }
+
+    private void generateWaveform(Long recordingId) throws IOException {
+        Map<String, Object> recording = recordingDAO.getRecording(recordingId);
+        if (recording == null) {
+            return;
+        }
+        String key = (String) recording.get("s3FilePath");
+        if (!waveformService.generate((Long) recording.get("seriesId"), key)) {
+            logger.info("No waveform for recording {}: {} is not in a decodable format", recordingId, key);
+        }
+    }
+
+    private void transcode(Long recordingId) throws IOException, InterruptedException {
+        Map<String, Object> recording = recordingDAO.getRecording(recordingId);
+        if (recording == null) {
+            return;
+        }
+        String renditionKey = transcodeService.transcode((Long) recording.get("seriesId"),
+                (String) recording.get("s3FilePath"));
+        if (renditionKey != null) {
+            recordingDAO.updateRenditionPath(recordingId, renditionKey);
+        }
+    }
+
+    private void packageHls(Long recordingId) throws IOException, InterruptedException {
+        Map<String, Object> recording = recordingDAO.getRecording(recordingId);
+        if (recording == null) {
+            return;
+        }
+        String playlistKey = transcodeService.packageHls((Long) recording.get("seriesId"),
+                (String) recording.get("s3FilePath"));
+        if (playlistKey != null) {
+            recordingDAO.updateHlsPlaylistPath(recordingId, playlistKey);
+        }
+    }
+
+    /**
+     * Notify the series subscribers of a new recording.
+     */
+    private void notifySubscribers(Long recordingId) {
+        Map<String, Object> recording = recordingDAO.getRecording(recordingId);
+        if (recording == null) {
+            return;
+        }
+        Long seriesId = (Long) recording.get("seriesId");
+        String topicArn = shiurSeriesDAO.getSeriesTopicArn(seriesId);
+        if (topicArn == null || topicArn.trim().isEmpty()) {
+            return;
+        }
+
+        // Get series details for the notification
+        Map<String, Object> seriesDetails = shiurSeriesDAO.getSeriesDetails(seriesId);
+        if (seriesDetails == null) {
+            return;
+        }
+
+        // Format the recording date for the notification
+        LocalDateTime recordedAt = (LocalDateTime) recording.get("recordedAt");
+        String formattedDate = recordedAt.format(DateTimeFormatter.ofPattern("MMMM d, yyyy"));
+
+        snsService.notifyNewRecording(
+                topicArn,
+                (String) recording.get("title"),
+                (String) seriesDetails.get("rebbiName"),
+                (String) seriesDetails.get("topicName"),
+                (String) seriesDetails.get("description"),
+                formattedDate
+        );
+        logger.info("Sent notification for new recording {} in series {}", recordingId, seriesId);
+    }
+}
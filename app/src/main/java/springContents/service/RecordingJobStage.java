@@ -0,0 +1,20 @@
+package springContents.service;
+
+/**
+ * The processing stages run for every new recording once its audio is stored.
+ * Each stage is queued as its own job, so a failing stage is retried without repeating the others.
+ */
+public enum RecordingJobStage {
+    /** Reads the headers of the stored audio file and records its size, duration, bitrate and codec. */
+    METADATA,
+    /** Decodes the audio and stores the waveform peaks drawn by the player. */
+    WAVEFORM,
+    /** Encodes the low-bitrate Opus rendition streamed in place of the original. */
+    TRANSCODE,
+    /** Packages the recording as HLS segments and a playlist. */
+    HLS,
+    /** Adds the recording to the in-memory search index. */
+    SEARCH_INDEX,
+    /** Notifies the series subscribers of the new recording. */
+    NOTIFICATION
+}
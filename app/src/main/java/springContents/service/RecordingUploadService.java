@@ -0,0 +1,252 @@
+package springContents.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import springContents.dao.RecordingUploadDAO;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resumable, chunked uploads of recording files.
+ * An upload is started with the file's size, after which the client sends fixed-size chunks
+ * in any order, each with its SHA-256 checksum. Every chunk is stored as one part of an S3
+ * multipart upload and recorded in the database, so after a dropped connection the client
+ * asks which chunks arrived and sends only the rest. Uploads that receive no chunk for
+ * upload.resumable.expire-hours are aborted and their parts discarded.
+ */
+@Service
+public class RecordingUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(RecordingUploadService.class);
+
+    // S3 rejects parts below 5 MB other than the last, and uploads of more than 10,000 parts
+    private static final int MIN_CHUNK_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_CHUNKS = 10_000;
+
+    private final RecordingUploadDAO recordingUploadDAO;
+    private final S3Service s3Service;
+    private final int chunkSize;
+    private final long expireHours;
+
+    /**
+     * Constructs a new RecordingUploadService.
+     *
+     * @param recordingUploadDAO the DAO tracking uploads and received chunks
+     * @param s3Service the S3Service holding the multipart uploads
+     * @param chunkSizeMb the chunk size in megabytes
+     * @param expireHours the hours without a chunk after which an upload is aborted
+     */
+    @Autowired
+    public RecordingUploadService(RecordingUploadDAO recordingUploadDAO,
+                                  S3Service s3Service,
+                                  @Value("${upload.resumable.chunk-size-mb:8}") int chunkSizeMb,
+                                  @Value("${upload.resumable.expire-hours:24}") long expireHours) {
+        this.recordingUploadDAO = recordingUploadDAO;
+        this.s3Service = s3Service;
+        this.chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSizeMb * 1024 * 1024);
+        this.expireHours = expireHours;
+    }
+
+    /**
+     * Starts an upload.
+     *
+     * @param seriesId the series the recording belongs to
+     * @param userId the user uploading
+     * @param fileName the original file name
+     * @param contentType the content type of the file, may be null
+     * @param fileSize the size of the whole file in bytes
+     * @param fileExtension the file extension used for the S3 key
+     * @return the upload status, as returned by {@link #getStatus(Map)}
+     * @throws IllegalArgumentException if the file is empty or needs too many chunks
+     */
+    public Map<String, Object> startUpload(Long seriesId, Long userId, String fileName, String contentType,
+                                           long fileSize, String fileExtension) {
+        if (fileSize <= 0 || fileSize > (long) MAX_CHUNKS * chunkSize) {
+            throw new IllegalArgumentException("Unsupported file size: " + fileSize);
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        String s3Key = uploadId + "." + fileExtension;
+        String s3UploadId = s3Service.createSeriesMultipartUpload(seriesId, s3Key, contentType);
+        try {
+            recordingUploadDAO.createUpload(uploadId, seriesId, userId, s3Key, s3UploadId,
+                    fileName, contentType, fileSize, chunkSize);
+        } catch (RuntimeException e) {
+            s3Service.abortSeriesMultipartUpload(seriesId, s3Key, s3UploadId);
+            throw e;
+        }
+
+        logger.info("Started upload {} of {} ({} bytes) for series {}", uploadId, fileName, fileSize, seriesId);
+        return getStatus(recordingUploadDAO.getUpload(uploadId));
+    }
+
+    /**
+     * Finds an upload belonging to a user and series.
+     *
+     * @param uploadId the upload ID
+     * @param seriesId the series ID from the request
+     * @param userId the user making the request
+     * @return the upload, or null if it does not exist or belongs to someone else
+     */
+    public Map<String, Object> findUpload(String uploadId, Long seriesId, Long userId) {
+        Map<String, Object> upload = recordingUploadDAO.getUpload(uploadId);
+        if (upload == null || !seriesId.equals(upload.get("seriesId")) || !userId.equals(upload.get("userId"))) {
+            return null;
+        }
+        return upload;
+    }
+
+    /**
+     * Describes an upload and the chunks received so far.
+     *
+     * @param upload the upload
+     * @return a map with uploadId, fileName, fileSize, chunkSize, totalChunks and receivedChunks
+     */
+    public Map<String, Object> getStatus(Map<String, Object> upload) {
+        long fileSize = (Long) upload.get("fileSize");
+        int uploadChunkSize = (Integer) upload.get("chunkSize");
+
+        List<Integer> received = new ArrayList<>();
+        for (Map<String, Object> part : recordingUploadDAO.getParts((String) upload.get("uploadId"))) {
+            received.add((Integer) part.get("partNumber"));
+        }
+
+        return Map.of(
+                "uploadId", upload.get("uploadId"),
+                "fileName", upload.get("fileName"),
+                "fileSize", fileSize,
+                "chunkSize", uploadChunkSize,
+                "totalChunks", totalChunks(fileSize, uploadChunkSize),
+                "receivedChunks", received);
+    }
+
+    /**
+     * Stores one chunk as a part of the S3 multipart upload. Sending a chunk again replaces it.
+     *
+     * @param upload the upload
+     * @param chunkNumber the chunk number, starting at 1
+     * @param inputStream the chunk content
+     * @param length the chunk length from the request
+     * @param sha256 the base64 SHA-256 checksum of the chunk
+     * @throws IllegalArgumentException if the chunk number or length is wrong, or the chunk does
+     *                                  not match its checksum
+     */
+    public void receiveChunk(Map<String, Object> upload, int chunkNumber, InputStream inputStream,
+                             long length, String sha256) {
+        long fileSize = (Long) upload.get("fileSize");
+        int uploadChunkSize = (Integer) upload.get("chunkSize");
+        int totalChunks = totalChunks(fileSize, uploadChunkSize);
+        if (chunkNumber < 1 || chunkNumber > totalChunks) {
+            throw new IllegalArgumentException("Chunk number must be between 1 and " + totalChunks);
+        }
+        long expectedLength = chunkNumber < totalChunks
+                ? uploadChunkSize
+                : fileSize - (long) (totalChunks - 1) * uploadChunkSize;
+        if (length != expectedLength) {
+            throw new IllegalArgumentException("Chunk " + chunkNumber + " must be " + expectedLength + " bytes");
+        }
+
+        String uploadId = (String) upload.get("uploadId");
+        Long seriesId = (Long) upload.get("seriesId");
+        DigestInputStream digestStream = new DigestInputStream(inputStream, sha256Digest());
+        String etag = s3Service.uploadSeriesPart(seriesId, (String) upload.get("s3Key"),
+                (String) upload.get("s3UploadId"), chunkNumber, digestStream, length, sha256);
+
+        // S3 checks the part too; this guards the recorded checksum that the completion relies on
+        String actual = Base64.getEncoder().encodeToString(digestStream.getMessageDigest().digest());
+        if (!actual.equals(sha256)) {
+            throw new IllegalArgumentException("Chunk " + chunkNumber + " does not match its checksum");
+        }
+
+        recordingUploadDAO.savePart(uploadId, chunkNumber, length, sha256, etag);
+    }
+
+    /**
+     * Completes the S3 multipart upload once every chunk has arrived and stops tracking the upload.
+     *
+     * @param upload the upload
+     * @return the S3 key of the uploaded file
+     * @throws IllegalStateException if chunks are missing
+     */
+    public String completeUpload(Map<String, Object> upload) {
+        String uploadId = (String) upload.get("uploadId");
+        int totalChunks = totalChunks((Long) upload.get("fileSize"), (Integer) upload.get("chunkSize"));
+
+        List<Map<String, Object>> parts = recordingUploadDAO.getParts(uploadId);
+        if (parts.size() != totalChunks) {
+            throw new IllegalStateException("Received " + parts.size() + " of " + totalChunks + " chunks");
+        }
+
+        List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+        for (Map<String, Object> part : parts) {
+            completedParts.add(CompletedPart.builder()
+                    .partNumber((Integer) part.get("partNumber"))
+                    .eTag((String) part.get("etag"))
+                    .checksumSHA256((String) part.get("sha256"))
+                    .build());
+        }
+
+        String s3Key = (String) upload.get("s3Key");
+        s3Service.completeSeriesMultipartUpload((Long) upload.get("seriesId"), s3Key,
+                (String) upload.get("s3UploadId"), completedParts);
+        recordingUploadDAO.deleteUpload(uploadId);
+        return s3Key;
+    }
+
+    /**
+     * Aborts an upload, discarding the chunks received.
+     *
+     * @param upload the upload
+     */
+    public void abortUpload(Map<String, Object> upload) {
+        s3Service.abortSeriesMultipartUpload((Long) upload.get("seriesId"),
+                (String) upload.get("s3Key"), (String) upload.get("s3UploadId"));
+        recordingUploadDAO.deleteUpload((String) upload.get("uploadId"));
+        logger.info("Aborted upload {}", upload.get("uploadId"));
+    }
+
+    /**
+     * Periodically aborts uploads that have stopped receiving chunks.
+     */
+    @Scheduled(fixedDelayString = "${upload.resumable.cleanup-interval-ms:3600000}",
+            initialDelayString = "${upload.resumable.cleanup-interval-ms:3600000}")
+    public void abortAbandonedUploads() {
+        try {
+            List<Map<String, Object>> abandoned =
+                    recordingUploadDAO.getUploadsInactiveSince(LocalDateTime.now().minusHours(expireHours));
+            for (Map<String, Object> upload : abandoned) {
+                abortUpload(upload);
+            }
+            if (!abandoned.isEmpty()) {
+                logger.info("Aborted {} abandoned uploads", abandoned.size());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to clean up abandoned uploads: {}", e.getMessage(), e);
+        }
+    }
+
+    private static int totalChunks(long fileSize, int chunkSize) {
+        return (int) ((fileSize + chunkSize - 1) / chunkSize);
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
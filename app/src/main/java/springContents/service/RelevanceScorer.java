@@ -0,0 +1,89 @@
+package springContents.service;
+
+import springContents.model.SearchDocument;
+
+import java.util.NavigableSet;
+
+/**
+ * Scores a search candidate against a parsed query using the document's precomputed
+ * normalized fields. A keyword matches the title or description when one of its tokens
+ * starts with the keyword, looked up in the sorted token sets, so a keyword that retrieved
+ * a document by prefix also scores on it, and scoring a candidate does not lowercase or
+ * copy any of its text.
+ */
+final class RelevanceScorer {
+    private static final int TITLE_KEYWORD_SCORE = 15;
+    private static final int DESCRIPTION_KEYWORD_SCORE = 10;
+    // Added for every keyword match in the title or description
+    private static final int KEYWORD_MATCH_BONUS = 5;
+
+    private RelevanceScorer() {
+    }
+
+    /**
+     * Calculates the relevance score of a normalized document.
+     *
+     * @param document the candidate document, already normalized
+     * @param parsed the parsed query
+     * @param lowerQuery the whole query in lowercase
+     * @return the relevance score
+     */
+    static int score(SearchDocument document, ParsedQuery parsed, String lowerQuery) {
+        // Base relevance from the database full-text engine, if the candidate came from SQL
+        int score = document.getEngineScore();
+
+        String title = document.getNormalizedTitle();
+        if (title != null) {
+            // Exact title match (highest priority)
+            if (title.equals(lowerQuery)) {
+                score += 100;
+            }
+            // Title contains query
+            if (title.contains(lowerQuery)) {
+                score += 50;
+            }
+        }
+
+        // Rebbi match
+        String rebbi = document.getNormalizedRebbiName();
+        if (rebbi != null) {
+            for (String name : parsed.rebbiNames) {
+                if (rebbi.contains(name)) {
+                    score += 30;
+                }
+            }
+        }
+
+        // Topic and institution match
+        if (parsed.topicNames.contains(document.getNormalizedTopicName())) {
+            score += 30;
+        }
+        if (parsed.institutionNames.contains(document.getNormalizedInstitutionName())) {
+            score += 20;
+        }
+
+        // Keyword matches in title and description
+        int keywordMatchCount = 0;
+        for (String keyword : parsed.keywords) {
+            if (hasTokenStartingWith(document.getTitleTokens(), keyword)) {
+                score += TITLE_KEYWORD_SCORE;
+                keywordMatchCount++;
+            }
+            if (hasTokenStartingWith(document.getDescriptionTokens(), keyword)) {
+                score += DESCRIPTION_KEYWORD_SCORE;
+                keywordMatchCount++;
+            }
+        }
+
+        // Multiple keyword matches (bonus for relevance)
+        score += keywordMatchCount * KEYWORD_MATCH_BONUS;
+
+        return score;
+    }
+
+    private static boolean hasTokenStartingWith(NavigableSet<String> tokens, String prefix) {
+        // The first token not below the prefix is the only one that can start with it
+        String candidate = tokens.ceiling(prefix);
+        return candidate != null && candidate.startsWith(prefix);
+    }
+}
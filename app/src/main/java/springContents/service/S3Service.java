@@ -1,57 +1,144 @@
 package springContents.service;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.ResponsePublisher;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteBucketRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
 import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Error;
 import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 
 /**
  * Service for managing S3 bucket operations and file storage.
  * Handles creation and deletion of series-specific S3 buckets, file uploads,
  * downloads, and object listing for shiur recordings.
+ * When audio.delivery.mode is "redirect" in dbcredentials.properties, series audio is handed
+ * out as short-lived presigned GET URLs so the bytes go straight from S3 to the listener.
+ * Otherwise audio is proxied, and streamed through an async S3 client (audio.streaming.async)
+ * so that listeners do not each hold a thread.
+ * Object metadata and bucket existence are cached in memory for s3.metadata-cache.ttl-seconds,
+ * so HEAD and conditional requests are usually answered without asking S3. Writes and deletes
+ * made through this service update the cache; changes made elsewhere show after the TTL.
  */
 @Service
 public class S3Service {
     private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
+
+    // Past this many cached URLs, entries from earlier windows are dropped
+    private static final int MAX_PRESIGNED_URLS = 10_000;
+    private static final int MAX_LIST_PAGE_SIZE = 1000;
+    private static final Set<String> AUDIO_EXTENSIONS = Set.of(
+            "mp3", "wav", "ogg", "m4a", "opus", "flac", "aac", "webm", "aiff", "aif", "wma");
+
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final S3Presigner s3Presigner;
     private final String bucketName;
     private final Region region;
     private final String prefix;
+    private final AudioFileCache audioFileCache;
+    private final boolean redirectDelivery;
+    private final Duration presignDuration;
+    private final long presignReuseSeconds;
+    private final boolean asyncStreaming;
+    private final Duration asyncStreamTimeout;
+
+    // Presigned URLs by bucket and key, reused within one reuse window
+    private final Map<String, PresignedUrl> presignedUrls = new ConcurrentHashMap<>();
+
+    // Audio files in the bucket, loaded on first use and rebuilt in the background
+    private volatile AudioFileIndex audioFileIndex;
+    private final Object audioFileIndexLock = new Object();
+
+    // Object metadata by bucket and key, and whether buckets exist
+    private final ExpiringCache<String, HeadObjectResponse> objectHeads;
+    private final ExpiringCache<String, Boolean> bucketExists;
+
+    // Streaming uploads: part buffers shared by all uploads, and the threads sending parts
+    private final PartBufferPool partBuffers;
+    private final int partsInFlightPerUpload;
+    private final ExecutorService partUploadExecutor;
+
+    // Bucket teardown: DeleteObjects batches run in parallel while the next page is listed
+    private final int deleteBatchesInFlight;
+    private final ExecutorService bulkDeleteExecutor;
 
     /**
      * Constructs a new S3Service with configuration from dbcredentials.properties.
      *
      * @param resourceLoader the resource loader to access configuration files
+     * @param audioFileCache the local disk cache of audio objects, invalidated on writes
      * @throws IOException if the properties file cannot be read
      */
     @Autowired
-    public S3Service(ResourceLoader resourceLoader) throws IOException {
+    public S3Service(ResourceLoader resourceLoader, AudioFileCache audioFileCache) throws IOException {
+        this.audioFileCache = audioFileCache;
         Properties credentials = new Properties();
 
         Resource resource = resourceLoader.getResource("classpath:dbcredentials.properties");
@@ -64,10 +151,63 @@ public class S3Service {
 
         String profileName = credentials.getProperty("s3.aws.profile", "default");
 
+        this.redirectDelivery = "redirect".equalsIgnoreCase(credentials.getProperty("audio.delivery.mode", "proxy"));
+        this.presignDuration = Duration.ofSeconds(Long.parseLong(
+                credentials.getProperty("s3.presign.ttl-seconds", "900")));
+        // Reuse a URL for a third of its lifetime, so every URL handed out stays valid for at least two thirds
+        this.presignReuseSeconds = Math.max(1, presignDuration.getSeconds() / 3);
+
+        // Proxied audio is streamed through the async client unless turned off
+        this.asyncStreaming = Boolean.parseBoolean(credentials.getProperty("audio.streaming.async", "true"));
+        this.asyncStreamTimeout = Duration.ofMinutes(Long.parseLong(
+                credentials.getProperty("audio.streaming.timeout-minutes", "60")));
+        // Every listener of a proxied stream holds one S3 connection while its download runs
+        int maxStreamConnections = Integer.parseInt(
+                credentials.getProperty("audio.streaming.max-s3-connections", "1000"));
+
+        Duration metadataTtl = Duration.ofSeconds(Long.parseLong(
+                credentials.getProperty("s3.metadata-cache.ttl-seconds", "300")));
+        int metadataEntries = Integer.parseInt(credentials.getProperty("s3.metadata-cache.max-entries", "10000"));
+        this.objectHeads = new ExpiringCache<>(metadataEntries, metadataTtl);
+        this.bucketExists = new ExpiringCache<>(metadataEntries, metadataTtl);
+
+        // S3 requires every part but the last to be at least 5 MB
+        int partSizeMb = Math.max(5, Integer.parseInt(credentials.getProperty("s3.upload.part-size-mb", "8")));
+        int uploadBuffers = Integer.parseInt(credentials.getProperty("s3.upload.buffers", "16"));
+        long bufferWaitMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(
+                credentials.getProperty("s3.upload.buffer-wait-seconds", "30")));
+        this.partBuffers = new PartBufferPool(partSizeMb * 1024 * 1024, uploadBuffers, bufferWaitMillis);
+        this.partsInFlightPerUpload = Math.min(uploadBuffers,
+                Integer.parseInt(credentials.getProperty("s3.upload.parallel-parts", "4")));
+        this.partUploadExecutor = Executors.newFixedThreadPool(uploadBuffers, runnable -> {
+            Thread thread = new Thread(runnable, "s3-part-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.deleteBatchesInFlight = Math.max(1,
+                Integer.parseInt(credentials.getProperty("s3.delete.parallel-batches", "4")));
+        this.bulkDeleteExecutor = Executors.newFixedThreadPool(deleteBatchesInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "s3-bulk-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         this.s3Client = S3Client.builder()
                 .region(region)
                 .credentialsProvider(ProfileCredentialsProvider.create(profileName))
                 .build();
+        this.s3AsyncClient = S3AsyncClient.builder()
+                .region(region)
+                .credentialsProvider(ProfileCredentialsProvider.create(profileName))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxStreamConnections)
+                        .maxPendingConnectionAcquires(maxStreamConnections))
+                .build();
+        this.s3Presigner = S3Presigner.builder()
+                .region(region)
+                .credentialsProvider(ProfileCredentialsProvider.create(profileName))
+                .build();
 
         if (prefix != null && !prefix.isEmpty()) {
             logger.info("S3Service initialized with bucket: {} in region: {} using profile: {} with prefix: {}",
@@ -90,10 +230,13 @@ public class S3Service {
         try {
             // Check if bucket already exists
             try {
-                HeadBucketRequest headBucketRequest = HeadBucketRequest.builder()
-                        .bucket(bucketName)
-                        .build();
-                s3Client.headBucket(headBucketRequest);
+                if (!Boolean.TRUE.equals(bucketExists.get(bucketName))) {
+                    HeadBucketRequest headBucketRequest = HeadBucketRequest.builder()
+                            .bucket(bucketName)
+                            .build();
+                    s3Client.headBucket(headBucketRequest);
+                    bucketExists.put(bucketName, true);
+                }
                 logger.warn("Bucket {} already exists", bucketName);
                 return bucketName;
             } catch (S3Exception e) {
@@ -109,6 +252,7 @@ public class S3Service {
                     .build();
 
             s3Client.createBucket(createBucketRequest);
+            bucketExists.put(bucketName, true);
             logger.info("Successfully created S3 bucket: {}", bucketName);
 
             return bucketName;
@@ -127,48 +271,76 @@ public class S3Service {
      * @throws RuntimeException if deletion fails
      */
     public void deleteSeriesBucket(Long seriesId) {
+        deleteSeriesBucket(seriesId, deleted -> { });
+    }
+
+    /**
+     * Delete an S3 bucket and all its contents for a series. Objects are removed with
+     * DeleteObjects, one call per listed page of up to 1000 keys; the next page is listed
+     * while earlier ones are deleted, with up to s3.delete.parallel-batches calls in flight
+     * @param seriesId The series ID
+     * @param progress Told the number of objects each batch removed, on the delete threads
+     * @throws RuntimeException if deletion fails
+     */
+    public void deleteSeriesBucket(Long seriesId, LongConsumer progress) {
         String bucketName = "shiur-series-" + seriesId;
 
         try {
             // First, check if bucket exists
-            try {
-                HeadBucketRequest headBucketRequest = HeadBucketRequest.builder()
-                        .bucket(bucketName)
-                        .build();
-                s3Client.headBucket(headBucketRequest);
-            } catch (S3Exception e) {
-                if (e.statusCode() == 404) {
-                    logger.info("Bucket {} does not exist, skipping deletion", bucketName);
-                    return;
+            Boolean exists = bucketExists.get(bucketName);
+            if (exists == null) {
+                try {
+                    HeadBucketRequest headBucketRequest = HeadBucketRequest.builder()
+                            .bucket(bucketName)
+                            .build();
+                    s3Client.headBucket(headBucketRequest);
+                    exists = true;
+                } catch (S3Exception e) {
+                    if (e.statusCode() != 404) {
+                        throw e;
+                    }
+                    exists = false;
                 }
-                throw e;
+                bucketExists.put(bucketName, exists);
+            }
+            if (!exists) {
+                logger.info("Bucket {} does not exist, skipping deletion", bucketName);
+                return;
             }
 
-            // List and delete all objects in the bucket
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .build();
-
+            // List and delete all objects in the bucket. Deleting keys the listing has passed
+            // does not disturb its continuation token.
+            Semaphore inFlight = new Semaphore(deleteBatchesInFlight);
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            String continuationToken = null;
             ListObjectsV2Response listResponse;
             do {
-                listResponse = s3Client.listObjectsV2(listRequest);
+                listResponse = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                        .bucket(bucketName)
+                        .continuationToken(continuationToken)
+                        .build());
 
+                List<ObjectIdentifier> keys = new ArrayList<>();
                 for (S3Object s3Object : listResponse.contents()) {
-                    DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-                            .bucket(bucketName)
-                            .key(s3Object.key())
-                            .build();
-                    s3Client.deleteObject(deleteObjectRequest);
-                    logger.debug("Deleted object: {}", s3Object.key());
+                    keys.add(ObjectIdentifier.builder().key(s3Object.key()).build());
+                }
+                if (!keys.isEmpty()) {
+                    inFlight.acquire();
+                    batches.add(deleteObjects(bucketName, keys, inFlight, progress));
                 }
 
-                // Continue if there are more objects
-                listRequest = ListObjectsV2Request.builder()
-                        .bucket(bucketName)
-                        .continuationToken(listResponse.nextContinuationToken())
-                        .build();
+                // Stop listing as soon as a batch has failed
+                for (CompletableFuture<Void> batch : batches) {
+                    if (batch.isCompletedExceptionally()) {
+                        batch.join();
+                    }
+                }
+                continuationToken = listResponse.nextContinuationToken();
+            } while (Boolean.TRUE.equals(listResponse.isTruncated()));
 
-            } while (listResponse.isTruncated());
+            for (CompletableFuture<Void> batch : batches) {
+                batch.join();
+            }
 
             // Now delete the empty bucket
             DeleteBucketRequest deleteBucketRequest = DeleteBucketRequest.builder()
@@ -176,8 +348,14 @@ public class S3Service {
                     .build();
 
             s3Client.deleteBucket(deleteBucketRequest);
+            bucketExists.put(bucketName, false);
+            objectHeads.invalidateIf(cacheKey -> cacheKey.startsWith(bucketName + "/"));
+            audioFileCache.invalidatePrefix(AudioFileCache.seriesKey(seriesId, ""));
             logger.info("Successfully deleted S3 bucket: {}", bucketName);
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while deleting S3 bucket for series " + seriesId, e);
         } catch (S3Exception e) {
             logger.error("Failed to delete S3 bucket {}: {} - {}", bucketName,
                     e.awsErrorDetails().errorCode(), e.awsErrorDetails().errorMessage(), e);
@@ -189,6 +367,31 @@ public class S3Service {
         }
     }
 
+    /**
+     * Delete one batch of up to 1000 objects with a single DeleteObjects call
+     */
+    private CompletableFuture<Void> deleteObjects(String bucket, List<ObjectIdentifier> keys, Semaphore inFlight,
+                                                  LongConsumer progress) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucket)
+                        .delete(Delete.builder().objects(keys).quiet(true).build())
+                        .build());
+                // In quiet mode only the keys that could not be deleted are reported
+                if (!response.errors().isEmpty()) {
+                    S3Error error = response.errors().get(0);
+                    throw new RuntimeException("Failed to delete " + response.errors().size() + " objects from "
+                            + bucket + ", such as " + error.key() + ": " + error.code() + " " + error.message());
+                }
+                progress.accept(keys.size());
+                logger.debug("Deleted {} objects from {}", keys.size(), bucket);
+            } finally {
+                inFlight.release();
+            }
+        }, bulkDeleteExecutor);
+    }
+
     /**
      * Upload an audio file to the series bucket
      * @param seriesId The series ID
@@ -210,7 +413,10 @@ public class S3Service {
                     .contentLength(file.getSize())
                     .build();
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, file.getSize()));
+            PutObjectResponse response = s3Client.putObject(putObjectRequest,
+                    RequestBody.fromInputStream(inputStream, file.getSize()));
+            rememberObject(bucketName, key, response.eTag(), file.getContentType(), file.getSize());
+            audioFileCache.invalidate(AudioFileCache.seriesKey(seriesId, key));
             logger.info("Successfully uploaded file to S3: {}/{}", bucketName, key);
 
             return key;
@@ -227,6 +433,377 @@ public class S3Service {
         }
     }
 
+    /**
+     * Upload an audio file to the series bucket straight from a stream, without spooling it
+     * to disk. The stream is cut into parts that are sent as an S3 multipart upload, several
+     * parts at a time; a file smaller than one part is sent with a single PUT. If anything
+     * fails the multipart upload is aborted so no orphaned parts are left in the bucket.
+     * @param seriesId The series ID
+     * @param key The S3 file path (key) to upload to
+     * @param inputStream The audio content; read to the end but not closed
+     * @param contentType The content type of the audio, may be null
+     * @param maxBytes The largest file accepted
+     * @return The S3 file path (key) of the uploaded file
+     * @throws IllegalArgumentException if the file is larger than maxBytes
+     * @throws RejectedExecutionException if every part buffer stayed in use for s3.upload.buffer-wait-seconds
+     * @throws RuntimeException if upload fails
+     */
+    public String uploadAudioStream(Long seriesId, String key, InputStream inputStream,
+                                    String contentType, long maxBytes) {
+        String bucketName = "shiur-series-" + seriesId;
+
+        String uploadId = null;
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        // The pooled buffer held by this thread, returned to the pool in the finally block;
+        // null while none is held, including once a part upload has taken it over
+        byte[] buffer = null;
+        try {
+            buffer = partBuffers.acquire();
+            int length = readPart(inputStream, buffer);
+            String eTag;
+            long total;
+            if (length < buffer.length) {
+                total = length;
+                PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength((long) length)
+                        .build();
+                eTag = s3Client.putObject(putObjectRequest,
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length)).eTag();
+            } else {
+                uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .build()).uploadId();
+
+                Semaphore inFlight = new Semaphore(partsInFlightPerUpload);
+                total = 0;
+                int partNumber = 0;
+                while (length > 0) {
+                    total += length;
+                    if (total > maxBytes) {
+                        throw new IllegalArgumentException("File is larger than " + maxBytes + " bytes");
+                    }
+                    inFlight.acquire();
+                    parts.add(uploadPart(bucketName, key, uploadId, ++partNumber, buffer, length, inFlight));
+                    // The part upload returns the buffer to the pool when it ends
+                    buffer = null;
+
+                    // Stop reading as soon as a part has failed
+                    for (CompletableFuture<CompletedPart> part : parts) {
+                        if (part.isCompletedExceptionally()) {
+                            part.join();
+                        }
+                    }
+
+                    buffer = partBuffers.acquire();
+                    length = readPart(inputStream, buffer);
+                }
+                partBuffers.release(buffer);
+                buffer = null;
+
+                List<CompletedPart> completedParts = new ArrayList<>();
+                for (CompletableFuture<CompletedPart> part : parts) {
+                    completedParts.add(part.join());
+                }
+                completedParts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+                CompleteMultipartUploadResponse response = s3Client.completeMultipartUpload(
+                        CompleteMultipartUploadRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                                .build());
+                eTag = response.eTag();
+                logger.info("Uploaded {} parts ({} bytes) to S3: {}/{}", partNumber, total, bucketName, key);
+            }
+
+            rememberObject(bucketName, key, eTag, contentType, total);
+            audioFileCache.invalidate(AudioFileCache.seriesKey(seriesId, key));
+            return key;
+        } catch (IllegalArgumentException e) {
+            abortMultipartUpload(bucketName, key, uploadId, parts);
+            throw e;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Turned away stream upload to {}/{}: {}", bucketName, key, e.getMessage());
+            abortMultipartUpload(bucketName, key, uploadId, parts);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(bucketName, key, uploadId, parts);
+            throw new RuntimeException("Interrupted while uploading file to S3", e);
+        } catch (Exception e) {
+            logger.error("Failed to stream upload to S3 {}/{}: {}", bucketName, key, e.getMessage(), e);
+            abortMultipartUpload(bucketName, key, uploadId, parts);
+            throw new RuntimeException("Failed to upload file to S3", e);
+        } finally {
+            if (buffer != null) {
+                partBuffers.release(buffer);
+            }
+        }
+    }
+
+    private CompletableFuture<CompletedPart> uploadPart(String bucket, String key, String uploadId, int partNumber,
+                                                        byte[] buffer, int length, Semaphore inFlight) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) length)
+                        .build();
+
+                // A stream over the pooled buffer, so the part is not copied again
+                UploadPartResponse response = s3Client.uploadPart(uploadPartRequest,
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length));
+                return CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(response.eTag())
+                        .build();
+            } finally {
+                partBuffers.release(buffer);
+                inFlight.release();
+            }
+        }, partUploadExecutor);
+    }
+
+    /**
+     * Abort a multipart upload once its in-flight parts have settled, so none is stored after the abort
+     */
+    private void abortMultipartUpload(String bucket, String key, String uploadId,
+                                      List<CompletableFuture<CompletedPart>> parts) {
+        if (uploadId == null) {
+            return;
+        }
+        for (CompletableFuture<CompletedPart> part : parts) {
+            try {
+                part.join();
+            } catch (Exception ignored) {
+                // The upload is being aborted anyway
+            }
+        }
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            logger.info("Aborted multipart upload {} for {}/{}", uploadId, bucket, key);
+        } catch (Exception e) {
+            logger.error("Failed to abort multipart upload {} for {}/{}: {}", uploadId, bucket, key, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fill a pooled buffer from the stream, returning fewer bytes than its length only at the end
+     * of the stream
+     */
+    private static int readPart(InputStream inputStream, byte[] buffer) throws IOException {
+        int length = 0;
+        int read;
+        while (length < buffer.length && (read = inputStream.read(buffer, length, buffer.length - length)) > 0) {
+            length += read;
+        }
+        return length;
+    }
+
+    /**
+     * Stop the part upload and bulk delete threads and close the async client.
+     */
+    @PreDestroy
+    public void shutdown() {
+        partUploadExecutor.shutdownNow();
+        bulkDeleteExecutor.shutdownNow();
+        s3AsyncClient.close();
+        s3Presigner.close();
+    }
+
+    /**
+     * Start a multipart upload in the series bucket whose parts carry SHA-256 checksums
+     * @param seriesId The series ID
+     * @param key The S3 file path (key) to upload to
+     * @param contentType The content type of the file, may be null
+     * @return The S3 upload ID
+     * @throws RuntimeException if the upload cannot be started
+     */
+    public String createSeriesMultipartUpload(Long seriesId, String key, String contentType) {
+        String bucketName = "shiur-series-" + seriesId;
+
+        try {
+            return s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .checksumAlgorithm(ChecksumAlgorithm.SHA256)
+                    .build()).uploadId();
+        } catch (Exception e) {
+            logger.error("Failed to start multipart upload to {}/{}: {}", bucketName, key, e.getMessage(), e);
+            throw new RuntimeException("Failed to start upload to S3", e);
+        }
+    }
+
+    /**
+     * Upload one part of a multipart upload in the series bucket straight from a stream.
+     * S3 verifies the part against the checksum and rejects it if they differ.
+     * @param seriesId The series ID
+     * @param key The S3 file path (key) being uploaded
+     * @param uploadId The S3 upload ID
+     * @param partNumber The part number, starting at 1
+     * @param inputStream The part content; exactly length bytes are read
+     * @param length The part size in bytes
+     * @param sha256 The base64 SHA-256 checksum of the part
+     * @return The ETag of the stored part
+     * @throws IllegalArgumentException if S3 rejected the part because it does not match the checksum
+     * @throws RuntimeException if the upload fails
+     */
+    public String uploadSeriesPart(Long seriesId, String key, String uploadId, int partNumber,
+                                   InputStream inputStream, long length, String sha256) {
+        String bucketName = "shiur-series-" + seriesId;
+
+        try {
+            UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength(length)
+                    .checksumSHA256(sha256)
+                    .build();
+
+            return s3Client.uploadPart(uploadPartRequest, RequestBody.fromInputStream(inputStream, length)).eTag();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 400 && e.awsErrorDetails() != null
+                    && "BadDigest".equals(e.awsErrorDetails().errorCode())) {
+                throw new IllegalArgumentException("Part " + partNumber + " does not match its checksum", e);
+            }
+            logger.error("Failed to upload part {} of {}/{}: {}", partNumber, bucketName, key, e.getMessage(), e);
+            throw new RuntimeException("Failed to upload part to S3", e);
+        } catch (Exception e) {
+            logger.error("Failed to upload part {} of {}/{}: {}", partNumber, bucketName, key, e.getMessage(), e);
+            throw new RuntimeException("Failed to upload part to S3", e);
+        }
+    }
+
+    /**
+     * Complete a multipart upload in the series bucket
+     * @param seriesId The series ID
+     * @param key The S3 file path (key) being uploaded
+     * @param uploadId The S3 upload ID
+     * @param parts Every part of the file, in part number order, with its ETag and checksum
+     * @throws RuntimeException if the upload cannot be completed
+     */
+    public void completeSeriesMultipartUpload(Long seriesId, String key, String uploadId, List<CompletedPart> parts) {
+        String bucketName = "shiur-series-" + seriesId;
+
+        try {
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            // The size is not known here, so the next HEAD fetches the metadata
+            objectHeads.invalidate(bucketName + "/" + key);
+            audioFileCache.invalidate(AudioFileCache.seriesKey(seriesId, key));
+            logger.info("Completed multipart upload of {} parts to S3: {}/{}", parts.size(), bucketName, key);
+        } catch (Exception e) {
+            logger.error("Failed to complete multipart upload to {}/{}: {}", bucketName, key, e.getMessage(), e);
+            throw new RuntimeException("Failed to complete upload to S3", e);
+        }
+    }
+
+    /**
+     * Abort a multipart upload in the series bucket, discarding its parts
+     * @param seriesId The series ID
+     * @param key The S3 file path (key) being uploaded
+     * @param uploadId The S3 upload ID
+     */
+    public void abortSeriesMultipartUpload(Long seriesId, String key, String uploadId) {
+        abortMultipartUpload("shiur-series-" + seriesId, key, uploadId, List.of());
+    }
+
+    /**
+     * Delete an audio file from the series bucket, for example when the recording that was
+     * going to reference it could not be created
+     * @param seriesId The series ID
+     * @param key The S3 file path (key) to delete
+     */
+    public void deleteAudioFile(Long seriesId, String key) {
+        String bucketName = "shiur-series-" + seriesId;
+
+        try {
+            DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build();
+            s3Client.deleteObject(deleteObjectRequest);
+            objectHeads.invalidate(bucketName + "/" + key);
+            audioFileCache.invalidate(AudioFileCache.seriesKey(seriesId, key));
+            logger.info("Deleted S3 object: {}/{}", bucketName, key);
+        } catch (Exception e) {
+            logger.error("Failed to delete S3 object {}/{}: {}", bucketName, key, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Store a small derived object, such as waveform peaks, in the series bucket next to its recording
+     * @param seriesId The series ID
+     * @param key The key to store the object under
+     * @param content The object content
+     * @param contentType The content type of the object
+     * @throws RuntimeException if upload fails
+     */
+    public void putSeriesObject(Long seriesId, String key, byte[] content, String contentType) {
+        String bucketName = "shiur-series-" + seriesId;
+
+        try {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentLength((long) content.length)
+                    .build();
+            PutObjectResponse response = s3Client.putObject(putObjectRequest, RequestBody.fromBytes(content));
+            rememberObject(bucketName, key, response.eTag(), contentType, content.length);
+            logger.info("Stored S3 object: {}/{} ({} bytes)", bucketName, key, content.length);
+        } catch (Exception e) {
+            logger.error("Failed to store S3 object {}/{}: {}", bucketName, key, e.getMessage(), e);
+            throw new RuntimeException("Failed to store object in S3", e);
+        }
+    }
+
+    /**
+     * Store a derived file, such as a transcoded rendition, in the series bucket next to its recording
+     * @param seriesId The series ID
+     * @param key The key to store the object under
+     * @param file The local file to upload
+     * @param contentType The content type of the object
+     * @throws RuntimeException if upload fails
+     */
+    public void putSeriesObject(Long seriesId, String key, Path file, String contentType) {
+        String bucketName = "shiur-series-" + seriesId;
+
+        try {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .build();
+            PutObjectResponse response = s3Client.putObject(putObjectRequest, RequestBody.fromFile(file));
+            rememberObject(bucketName, key, response.eTag(), contentType, Files.size(file));
+            logger.info("Stored S3 object: {}/{} from {}", bucketName, key, file);
+        } catch (Exception e) {
+            logger.error("Failed to store S3 object {}/{}: {}", bucketName, key, e.getMessage(), e);
+            throw new RuntimeException("Failed to store object in S3", e);
+        }
+    }
+
     /**
      * Get audio file from a series bucket as InputStream
      * @param seriesId The series ID
@@ -234,15 +811,33 @@ public class S3Service {
      * @return ResponseInputStream containing the audio file
      */
     public ResponseInputStream<GetObjectResponse> getAudioFileFromSeriesBucket(Long seriesId, String fileName) {
+        return getAudioFileFromSeriesBucket(seriesId, fileName, null);
+    }
+
+    /**
+     * Get a byte range of an audio file from a series bucket as InputStream
+     * @param seriesId The series ID
+     * @param fileName The file name/key in the bucket
+     * @param range The HTTP Range header value to forward to S3, or null for the whole file
+     * @return ResponseInputStream containing the requested bytes; the response carries the
+     *         content range and length S3 resolved
+     */
+    public ResponseInputStream<GetObjectResponse> getAudioFileFromSeriesBucket(Long seriesId, String fileName,
+                                                                              String range) {
         String bucketName = "shiur-series-" + seriesId;
 
         try {
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(bucketName)
                     .key(fileName)
+                    .range(range)
                     .build();
 
-            return s3Client.getObject(getObjectRequest);
+            ResponseInputStream<GetObjectResponse> object = s3Client.getObject(getObjectRequest);
+            if (range == null) {
+                rememberObject(bucketName, fileName, object.response());
+            }
+            return object;
         } catch (Exception e) {
             logger.error("Error getting audio file {} from series bucket {}: {}", fileName, bucketName, e.getMessage(), e);
             throw new RuntimeException("Failed to retrieve audio file: " + fileName, e);
@@ -250,62 +845,387 @@ public class S3Service {
     }
 
     /**
-     * List all audio files in the S3 bucket
+     * Get a byte range of an audio file from a series bucket through the async client. The future
+     * completes once S3 has sent the response headers; the body is read as the publisher is
+     * subscribed to and requested from, so a slow reader holds back the download.
+     * @param seriesId The series ID
+     * @param fileName The file name/key in the bucket
+     * @param range The HTTP Range header value to forward to S3, or null for the whole file
+     * @return a future of the response and its body publisher, failing if the object cannot be read
+     */
+    public CompletableFuture<ResponsePublisher<GetObjectResponse>> getAudioFileFromSeriesBucketAsync(
+            Long seriesId, String fileName, String range) {
+        return getObjectAsync("shiur-series-" + seriesId, fileName, range);
+    }
+
+    /**
+     * Get a byte range of an audio file through the async client
+     * @param key The object key
+     * @param range The HTTP Range header value to forward to S3, or null for the whole file
+     * @return a future of the response and its body publisher, failing if the object cannot be read
+     */
+    public CompletableFuture<ResponsePublisher<GetObjectResponse>> getAudioFileAsync(String key, String range) {
+        return getObjectAsync(bucketName, key, range);
+    }
+
+    /**
+     * Check whether proxied audio should be streamed with the async client and non-blocking servlet I/O
+     * @return false if audio.streaming.async is turned off
+     */
+    public boolean isAsyncStreaming() {
+        return asyncStreaming;
+    }
+
+    /**
+     * Get how long one async audio stream may stay open
+     * @return the timeout from audio.streaming.timeout-minutes
+     */
+    public Duration getAsyncStreamTimeout() {
+        return asyncStreamTimeout;
+    }
+
+    private CompletableFuture<ResponsePublisher<GetObjectResponse>> getObjectAsync(String bucket, String key,
+                                                                                  String range) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range(range)
+                .build();
+        return s3AsyncClient.getObject(getObjectRequest, AsyncResponseTransformer.toPublisher())
+                .whenComplete((object, error) -> {
+                    if (object != null && range == null) {
+                        rememberObject(bucket, key, object.response());
+                    }
+                });
+    }
+
+    /**
+     * List all audio files in the S3 bucket, from the in-memory index
+     * @return the keys of the audio files, in key order
      */
     public List<String> listAudioFiles() {
-        List<String> audioFiles = new ArrayList<>();
+        return audioFileIndex().keys;
+    }
+
+    /**
+     * List one page of the audio files in the S3 bucket, from the in-memory index
+     * @param after The last key of the previous page, or null for the first page
+     * @param limit The most keys to return, at most 1000
+     * @return the keys of the page, in key order, and the cursor of the next page
+     */
+    public AudioFilePage listAudioFiles(String after, int limit) {
+        List<String> keys = audioFileIndex().keys;
+        int from = 0;
+        if (after != null) {
+            int position = Collections.binarySearch(keys, after);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        int to = Math.min(keys.size(), from + Math.max(1, Math.min(MAX_LIST_PAGE_SIZE, limit)));
+        List<String> page = keys.subList(from, to);
+        return new AudioFilePage(page, to < keys.size() ? page.get(page.size() - 1) : null);
+    }
+
+    /**
+     * Rebuild the index of audio files in the background, to pick up files added or removed
+     * outside the application. Until the first rebuild the index is loaded on first use.
+     */
+    @Scheduled(fixedDelayString = "${audio.list.refresh-interval-ms:300000}",
+            initialDelayString = "${audio.list.refresh-interval-ms:300000}")
+    public void refreshAudioFileIndex() {
         try {
+            audioFileIndex = new AudioFileIndex(scanAudioFiles());
+        } catch (Exception e) {
+            logger.error("Error refreshing audio file index from S3: {}", e.getMessage(), e);
+        }
+    }
+
+    private AudioFileIndex audioFileIndex() {
+        AudioFileIndex index = audioFileIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (audioFileIndexLock) {
+            if (audioFileIndex == null) {
+                try {
+                    audioFileIndex = new AudioFileIndex(scanAudioFiles());
+                } catch (Exception e) {
+                    logger.error("Error listing audio files from S3: {}", e.getMessage(), e);
+                    return new AudioFileIndex(List.of());
+                }
+            }
+            return audioFileIndex;
+        }
+    }
+
+    /**
+     * List every audio file in the bucket, following continuation tokens past the 1000 keys
+     * S3 returns per call
+     */
+    private List<String> scanAudioFiles() {
+        List<String> audioFiles = new ArrayList<>();
+        String continuationToken = null;
+        ListObjectsV2Response listResponse;
+        do {
             ListObjectsV2Request.Builder requestBuilder = ListObjectsV2Request.builder()
-                    .bucket(bucketName);
+                    .bucket(bucketName)
+                    .continuationToken(continuationToken);
 
             // Add prefix if configured
             if (prefix != null && !prefix.isEmpty()) {
                 requestBuilder.prefix(prefix);
             }
 
-            ListObjectsV2Request listRequest = requestBuilder.build();
-
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
-
+            listResponse = s3Client.listObjectsV2(requestBuilder.build());
             for (S3Object s3Object : listResponse.contents()) {
-                String key = s3Object.key();
-                // Filter for audio files
-                if (key.toLowerCase().endsWith(".mp3") ||
-                        key.toLowerCase().endsWith(".wav") ||
-                        key.toLowerCase().endsWith(".ogg") ||
-                        key.toLowerCase().endsWith(".m4a") ||
-                        key.toLowerCase().endsWith(".opus") ||
-                        key.toLowerCase().endsWith(".flac") ||
-                        key.toLowerCase().endsWith(".aac") ||
-                        key.toLowerCase().endsWith(".webm") ||
-                        key.toLowerCase().endsWith(".aiff") ||
-                        key.toLowerCase().endsWith(".aif") ||
-                        key.toLowerCase().endsWith(".wma")) {
-                    audioFiles.add(key);
+                if (isAudioKey(s3Object.key())) {
+                    audioFiles.add(s3Object.key());
                 }
             }
+            continuationToken = listResponse.nextContinuationToken();
+        } while (Boolean.TRUE.equals(listResponse.isTruncated()));
 
-            logger.info("Found {} audio files in bucket", audioFiles.size());
-        } catch (Exception e) {
-            logger.error("Error listing audio files from S3: {}", e.getMessage(), e);
-        }
+        // Sorted here too, so the paging binary search agrees with String order
+        audioFiles.sort(null);
+        logger.info("Found {} audio files in bucket", audioFiles.size());
         return audioFiles;
     }
 
+    private static boolean isAudioKey(String key) {
+        int dot = key.lastIndexOf('.');
+        return dot >= 0 && AUDIO_EXTENSIONS.contains(key.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
     /**
      * Get audio file as InputStream
      */
     public ResponseInputStream<GetObjectResponse> getAudioFile(String key) {
+        return getAudioFile(key, null);
+    }
+
+    /**
+     * Get a byte range of an audio file as InputStream
+     * @param key The object key
+     * @param range The HTTP Range header value to forward to S3, or null for the whole file
+     * @return ResponseInputStream containing the requested bytes
+     */
+    public ResponseInputStream<GetObjectResponse> getAudioFile(String key, String range) {
         try {
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(bucketName)
                     .key(key)
+                    .range(range)
                     .build();
 
-            return s3Client.getObject(getObjectRequest);
+            ResponseInputStream<GetObjectResponse> object = s3Client.getObject(getObjectRequest);
+            if (range == null) {
+                rememberObject(bucketName, key, object.response());
+            }
+            return object;
         } catch (Exception e) {
             logger.error("Error getting audio file {} from S3: {}", key, e.getMessage(), e);
             throw new RuntimeException("Failed to retrieve audio file: " + key, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the size in bytes of an audio file in a series bucket
+     * @param seriesId The series ID
+     * @param fileName The file name/key in the bucket
+     * @return the object size
+     */
+    public long getAudioFileSizeFromSeriesBucket(Long seriesId, String fileName) {
+        return getObjectSize("shiur-series-" + seriesId, fileName);
+    }
+
+    /**
+     * Get the metadata of an audio file: size, content type, ETag and last-modified time
+     * @param key The object key
+     * @return the HeadObject response
+     */
+    public HeadObjectResponse headAudioFile(String key) {
+        return headObject(bucketName, key);
+    }
+
+    /**
+     * Get the metadata of an audio file in a series bucket: size, content type, ETag and last-modified time
+     * @param seriesId The series ID
+     * @param fileName The file name/key in the bucket
+     * @return the HeadObject response
+     */
+    public HeadObjectResponse headAudioFileFromSeriesBucket(Long seriesId, String fileName) {
+        return headObject("shiur-series-" + seriesId, fileName);
+    }
+
+    /**
+     * Check whether series audio should be served by redirecting to presigned S3 URLs
+     * @return true if audio.delivery.mode is "redirect"
+     */
+    public boolean isRedirectDelivery() {
+        return redirectDelivery;
+    }
+
+    /**
+     * Get a presigned GET URL for an audio file in a series bucket. URLs are cached and
+     * reused within a fixed window, so all listeners in that window get the same URL
+     * @param seriesId The series ID
+     * @param fileName The file name/key in the bucket
+     * @return the presigned URL and the time until which it may be reused
+     */
+    public PresignedUrl getPresignedSeriesAudioUrl(Long seriesId, String fileName) {
+        String bucket = "shiur-series-" + seriesId;
+        String cacheKey = bucket + "/" + fileName;
+        long window = Instant.now().getEpochSecond() / presignReuseSeconds;
+
+        PresignedUrl cached = presignedUrls.get(cacheKey);
+        if (cached != null && cached.window == window) {
+            return cached;
+        }
+
+        try {
+            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                    .signatureDuration(presignDuration)
+                    .getObjectRequest(GetObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(fileName)
+                            .build())
+                    .build();
+
+            String url = s3Presigner.presignGetObject(presignRequest).url().toString();
+            PresignedUrl presigned = new PresignedUrl(url, window,
+                    Instant.ofEpochSecond((window + 1) * presignReuseSeconds));
+
+            if (presignedUrls.size() >= MAX_PRESIGNED_URLS) {
+                presignedUrls.values().removeIf(entry -> entry.window != window);
+            }
+            presignedUrls.put(cacheKey, presigned);
+            return presigned;
+        } catch (Exception e) {
+            logger.error("Error presigning audio file {}/{}: {}", bucket, fileName, e.getMessage(), e);
+            throw new RuntimeException("Failed to presign audio file: " + fileName, e);
+        }
+    }
+
+    private long getObjectSize(String bucket, String key) {
+        return headObject(bucket, key).contentLength();
+    }
+
+    private HeadObjectResponse headObject(String bucket, String key) {
+        HeadObjectResponse cached = objectHeads.get(bucket + "/" + key);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build();
+
+            HeadObjectResponse response = s3Client.headObject(headObjectRequest);
+            objectHeads.put(bucket + "/" + key, response);
+            return response;
+        } catch (Exception e) {
+            logger.error("Error getting metadata of audio file {}/{}: {}", bucket, key, e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve audio file metadata: " + key, e);
+        }
+    }
+
+    /**
+     * Cache the metadata of an object just written. S3 assigns the last-modified time, so the
+     * entry has none and responses rely on the ETag until the metadata is fetched again
+     */
+    private void rememberObject(String bucket, String key, String eTag, String contentType, long size) {
+        objectHeads.put(bucket + "/" + key, HeadObjectResponse.builder()
+                .eTag(eTag)
+                .contentType(contentType)
+                .contentLength(size)
+                .build());
+        bucketExists.put(bucket, true);
+    }
+
+    /**
+     * Cache the metadata that came with a whole object
+     */
+    private void rememberObject(String bucket, String key, GetObjectResponse object) {
+        objectHeads.put(bucket + "/" + key, HeadObjectResponse.builder()
+                .eTag(object.eTag())
+                .contentType(object.contentType())
+                .contentLength(object.contentLength())
+                .lastModified(object.lastModified())
+                .build());
+    }
+
+    /**
+     * The sorted keys of the audio files in the bucket at one point in time.
+     */
+    private static final class AudioFileIndex {
+        private final List<String> keys;
+
+        private AudioFileIndex(List<String> keys) {
+            this.keys = Collections.unmodifiableList(keys);
+        }
+    }
+
+    /**
+     * One page of audio file keys together with the cursor of the next page.
+     */
+    public static final class AudioFilePage {
+        private final List<String> files;
+        private final String next;
+
+        private AudioFilePage(List<String> files, String next) {
+            this.files = files;
+            this.next = next;
+        }
+
+        /**
+         * Gets the keys of the page.
+         *
+         * @return the keys, in key order
+         */
+        public List<String> getFiles() {
+            return files;
+        }
+
+        /**
+         * Gets the cursor to pass as "after" for the next page.
+         *
+         * @return the last key of this page, or null if this is the last page
+         */
+        public String getNext() {
+            return next;
+        }
+    }
+
+    /**
+     * A presigned URL together with the end of the window in which it is reused.
+     */
+    public static final class PresignedUrl {
+        private final String url;
+        private final long window;
+        private final Instant reuseUntil;
+
+        private PresignedUrl(String url, long window, Instant reuseUntil) {
+            this.url = url;
+            this.window = window;
+            this.reuseUntil = reuseUntil;
+        }
+
+        /**
+         * Gets the presigned URL.
+         *
+         * @return the URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Gets the time after which a fresh URL is signed. The URL itself stays valid longer.
+         *
+         * @return the end of the reuse window
+         */
+        public Instant getReuseUntil() {
+            return reuseUntil;
+        }
+    }
+}
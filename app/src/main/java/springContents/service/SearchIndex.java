@@ -0,0 +1,460 @@
+package springContents.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import springContents.dao.SearchDAO;
+import springContents.model.SearchDocument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory inverted index over all series and recordings.
+ * Indexes recording titles, descriptions and keywords together with the series
+ * description and Rebbi, topic and institution names, so that searches can be
+ * answered from memory instead of scanning the database with LIKE queries.
+ * The index is built in the background at startup and rebuilt after writes and
+ * periodically; until the first build completes {@link #isReady()} returns false
+ * and callers should fall back to SQL. New recordings are normalized once when they
+ * are written and appended to the current snapshot without a full rebuild.
+ */
+@Service
+public class SearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+    private static final int[] EMPTY = new int[0];
+    private static final SearchDocument[] NO_DOCUMENTS = new SearchDocument[0];
+
+    // Appended documents are scanned linearly, so fold them in with a rebuild past this many
+    private static final int MAX_APPENDED_DOCUMENTS = 256;
+
+    private final SearchDAO searchDAO;
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs a new SearchIndex backed by the given SearchDAO.
+     *
+     * @param searchDAO the SearchDAO used to load documents
+     */
+    @Autowired
+    public SearchIndex(SearchDAO searchDAO) {
+        this.searchDAO = searchDAO;
+    }
+
+    /**
+     * Starts building the index once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        queueRefresh();
+    }
+
+    /**
+     * Periodically rebuilds the index to pick up changes made outside the application.
+     */
+    @Scheduled(fixedDelayString = "${search.index.refresh-interval-ms:600000}",
+            initialDelayString = "${search.index.refresh-interval-ms:600000}")
+    public void scheduledRefresh() {
+        queueRefresh();
+    }
+
+    /**
+     * Requests an asynchronous rebuild of the index. If called inside a transaction the
+     * rebuild is deferred until after commit so that it sees the new rows. Multiple
+     * requests made while a rebuild is pending are coalesced into one.
+     */
+    public void requestRefresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queueRefresh();
+                }
+            });
+        } else {
+            queueRefresh();
+        }
+    }
+
+    /**
+     * Adds a newly created recording to the index without rebuilding it. The recording is
+     * loaded and normalized on the refresh thread, after commit if called inside a transaction.
+     * If the index is not built yet the recording is picked up by the first build instead.
+     *
+     * @param recordingId the ID of the new recording
+     */
+    public void indexRecording(Long recordingId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queueAppend(recordingId);
+                }
+            });
+        } else {
+            queueAppend(recordingId);
+        }
+    }
+
+    /**
+     * Adds a newly created recording to the index like {@link #indexRecording(Long)}, but waits
+     * until it is searchable and reports a failure to the caller, which can retry it.
+     *
+     * @param recordingId the ID of the new recording
+     * @throws Exception if the recording could not be loaded into the index
+     */
+    public void indexRecordingAndWait(Long recordingId) throws Exception {
+        try {
+            refreshExecutor.submit(() -> {
+                append(recordingId);
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Checks whether the index has finished its first build and can answer queries.
+     *
+     * @return true if the index is ready
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Gets the number of documents currently indexed.
+     *
+     * @return the document count, or 0 if the index is not ready
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.documents.length + current.appended.length;
+    }
+
+    /**
+     * Finds all documents matching any clause of the parsed query. Documents that
+     * match more clauses are returned first.
+     *
+     * @param parsed the parsed query
+     * @return the matching documents
+     * @throws IllegalStateException if the index is not ready
+     */
+    List<SearchDocument> search(ParsedQuery parsed) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Search index is not ready");
+        }
+        return current.search(parsed);
+    }
+
+    /**
+     * Stops the background refresh thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void queueRefresh() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> {
+                refreshQueued.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    private void queueAppend(Long recordingId) {
+        refreshExecutor.execute(() -> {
+            try {
+                append(recordingId);
+            } catch (Exception e) {
+                logger.error("Failed to index recording {}: {}", recordingId, e.getMessage(), e);
+                queueRefresh();
+            }
+        });
+    }
+
+    /**
+     * Appends a recording to the current snapshot. Runs on the refresh thread only.
+     */
+    private void append(Long recordingId) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        SearchDocument document = searchDAO.getRecordingDocument(recordingId);
+        if (document == null || current.containsRecording(recordingId)) {
+            // Deleted again, or already picked up by a rebuild that ran first
+            return;
+        }
+        document.normalize();
+        snapshot = current.withAppended(document);
+        if (current.appended.length + 1 >= MAX_APPENDED_DOCUMENTS) {
+            queueRefresh();
+        }
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        try {
+            List<SearchDocument> documents = new ArrayList<>(searchDAO.getAllSeriesDocuments());
+            documents.addAll(searchDAO.getAllRecordingDocuments());
+
+            Snapshot built = Snapshot.build(documents);
+            snapshot = built;
+            logger.info("Search index built with {} documents and {} terms in {} ms",
+                    built.documents.length, built.terms.length, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Failed to build search index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Immutable point-in-time view of the index. Replaced wholesale on every rebuild so
+     * readers never observe a partially built index. Documents written since the last
+     * rebuild are kept in a small appended array that is matched by scanning.
+     */
+    private static final class Snapshot {
+        final SearchDocument[] documents;
+        final SearchDocument[] appended;
+        final String[] terms;
+        final int[][] termPostings;
+        final Map<String, int[]> rebbiPostings;
+        final Map<String, int[]> topicPostings;
+        final Map<String, int[]> institutionPostings;
+
+        private Snapshot(SearchDocument[] documents, SearchDocument[] appended, String[] terms,
+                         int[][] termPostings, Map<String, int[]> rebbiPostings,
+                         Map<String, int[]> topicPostings, Map<String, int[]> institutionPostings) {
+            this.documents = documents;
+            this.appended = appended;
+            this.terms = terms;
+            this.termPostings = termPostings;
+            this.rebbiPostings = rebbiPostings;
+            this.topicPostings = topicPostings;
+            this.institutionPostings = institutionPostings;
+        }
+
+        static Snapshot build(List<SearchDocument> documentList) {
+            SearchDocument[] documents = documentList.toArray(new SearchDocument[0]);
+            Map<String, PostingBuilder> termBuilders = new HashMap<>();
+            Map<String, PostingBuilder> rebbiBuilders = new HashMap<>();
+            Map<String, PostingBuilder> topicBuilders = new HashMap<>();
+            Map<String, PostingBuilder> institutionBuilders = new HashMap<>();
+
+            for (int ordinal = 0; ordinal < documents.length; ordinal++) {
+                SearchDocument document = documents[ordinal];
+                document.normalize();
+                for (String token : document.getSearchTokens()) {
+                    termBuilders.computeIfAbsent(token, k -> new PostingBuilder()).add(ordinal);
+                }
+
+                addEntity(rebbiBuilders, document.getNormalizedRebbiName(), ordinal);
+                addEntity(topicBuilders, document.getNormalizedTopicName(), ordinal);
+                addEntity(institutionBuilders, document.getNormalizedInstitutionName(), ordinal);
+            }
+
+            String[] terms = termBuilders.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            int[][] termPostings = new int[terms.length][];
+            for (int i = 0; i < terms.length; i++) {
+                termPostings[i] = termBuilders.get(terms[i]).toArray();
+            }
+
+            return new Snapshot(documents, NO_DOCUMENTS, terms, termPostings,
+                    freeze(rebbiBuilders), freeze(topicBuilders), freeze(institutionBuilders));
+        }
+
+        boolean containsRecording(Long recordingId) {
+            for (SearchDocument[] group : new SearchDocument[][] {documents, appended}) {
+                for (SearchDocument document : group) {
+                    if ("RECORDING".equals(document.getType()) && recordingId.equals(document.getId())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        Snapshot withAppended(SearchDocument document) {
+            SearchDocument[] grown = Arrays.copyOf(appended, appended.length + 1);
+            grown[appended.length] = document;
+            return new Snapshot(documents, grown, terms, termPostings,
+                    rebbiPostings, topicPostings, institutionPostings);
+        }
+
+        List<SearchDocument> search(ParsedQuery parsed) {
+            List<int[]> clauses = new ArrayList<>();
+            for (String keyword : parsed.keywords) {
+                clauses.add(prefixPostings(keyword));
+            }
+            for (String rebbi : parsed.rebbiNames) {
+                clauses.add(rebbiPostings.getOrDefault(rebbi, EMPTY));
+            }
+            for (String topic : parsed.topicNames) {
+                clauses.add(topicPostings.getOrDefault(topic, EMPTY));
+            }
+            for (String institution : parsed.institutionNames) {
+                clauses.add(institutionPostings.getOrDefault(institution, EMPTY));
+            }
+
+            // Merge the clause posting lists, counting how many clauses each document matches
+            int[] ids = EMPTY;
+            int[] counts = EMPTY;
+            for (int[] postings : clauses) {
+                int[] mergedIds = new int[ids.length + postings.length];
+                int[] mergedCounts = new int[mergedIds.length];
+                int i = 0, j = 0, n = 0;
+                while (i < ids.length || j < postings.length) {
+                    if (j == postings.length || (i < ids.length && ids[i] < postings[j])) {
+                        mergedIds[n] = ids[i];
+                        mergedCounts[n++] = counts[i++];
+                    } else if (i == ids.length || postings[j] < ids[i]) {
+                        mergedIds[n] = postings[j++];
+                        mergedCounts[n++] = 1;
+                    } else {
+                        mergedIds[n] = ids[i];
+                        mergedCounts[n++] = counts[i++] + 1;
+                        j++;
+                    }
+                }
+                ids = Arrays.copyOf(mergedIds, n);
+                counts = Arrays.copyOf(mergedCounts, n);
+            }
+
+            int[] appendedCounts = new int[appended.length];
+            for (int a = 0; a < appended.length; a++) {
+                appendedCounts[a] = countMatchedClauses(appended[a], parsed);
+            }
+
+            // Documents in the intersection of all clauses come first
+            List<SearchDocument> matches = new ArrayList<>(ids.length);
+            for (int required = clauses.size(); required > 0; required--) {
+                for (int i = 0; i < ids.length; i++) {
+                    if (counts[i] == required) {
+                        matches.add(documents[ids[i]]);
+                    }
+                }
+                for (int a = 0; a < appended.length; a++) {
+                    if (appendedCounts[a] == required) {
+                        matches.add(appended[a]);
+                    }
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * Counts the clauses an appended document matches, using the same rules as the posting lists.
+         */
+        private static int countMatchedClauses(SearchDocument document, ParsedQuery parsed) {
+            int count = 0;
+            for (String keyword : parsed.keywords) {
+                for (String token : document.getSearchTokens()) {
+                    if (token.startsWith(keyword)) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+            count += parsed.rebbiNames.contains(document.getNormalizedRebbiName()) ? 1 : 0;
+            count += parsed.topicNames.contains(document.getNormalizedTopicName()) ? 1 : 0;
+            count += parsed.institutionNames.contains(document.getNormalizedInstitutionName()) ? 1 : 0;
+            return count;
+        }
+
+        /**
+         * Returns the union of the posting lists of every term starting with the prefix.
+         */
+        private int[] prefixPostings(String prefix) {
+            int from = Arrays.binarySearch(terms, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            int to = from;
+            while (to < terms.length && terms[to].startsWith(prefix)) {
+                to++;
+            }
+            if (to - from == 1) {
+                return termPostings[from];
+            }
+
+            int[] union = EMPTY;
+            for (int t = from; t < to; t++) {
+                int[] postings = termPostings[t];
+                int[] merged = new int[union.length + postings.length];
+                int i = 0, j = 0, n = 0;
+                while (i < union.length || j < postings.length) {
+                    if (j == postings.length || (i < union.length && union[i] < postings[j])) {
+                        merged[n++] = union[i++];
+                    } else if (i == union.length || postings[j] < union[i]) {
+                        merged[n++] = postings[j++];
+                    } else {
+                        merged[n++] = union[i++];
+                        j++;
+                    }
+                }
+                union = Arrays.copyOf(merged, n);
+            }
+            return union;
+        }
+
+        private static void addEntity(Map<String, PostingBuilder> builders, String name, int ordinal) {
+            if (name != null) {
+                builders.computeIfAbsent(name, k -> new PostingBuilder()).add(ordinal);
+            }
+        }
+
+        private static Map<String, int[]> freeze(Map<String, PostingBuilder> builders) {
+            Map<String, int[]> postings = new HashMap<>(builders.size() * 2);
+            builders.forEach((key, builder) -> postings.put(key, builder.toArray()));
+            return postings;
+        }
+    }
+
+    /**
+     * Growable, de-duplicating list of ascending document ordinals.
+     */
+    private static final class PostingBuilder {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && values[size - 1] == ordinal) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = ordinal;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -1,19 +1,44 @@
 package springContents.service;
 
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import springContents.dao.ParticipantApprovalDAO;
 import springContents.dao.SearchDAO;
+import springContents.dao.SearchDictionaryCache;
+import springContents.model.SearchDocument;
+import springContents.model.SearchPage;
 import springContents.model.SearchResult;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
 public class SearchService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
 
     private final SearchDAO searchDAO;
     private final ParticipantApprovalDAO participantApprovalDAO;
+    private final SearchIndex searchIndex;
+    private final SearchDictionaryCache dictionaryCache;
+    private final Object recognizerLock = new Object();
+    private volatile EntityRecognizer entityRecognizer;
+
+    // Independent database lookups of one search run concurrently on virtual threads;
+    // concurrency is bounded by the connection pool
+    private final ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long deadlineMillis;
+    private final boolean sqlOnly;
 
     // Common stop words to filter out
     private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
@@ -23,106 +48,246 @@ public class SearchService {
             "had", "what", "when", "where", "who", "which", "why", "how"
     ));
 
+    // Maximum rows fetched per SQL query when searching the database
+    private static final int SQL_CANDIDATE_LIMIT = 2000;
+
     @Autowired
-    public SearchService(SearchDAO searchDAO, ParticipantApprovalDAO participantApprovalDAO) {
+    public SearchService(SearchDAO searchDAO, ParticipantApprovalDAO participantApprovalDAO,
+                         SearchIndex searchIndex, SearchDictionaryCache dictionaryCache,
+                         @Value("${search.deadline-ms:3000}") long deadlineMillis) {
         this.searchDAO = searchDAO;
         this.participantApprovalDAO = participantApprovalDAO;
+        this.searchIndex = searchIndex;
+        this.dictionaryCache = dictionaryCache;
+        this.deadlineMillis = deadlineMillis;
+        // The FULLTEXT strategy is evaluated on live traffic, so it takes over from the index
+        this.sqlOnly = searchDAO.getStrategy() == SearchDAO.TextMatchStrategy.FULLTEXT;
+        if (sqlOnly) {
+            logger.info("search.sql.strategy is fulltext, searches are answered from the database");
+        }
+    }
+
+    /**
+     * Stops the lookup executor.
+     */
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
     }
 
     /**
-     * Main search method that parses query and returns ranked results
+     * Main search method that parses the query once and returns a ranked page of
+     * results together with the total number of matches.
+     * Candidates are ranked as primitive keys in a bounded heap; SearchResult objects
+     * are only built for the results on the returned page.
+     * The database lookups run concurrently under one deadline. If a lookup misses it,
+     * the search continues without that lookup's data and the page is marked partial.
+     *
+     * @param query the search query
+     * @param userId the searching user's ID
+     * @param page the page number (0-based), used when no cursor is given
+     * @param pageSize the number of results per page
+     * @param cursor the cursor returned with the previous page, or null to page by offset
+     * @return the requested page of results and the total result count
+     * @throws IllegalArgumentException if the cursor is malformed
      */
-    public List<SearchResult> search(String query, Long userId, int page, int pageSize) {
+    public SearchPage search(String query, Long userId, int page, int pageSize, String cursor) {
+        SearchPage searchPage = new SearchPage();
         if (query == null || query.trim().isEmpty()) {
-            return new ArrayList<>();
+            return searchPage;
         }
 
         // Parse the query into different categories
         ParsedQuery parsed = parseQuery(query);
+        String lowerQuery = query.toLowerCase();
 
-        // Search both series and recordings
-        List<SearchResult> seriesResults = searchDAO.searchSeries(
-                parsed.keywords, parsed.rebbiNames, parsed.topicNames,
-                parsed.institutionNames, userId
-        );
-
-        List<SearchResult> recordingResults = searchDAO.searchRecordings(
-                parsed.keywords, parsed.rebbiNames, parsed.topicNames,
-                parsed.institutionNames, userId
-        );
-
-        // Combine and score results
-        List<SearchResult> allResults = new ArrayList<>();
-        allResults.addAll(seriesResults);
-        allResults.addAll(recordingResults);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
 
-        // Check pending applications for series results
-        for (SearchResult result : allResults) {
-            if ("SERIES".equals(result.getType())) {
-                boolean hasPending = participantApprovalDAO.hasPendingApplication(userId, result.getId());
-                result.setHasPendingApplication(hasPending);
-            } else if ("RECORDING".equals(result.getType())) {
-                // For recordings, check if user has pending application to the parent series
-                boolean hasPending = participantApprovalDAO.hasPendingApplication(userId, result.getSeriesId());
-                result.setHasPendingApplication(hasPending);
-            }
+        // Search both series and recordings
+        Candidates candidates = findMatches(parsed, userId, deadline);
+        List<SearchDocument> documents = candidates.documents;
+
+        // Keep only as many of the best candidates as the requested page needs.
+        // Order: access > relevance score, with type and ID as tie-breakers so pages are stable
+        boolean byCursor = cursor != null && !cursor.isBlank();
+        int skip = byCursor ? 0 : (int) Math.min((long) page * pageSize, documents.size());
+        int capacity = (int) Math.min((long) skip + pageSize, documents.size());
+        TopKRanker ranker = new TopKRanker(capacity, byCursor ? decodeCursor(cursor) : null);
+        int[] scores = new int[documents.size()];
+        for (int i = 0; i < documents.size(); i++) {
+            SearchDocument document = documents.get(i);
+            scores[i] = RelevanceScorer.score(document, parsed, lowerQuery);
+            ranker.offer(i, candidates.access[i], scores[i], typeCode(document), document.getId());
         }
 
-        // Calculate relevance scores
-        for (SearchResult result : allResults) {
-            int score = calculateRelevanceScore(result, parsed, query);
-            result.setRelevanceScore(score);
+        // Hydrate only the page
+        int[] ranked = ranker.drainBestFirst();
+        List<SearchResult> pageResults = new ArrayList<>();
+        for (int r = skip; r < ranked.length; r++) {
+            int i = ranked[r];
+            SearchResult result = documents.get(i).toSearchResult(candidates.access[i]);
+            result.setRelevanceScore(scores[i]);
+            pageResults.add(result);
         }
+        markPendingApplications(pageResults, userId);
+        searchPage.setResults(pageResults);
 
-        // Get user's institutions for prioritization
-        List<Long> userInstitutions = searchDAO.getUserInstitutions(userId);
+        if (!pageResults.isEmpty() && ranker.offered() > skip + pageResults.size()) {
+            searchPage.setNextCursor(encodeCursor(pageResults.get(pageResults.size() - 1)));
+        }
+        searchPage.setTotalResults(documents.size());
+        searchPage.setTotalApproximate(candidates.truncated);
+        searchPage.setPartial(candidates.partial);
+        return searchPage;
+    }
 
-        // Sort by: access > user's institutions > relevance score
-        allResults.sort((a, b) -> {
-            // First priority: has access
-            if (a.isHasAccess() != b.isHasAccess()) {
-                return a.isHasAccess() ? -1 : 1;
+    /**
+     * Find all series and recordings matching the parsed query.
+     * Answered from the in-memory index when it is ready, otherwise from SQL.
+     * With search.sql.strategy=fulltext every search is answered from SQL.
+     */
+    private Candidates findMatches(ParsedQuery parsed, Long userId, long deadline) {
+        if (!sqlOnly && searchIndex.isReady()) {
+            // Look up access while the index is searched on this thread
+            Future<Set<Long>> accessLookup = lookupExecutor.submit(() -> searchDAO.getParticipantSeriesIds(userId));
+            List<SearchDocument> documents = searchIndex.search(parsed);
+            Set<Long> accessibleSeries = await(accessLookup, deadline, "participant series");
+            boolean partial = accessibleSeries == null;
+            if (partial) {
+                // Without the participant list, show everything as not yet accessible
+                accessibleSeries = Collections.emptySet();
             }
+            boolean[] access = new boolean[documents.size()];
+            for (int i = 0; i < access.length; i++) {
+                access[i] = accessibleSeries.contains(documents.get(i).getSeriesId());
+            }
+            return new Candidates(documents, access, false, partial);
+        }
 
-            // Second priority: user's institutions (if we had inst_id in SearchResult)
-            // For now, we can check by institution name if needed
-
-            // Third priority: relevance score
-            return Integer.compare(b.getRelevanceScore(), a.getRelevanceScore());
-        });
+        // Index is still warming up or bypassed, search the database with a cap on rows per query.
+        // If a cap is reached the total becomes a lower bound.
+        Future<List<SearchResult>> seriesLookup = lookupExecutor.submit(() -> searchDAO.searchSeries(
+                parsed.keywords, parsed.rebbiNames, parsed.topicNames,
+                parsed.institutionNames, userId, SQL_CANDIDATE_LIMIT
+        ));
+        Future<List<SearchResult>> recordingLookup = lookupExecutor.submit(() -> searchDAO.searchRecordings(
+                parsed.keywords, parsed.rebbiNames, parsed.topicNames,
+                parsed.institutionNames, userId, SQL_CANDIDATE_LIMIT
+        ));
+        List<SearchResult> seriesResults = await(seriesLookup, deadline, "series search");
+        List<SearchResult> recordingResults = await(recordingLookup, deadline, "recording search");
+        boolean partial = seriesResults == null || recordingResults == null;
+        if (seriesResults == null) {
+            seriesResults = Collections.emptyList();
+        }
+        if (recordingResults == null) {
+            recordingResults = Collections.emptyList();
+        }
 
-        // Apply pagination
-        int start = page * pageSize;
-        int end = Math.min(start + pageSize, allResults.size());
+        List<SearchResult> allResults = new ArrayList<>(seriesResults);
+        allResults.addAll(recordingResults);
 
-        if (start >= allResults.size()) {
-            return new ArrayList<>();
+        List<SearchDocument> documents = new ArrayList<>(allResults.size());
+        boolean[] access = new boolean[allResults.size()];
+        for (int i = 0; i < allResults.size(); i++) {
+            SearchResult result = allResults.get(i);
+            SearchDocument document = new SearchDocument();
+            document.setType(result.getType());
+            document.setId(result.getId());
+            document.setSeriesId("SERIES".equals(result.getType()) ? result.getId() : result.getSeriesId());
+            document.setTitle(result.getTitle());
+            document.setDescription(result.getDescription());
+            document.setRecordedAt(result.getRecordedAt());
+            document.setRebbiName(result.getRebbiName());
+            document.setTopicName(result.getTopicName());
+            document.setInstitutionName(result.getInstitutionName());
+            document.setEngineScore(result.getRelevanceScore());
+            document.normalize();
+            documents.add(document);
+            access[i] = result.isHasAccess();
         }
+        // A capped or missing branch makes the total a lower bound
+        boolean truncated = partial || seriesResults.size() >= SQL_CANDIDATE_LIMIT
+                || recordingResults.size() >= SQL_CANDIDATE_LIMIT;
+        return new Candidates(documents, access, truncated, partial);
+    }
 
-        return allResults.subList(start, end);
+    /**
+     * Wait for a lookup until the search deadline. Returns null and cancels the lookup if
+     * it does not finish in time; failures of the lookup itself are rethrown.
+     */
+    private <T> T await(Future<T> lookup, long deadline, String name) {
+        try {
+            return lookup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            lookup.cancel(true);
+            logger.warn("Search lookup '{}' missed the {} ms deadline, returning partial results", name, deadlineMillis);
+            return null;
+        } catch (InterruptedException e) {
+            lookup.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Search interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Error during search lookup '" + name + "'", cause);
+        }
     }
 
     /**
-     * Get total count of results for pagination
+     * Flag results whose series the user has a pending application for, using one query for the page.
+     * Pending status does not affect ranking, so only the returned page is checked.
      */
-    public int getTotalResults(String query, Long userId) {
-        if (query == null || query.trim().isEmpty()) {
-            return 0;
+    private void markPendingApplications(List<SearchResult> results, Long userId) {
+        Set<Long> seriesIds = new HashSet<>();
+        for (SearchResult result : results) {
+            // For recordings, check the parent series
+            seriesIds.add("SERIES".equals(result.getType()) ? result.getId() : result.getSeriesId());
         }
 
-        ParsedQuery parsed = parseQuery(query);
+        Set<Long> pendingSeries = participantApprovalDAO.getPendingSeriesIds(userId, seriesIds);
+        for (SearchResult result : results) {
+            Long seriesId = "SERIES".equals(result.getType()) ? result.getId() : result.getSeriesId();
+            result.setHasPendingApplication(pendingSeries.contains(seriesId));
+        }
+    }
 
-        List<SearchResult> seriesResults = searchDAO.searchSeries(
-                parsed.keywords, parsed.rebbiNames, parsed.topicNames,
-                parsed.institutionNames, userId
-        );
+    /**
+     * Rank code for a result type: recordings sort before series on ties
+     */
+    private static int typeCode(SearchDocument document) {
+        return "SERIES".equals(document.getType()) ? 1 : 0;
+    }
 
-        List<SearchResult> recordingResults = searchDAO.searchRecordings(
-                parsed.keywords, parsed.rebbiNames, parsed.topicNames,
-                parsed.institutionNames, userId
-        );
+    /**
+     * Encode the sort key of a result as an opaque cursor string
+     */
+    private String encodeCursor(SearchResult last) {
+        String key = (last.isHasAccess() ? "1" : "0") + ":" + last.getRelevanceScore() + ":" +
+                last.getType() + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
 
-        return seriesResults.size() + recordingResults.size();
+    /**
+     * Decode a cursor string back into a sort key
+     */
+    private TopKRanker.CursorKey decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = key.split(":");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            return new TopKRanker.CursorKey(
+                    "1".equals(parts[0]),
+                    Integer.parseInt(parts[1]),
+                    "SERIES".equals(parts[2]) ? 1 : 0,
+                    Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
     }
 
     /**
@@ -131,33 +296,8 @@ public class SearchService {
     private ParsedQuery parseQuery(String query) {
         ParsedQuery parsed = new ParsedQuery();
 
-        // Get all known rebbeim, topics, and institutions from database
-        List<String> allRebbeim = searchDAO.getAllRebbiNames();
-        List<String> allTopics = searchDAO.getAllTopicNames();
-        List<String> allInstitutions = searchDAO.getAllInstitutionNames();
-
-        String lowerQuery = query.toLowerCase();
-
-        // Extract rebbi names
-        for (String rebbi : allRebbeim) {
-            if (lowerQuery.contains(rebbi)) {
-                parsed.rebbiNames.add(rebbi);
-            }
-        }
-
-        // Extract topic names
-        for (String topic : allTopics) {
-            if (lowerQuery.contains(topic.toLowerCase())) {
-                parsed.topicNames.add(topic);
-            }
-        }
-
-        // Extract institution names
-        for (String institution : allInstitutions) {
-            if (lowerQuery.contains(institution.toLowerCase())) {
-                parsed.institutionNames.add(institution);
-            }
-        }
+        // Recognize known rebbeim, topics, and institutions in a single pass
+        recognizer().recognize(query, parsed);
 
         // Extract keywords (non-stop words)
         String[] words = query.toLowerCase().split("\\s+");
@@ -204,100 +344,41 @@ public class SearchService {
     }
 
     /**
-     * Calculate relevance score for a result
+     * Get the entity recognizer for the current dictionaries, rebuilding it if the
+     * dictionaries have changed since it was built
      */
-    private int calculateRelevanceScore(SearchResult result, ParsedQuery parsed, String originalQuery) {
-        int score = 0;
-        String lowerQuery = originalQuery.toLowerCase();
-
-        // Exact title match (highest priority)
-        if (result.getTitle() != null && result.getTitle().toLowerCase().equals(lowerQuery)) {
-            score += 100;
-        }
-
-        // Title contains query
-        if (result.getTitle() != null && result.getTitle().toLowerCase().contains(lowerQuery)) {
-            score += 50;
+    private EntityRecognizer recognizer() {
+        SearchDictionaryCache.Dictionaries dictionaries = dictionaryCache.get();
+        EntityRecognizer current = entityRecognizer;
+        if (current != null && current.getVersion() == dictionaries.getVersion()) {
+            return current;
         }
-
-        // Rebbi match
-        if (result.getRebbiName() != null) {
-            String rebbiLower = result.getRebbiName().toLowerCase();
-            for (String rebbi : parsed.rebbiNames) {
-                if (rebbiLower.contains(rebbi)) {
-                    score += 30;
-                }
+        synchronized (recognizerLock) {
+            current = entityRecognizer;
+            if (current == null || current.getVersion() != dictionaries.getVersion()) {
+                current = EntityRecognizer.build(dictionaries.getVersion(), dictionaries.getRebbiNames(),
+                        dictionaries.getTopicNames(), dictionaries.getInstitutionNames());
+                entityRecognizer = current;
             }
+            return current;
         }
-
-        // Topic match
-        if (result.getTopicName() != null) {
-            String topicLower = result.getTopicName().toLowerCase();
-            for (String topic : parsed.topicNames) {
-                if (topicLower.equalsIgnoreCase(topic)) {
-                    score += 30;
-                }
-            }
-        }
-
-        // Institution match
-        if (result.getInstitutionName() != null) {
-            String instLower = result.getInstitutionName().toLowerCase();
-            for (String inst : parsed.institutionNames) {
-                if (instLower.equalsIgnoreCase(inst)) {
-                    score += 20;
-                }
-            }
-        }
-
-        // Keyword matches in title
-        if (result.getTitle() != null) {
-            String titleLower = result.getTitle().toLowerCase();
-            for (String keyword : parsed.keywords) {
-                if (titleLower.contains(keyword)) {
-                    score += 15;
-                }
-            }
-        }
-
-        // Keyword matches in description
-        if (result.getDescription() != null) {
-            String descLower = result.getDescription().toLowerCase();
-            for (String keyword : parsed.keywords) {
-                if (descLower.contains(keyword)) {
-                    score += 10;
-                }
-            }
-        }
-
-        // Multiple keyword matches (bonus for relevance)
-        int keywordMatchCount = 0;
-        if (result.getTitle() != null) {
-            for (String keyword : parsed.keywords) {
-                if (result.getTitle().toLowerCase().contains(keyword)) {
-                    keywordMatchCount++;
-                }
-            }
-        }
-        if (result.getDescription() != null) {
-            for (String keyword : parsed.keywords) {
-                if (result.getDescription().toLowerCase().contains(keyword)) {
-                    keywordMatchCount++;
-                }
-            }
-        }
-        score += keywordMatchCount * 5;
-
-        return score;
     }
 
     /**
-     * Inner class to hold parsed query components
+     * Candidate documents with the user's access flag for each, whether the set was cut off,
+     * and whether a lookup missed the deadline
      */
-    private static class ParsedQuery {
-        Set<String> keywords = new HashSet<>();
-        Set<String> rebbiNames = new HashSet<>();
-        Set<String> topicNames = new HashSet<>();
-        Set<String> institutionNames = new HashSet<>();
+    private static class Candidates {
+        final List<SearchDocument> documents;
+        final boolean[] access;
+        final boolean truncated;
+        final boolean partial;
+
+        Candidates(List<SearchDocument> documents, boolean[] access, boolean truncated, boolean partial) {
+            this.documents = documents;
+            this.access = access;
+            this.truncated = truncated;
+            this.partial = partial;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package springContents.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import springContents.dao.SeriesTeardownDAO;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes the S3 bucket of a deleted series in the background. A series with thousands of
+ * recordings, renditions, HLS segments and waveform sidecars takes a while to empty, so the
+ * request that deletes the series only queues the teardown in the series_teardowns table, and
+ * whoever started it can poll its progress. A scheduled poller claims queued teardowns and
+ * runs them one at a time through a {@link LeasedJobRunner}, so they are leased and retried
+ * like recording jobs; after series.teardown.max-attempts a teardown is left in the DEAD
+ * status with its bucket behind. A retry picks up with whatever the bucket still holds. The
+ * number of objects deleted is saved each time the lease is renewed.
+ */
+@Service
+public class SeriesTeardownService {
+    private static final Logger logger = LoggerFactory.getLogger(SeriesTeardownService.class);
+
+    private final SeriesTeardownDAO seriesTeardownDAO;
+    private final S3Service s3Service;
+    private final LeasedJobRunner jobRunner;
+    private final ExecutorService teardownExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "series-teardown");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Semaphore idle = new Semaphore(1);
+    // Objects deleted over all attempts, by the series this instance is tearing down
+    private final Map<Long, AtomicLong> running = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new SeriesTeardownService.
+     *
+     * @param seriesTeardownDAO the DAO holding the teardown queue
+     * @param s3Service the S3Service holding the series buckets
+     * @param maxAttempts the attempts after which a teardown is dead
+     * @param retryDelaySeconds the delay before the first retry, doubled for each further attempt
+     * @param leaseMinutes how long a teardown may go without a lease renewal before another worker may take it over
+     */
+    @Autowired
+    public SeriesTeardownService(SeriesTeardownDAO seriesTeardownDAO,
+                                 S3Service s3Service,
+                                 @Value("${series.teardown.max-attempts:8}") int maxAttempts,
+                                 @Value("${series.teardown.retry-delay-seconds:60}") long retryDelaySeconds,
+                                 @Value("${series.teardown.lease-minutes:5}") long leaseMinutes) {
+        this.seriesTeardownDAO = seriesTeardownDAO;
+        this.s3Service = s3Service;
+        this.jobRunner = new LeasedJobRunner(seriesTeardownDAO, "series teardowns", maxAttempts, retryDelaySeconds,
+                TimeUnit.MINUTES.toSeconds(Math.max(1, leaseMinutes)));
+    }
+
+    /**
+     * Queues the removal of a series bucket. The teardown is stored before this returns, so
+     * it is carried out even if this instance stops, and starts on the next poll.
+     *
+     * @param seriesId the ID of the deleted series
+     * @param userId the ID of the user who deleted it, who may poll the progress
+     * @throws RuntimeException if the teardown could not be queued
+     */
+    public void start(Long seriesId, Long userId) {
+        seriesTeardownDAO.enqueue(seriesId, userId);
+    }
+
+    /**
+     * Gets the progress of a series teardown.
+     *
+     * @param seriesId the ID of the deleted series
+     * @param userId the ID of the user asking
+     * @return the status (PENDING, RUNNING, SUCCEEDED or DEAD), attempts, objectsDeleted,
+     *         queuedAt, updatedAt, nextRunAt and error, or null if there is no teardown of the
+     *         series started by this user
+     */
+    public Map<String, Object> getProgress(Long seriesId, Long userId) {
+        Map<String, Object> progress = seriesTeardownDAO.getTeardown(seriesId, userId);
+        if (progress != null) {
+            // The stored count lags behind a teardown this instance is running
+            AtomicLong objectsDeleted = running.get(seriesId);
+            if (objectsDeleted != null) {
+                progress.put("objectsDeleted", objectsDeleted.get());
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Claims a due teardown when the teardown thread is idle and starts it.
+     */
+    @Scheduled(fixedDelayString = "${series.teardown.poll-interval-ms:5000}",
+            initialDelayString = "${series.teardown.poll-interval-ms:5000}")
+    public void pollTeardowns() {
+        if (!idle.tryAcquire()) {
+            return;
+        }
+        boolean started = false;
+        try {
+            for (Map<String, Object> teardown : seriesTeardownDAO.claimDueTeardowns(jobRunner.getWorkerId(), 1)) {
+                teardownExecutor.execute(() -> {
+                    try {
+                        run(teardown);
+                    } finally {
+                        idle.release();
+                    }
+                });
+                started = true;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to claim series teardowns: {}", e.getMessage(), e);
+        } finally {
+            if (!started) {
+                idle.release();
+            }
+        }
+    }
+
+    /**
+     * Renews the lease of the teardown this instance is running and saves its progress.
+     */
+    @Scheduled(fixedDelayString = "${series.teardown.lease-renew-interval-ms:10000}",
+            initialDelayString = "${series.teardown.lease-renew-interval-ms:10000}")
+    public void renewLeases() {
+        jobRunner.renewLeases();
+        running.forEach(this::saveProgress);
+    }
+
+    /**
+     * Periodically releases teardowns held past their lease by workers that are gone.
+     */
+    @Scheduled(fixedDelayString = "${series.teardown.lease-check-interval-ms:60000}",
+            initialDelayString = "${series.teardown.lease-check-interval-ms:60000}")
+    public void releaseExpiredTeardowns() {
+        jobRunner.releaseExpiredJobs();
+    }
+
+    /**
+     * Stops the teardown thread. A teardown cut short is taken over by another instance once
+     * its lease expires, and carries on with the objects left in the bucket.
+     */
+    @PreDestroy
+    public void shutdown() {
+        teardownExecutor.shutdownNow();
+    }
+
+    private void run(Map<String, Object> teardown) {
+        Long seriesId = (Long) teardown.get("seriesId");
+        int attempts = (Integer) teardown.get("attempts");
+        AtomicLong objectsDeleted = new AtomicLong((Long) teardown.get("objectsDeleted"));
+
+        running.put(seriesId, objectsDeleted);
+        try {
+            jobRunner.run(seriesId, attempts, "Teardown of series " + seriesId, () -> {
+                long start = System.nanoTime();
+                try {
+                    s3Service.deleteSeriesBucket(seriesId, objectsDeleted::addAndGet);
+                } finally {
+                    saveProgress(seriesId, objectsDeleted);
+                }
+                logger.info("Deleted S3 bucket for series {} ({} objects) in {} ms", seriesId,
+                        objectsDeleted.get(), (System.nanoTime() - start) / 1_000_000);
+            });
+        } finally {
+            running.remove(seriesId);
+        }
+    }
+
+    private void saveProgress(Long seriesId, AtomicLong objectsDeleted) {
+        try {
+            seriesTeardownDAO.saveProgress(seriesId, jobRunner.getWorkerId(), objectsDeleted.get());
+        } catch (Exception e) {
+            logger.error("Failed to save the progress of the teardown of series {}: {}",
+                    seriesId, e.getMessage(), e);
+        }
+    }
+}
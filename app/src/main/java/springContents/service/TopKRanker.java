@@ -0,0 +1,192 @@
+package springContents.service;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the best K search candidates in a bounded binary heap of primitive sort keys.
+ * Candidates are identified by an int handle chosen by the caller, so no result objects
+ * are created while ranking; only the candidates that make the final page need to be
+ * turned into SearchResult objects afterwards.
+ * <p>
+ * Order: accessible first, then higher score, then recordings before series, then
+ * higher ID. An optional cursor key drops every candidate that does not rank after it.
+ */
+final class TopKRanker {
+    private final int capacity;
+    private final boolean hasCursor;
+    private final long cursorPrimary;
+    private final int cursorType;
+    private final long cursorId;
+
+    // Heap slots; slot 0 holds the worst kept candidate
+    private int[] handles;
+    private long[] primaries;
+    private int[] types;
+    private long[] ids;
+    private int size;
+    private int offered;
+
+    /**
+     * Creates a ranker that keeps at most capacity candidates.
+     *
+     * @param capacity the number of best candidates to keep
+     * @param cursor the cursor key to resume after, or null to rank from the top
+     */
+    TopKRanker(int capacity, CursorKey cursor) {
+        this.capacity = Math.max(capacity, 0);
+        this.hasCursor = cursor != null;
+        this.cursorPrimary = cursor != null ? primary(cursor.hasAccess, cursor.score) : 0;
+        this.cursorType = cursor != null ? cursor.type : 0;
+        this.cursorId = cursor != null ? cursor.id : 0;
+        // Start small and grow so a large page offset with few matches stays cheap
+        int slots = Math.min(this.capacity, 64);
+        this.handles = new int[slots];
+        this.primaries = new long[slots];
+        this.types = new int[slots];
+        this.ids = new long[slots];
+    }
+
+    /**
+     * Offers a candidate to the ranker.
+     *
+     * @param handle the caller's handle for the candidate
+     * @param hasAccess whether the user has access to the candidate
+     * @param score the relevance score (non-negative)
+     * @param type 0 for a recording, 1 for a series
+     * @param id the candidate's ID
+     */
+    void offer(int handle, boolean hasAccess, int score, int type, long id) {
+        long primary = primary(hasAccess, score);
+        if (hasCursor && !ranksBefore(cursorPrimary, cursorType, cursorId, primary, type, id)) {
+            return;
+        }
+        offered++;
+        if (capacity == 0) {
+            return;
+        }
+
+        if (size < capacity) {
+            ensureSlots(size + 1);
+            set(size, handle, primary, type, id);
+            siftUp(size++);
+        } else if (ranksBefore(primary, type, id, primaries[0], types[0], ids[0])) {
+            set(0, handle, primary, type, id);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Gets the number of candidates offered that rank after the cursor (all of them without a cursor).
+     *
+     * @return the number of eligible candidates seen
+     */
+    int offered() {
+        return offered;
+    }
+
+    /**
+     * Removes the kept candidates and returns their handles, best first.
+     *
+     * @return the candidate handles in rank order
+     */
+    int[] drainBestFirst() {
+        int[] ordered = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            ordered[i] = handles[0];
+            size--;
+            if (size > 0) {
+                set(0, handles[size], primaries[size], types[size], ids[size]);
+                siftDown(0);
+            }
+        }
+        return ordered;
+    }
+
+    private static long primary(boolean hasAccess, int score) {
+        return ((hasAccess ? 1L : 0L) << 32) | (score & 0xFFFFFFFFL);
+    }
+
+    private static boolean ranksBefore(long primaryA, int typeA, long idA, long primaryB, int typeB, long idB) {
+        if (primaryA != primaryB) {
+            return primaryA > primaryB;
+        }
+        if (typeA != typeB) {
+            return typeA < typeB;
+        }
+        return idA > idB;
+    }
+
+    private boolean worse(int a, int b) {
+        return ranksBefore(primaries[b], types[b], ids[b], primaries[a], types[a], ids[a]);
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!worse(slot, parent)) {
+                break;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int left = 2 * slot + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int worst = right < size && worse(right, left) ? right : left;
+            if (!worse(worst, slot)) {
+                break;
+            }
+            swap(slot, worst);
+            slot = worst;
+        }
+    }
+
+    private void set(int slot, int handle, long primary, int type, long id) {
+        handles[slot] = handle;
+        primaries[slot] = primary;
+        types[slot] = type;
+        ids[slot] = id;
+    }
+
+    private void swap(int a, int b) {
+        int handle = handles[a];
+        long primary = primaries[a];
+        int type = types[a];
+        long id = ids[a];
+        set(a, handles[b], primaries[b], types[b], ids[b]);
+        set(b, handle, primary, type, id);
+    }
+
+    private void ensureSlots(int needed) {
+        if (needed > handles.length) {
+            int slots = (int) Math.min((long) capacity, Math.max(needed, handles.length * 2L));
+            handles = Arrays.copyOf(handles, slots);
+            primaries = Arrays.copyOf(primaries, slots);
+            types = Arrays.copyOf(types, slots);
+            ids = Arrays.copyOf(ids, slots);
+        }
+    }
+
+    /**
+     * Sort key of the last result on a page, used to resume ranking after it.
+     */
+    static final class CursorKey {
+        final boolean hasAccess;
+        final int score;
+        final int type;
+        final long id;
+
+        CursorKey(boolean hasAccess, int score, int type, long id) {
+            this.hasAccess = hasAccess;
+            this.score = score;
+            this.type = type;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package springContents.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Creates low-bitrate streaming renditions of recordings. Rebbeim often upload 320 kbps MP3s
+ * or uncompressed WAV, which is far more than speech needs on a phone, so each recording is
+ * re-encoded with the locally installed ffmpeg to mono Opus tuned for speech and stored next
+ * to the original as "&lt;key&gt;.opus". The original is kept for download.
+ *
+ * Recordings are also packaged for HLS: AAC segments of a fixed duration and a VOD
+ * playlist, stored under "&lt;key&gt;/hls/", so players fetch only the part being listened to.
+ *
+ * Encoding is CPU-heavy, so at most transcode.max-concurrent encoders run at once no matter
+ * how many job workers are busy.
+ *
+ * Both need ffmpeg, which is checked once at startup; without it both are turned off with a
+ * single warning, so their jobs finish without output instead of failing until they are dead.
+ * The original is read through the {@link AudioFileCache}, so the stages of one recording
+ * download it from S3 only once.
+ */
+@Service
+public class TranscodeService {
+    private static final Logger logger = LoggerFactory.getLogger(TranscodeService.class);
+    private static final String RENDITION_SUFFIX = ".opus";
+    private static final String RENDITION_CONTENT_TYPE = "audio/ogg";
+    private static final String HLS_PREFIX = "/hls/";
+    public static final String HLS_PLAYLIST = "playlist.m3u8";
+    private static final String HLS_PLAYLIST_CONTENT_TYPE = "application/vnd.apple.mpegurl";
+    private static final String HLS_SEGMENT_CONTENT_TYPE = "video/mp2t";
+    // A rendition that saves less than this is not worth serving instead of the original
+    private static final double MAX_SIZE_RATIO = 0.8;
+    private static final int LOG_TAIL_CHARS = 500;
+    private static final long FFMPEG_CHECK_TIMEOUT_SECONDS = 10;
+
+    private final S3Service s3Service;
+    private final AudioFileCache audioFileCache;
+    private final boolean enabled;
+    private final String ffmpegPath;
+    private final int bitrateKbps;
+    private final long timeoutMinutes;
+    private final boolean hlsEnabled;
+    private final int hlsSegmentSeconds;
+    private final int hlsBitrateKbps;
+    private final Semaphore encoders;
+
+    /**
+     * Constructs a new TranscodeService.
+     *
+     * @param s3Service the S3Service holding the recordings and their renditions
+     * @param audioFileCache the local disk cache the originals are read through
+     * @param enabled whether renditions are created at all
+     * @param ffmpegPath the ffmpeg executable
+     * @param bitrateKbps the Opus bitrate of the renditions
+     * @param maxConcurrent the most encoders run at once
+     * @param timeoutMinutes how long one encode may take before it is killed
+     * @param hlsEnabled whether recordings are packaged for HLS
+     * @param hlsSegmentSeconds the duration of each HLS segment
+     * @param hlsBitrateKbps the AAC bitrate of the HLS segments
+     */
+    @Autowired
+    public TranscodeService(S3Service s3Service,
+                            AudioFileCache audioFileCache,
+                            @Value("${transcode.enabled:true}") boolean enabled,
+                            @Value("${transcode.ffmpeg-path:ffmpeg}") String ffmpegPath,
+                            @Value("${transcode.bitrate-kbps:40}") int bitrateKbps,
+                            @Value("${transcode.max-concurrent:1}") int maxConcurrent,
+                            @Value("${transcode.timeout-minutes:30}") long timeoutMinutes,
+                            @Value("${hls.enabled:true}") boolean hlsEnabled,
+                            @Value("${hls.segment-seconds:10}") int hlsSegmentSeconds,
+                            @Value("${hls.bitrate-kbps:48}") int hlsBitrateKbps) {
+        this.s3Service = s3Service;
+        this.audioFileCache = audioFileCache;
+        this.ffmpegPath = ffmpegPath;
+        boolean ffmpegFound = (enabled || hlsEnabled) && isFfmpegAvailable(ffmpegPath);
+        if ((enabled || hlsEnabled) && !ffmpegFound) {
+            logger.warn("ffmpeg not found at '{}', streaming renditions and HLS packaging are disabled", ffmpegPath);
+        }
+        this.enabled = enabled && ffmpegFound;
+        this.bitrateKbps = Math.max(6, bitrateKbps);
+        this.timeoutMinutes = Math.max(1, timeoutMinutes);
+        this.hlsEnabled = hlsEnabled && ffmpegFound;
+        this.hlsSegmentSeconds = Math.max(1, hlsSegmentSeconds);
+        this.hlsBitrateKbps = Math.max(8, hlsBitrateKbps);
+        this.encoders = new Semaphore(Math.max(1, maxConcurrent), true);
+    }
+
+    /**
+     * Gets the key of the streaming rendition of a recording.
+     *
+     * @param audioKey the key of the recording's original file
+     * @return the rendition key
+     */
+    public static String renditionKey(String audioKey) {
+        return audioKey + RENDITION_SUFFIX;
+    }
+
+    /**
+     * Gets the key prefix under which the HLS playlist and segments of a recording are stored.
+     *
+     * @param audioKey the key of the recording's original file
+     * @return the prefix, ending in a slash
+     */
+    public static String hlsPrefix(String audioKey) {
+        return audioKey + HLS_PREFIX;
+    }
+
+    /**
+     * Transcodes a recording and stores the rendition in the series bucket.
+     *
+     * @param seriesId the series ID
+     * @param key the key of the original audio file in the series bucket
+     * @return the rendition key, or null if transcoding is disabled or the rendition would not be
+     *         meaningfully smaller than the original
+     * @throws IOException if the original cannot be read or the encoder fails
+     * @throws InterruptedException if interrupted while waiting for an encoder
+     */
+    public String transcode(Long seriesId, String key) throws IOException, InterruptedException {
+        if (!enabled) {
+            return null;
+        }
+
+        return withEncoder(workDir -> transcode(seriesId, key, workDir));
+    }
+
+    /**
+     * Packages a recording for HLS and stores the segments and playlist in the series bucket.
+     * The playlist is stored last, so once it exists all of its segments do too.
+     *
+     * @param seriesId the series ID
+     * @param key the key of the original audio file in the series bucket
+     * @return the playlist key, or null if HLS packaging is disabled
+     * @throws IOException if the original cannot be read or the encoder fails
+     * @throws InterruptedException if interrupted while waiting for an encoder
+     */
+    public String packageHls(Long seriesId, String key) throws IOException, InterruptedException {
+        if (!hlsEnabled) {
+            return null;
+        }
+        return withEncoder(workDir -> packageHls(seriesId, key, workDir));
+    }
+
+    /**
+     * Runs a task holding an encoder permit and a scratch directory, which is deleted afterwards.
+     */
+    private String withEncoder(EncoderTask task) throws IOException, InterruptedException {
+        encoders.acquire();
+        try {
+            Path workDir = Files.createTempDirectory("transcode-");
+            try {
+                return task.run(workDir);
+            } finally {
+                deleteQuietly(workDir);
+            }
+        } finally {
+            encoders.release();
+        }
+    }
+
+    private String transcode(Long seriesId, String key, Path workDir) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Path input = workDir.resolve("original");
+        Path output = workDir.resolve("rendition" + RENDITION_SUFFIX);
+        download(seriesId, key, input);
+        runFfmpeg(workDir.resolve("ffmpeg.log"), "-i", input.toString(), "-vn", "-ac", "1",
+                "-c:a", "libopus", "-b:a", bitrateKbps + "k", "-application", "voip",
+                "-f", "ogg", output.toString());
+
+        long originalSize = Files.size(input);
+        long renditionSize = Files.size(output);
+        if (renditionSize > originalSize * MAX_SIZE_RATIO) {
+            logger.info("Keeping original of {}/{}: rendition is {} bytes against {}",
+                    seriesId, key, renditionSize, originalSize);
+            return null;
+        }
+
+        String renditionKey = renditionKey(key);
+        s3Service.putSeriesObject(seriesId, renditionKey, output, RENDITION_CONTENT_TYPE);
+        logger.info("Transcoded {}/{} from {} to {} bytes in {} ms", seriesId, key, originalSize,
+                renditionSize, (System.nanoTime() - start) / 1_000_000);
+        return renditionKey;
+    }
+
+    private String packageHls(Long seriesId, String key, Path workDir) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Path input = workDir.resolve("original");
+        Path hlsDir = Files.createDirectory(workDir.resolve("hls"));
+        download(seriesId, key, input);
+        runFfmpeg(workDir.resolve("ffmpeg.log"), "-i", input.toString(), "-vn", "-ac", "1",
+                "-c:a", "aac", "-b:a", hlsBitrateKbps + "k",
+                "-f", "hls", "-hls_time", String.valueOf(hlsSegmentSeconds), "-hls_playlist_type", "vod",
+                "-hls_segment_filename", hlsDir.resolve("segment%05d.ts").toString(),
+                hlsDir.resolve(HLS_PLAYLIST).toString());
+
+        String prefix = hlsPrefix(key);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(hlsDir)) {
+            segments = files.filter(file -> file.getFileName().toString().endsWith(".ts")).sorted().toList();
+        }
+        for (Path segment : segments) {
+            s3Service.putSeriesObject(seriesId, prefix + segment.getFileName(), segment, HLS_SEGMENT_CONTENT_TYPE);
+        }
+        String playlistKey = prefix + HLS_PLAYLIST;
+        s3Service.putSeriesObject(seriesId, playlistKey, hlsDir.resolve(HLS_PLAYLIST), HLS_PLAYLIST_CONTENT_TYPE);
+        logger.info("Packaged {}/{} for HLS as {} segments in {} ms", seriesId, key, segments.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return playlistKey;
+    }
+
+    /**
+     * Copies the original to the scratch directory from the audio cache, or from S3 while
+     * caching it for the next stage.
+     */
+    private void download(Long seriesId, String key, Path target) throws IOException {
+        String cacheKey = AudioFileCache.seriesKey(seriesId, key);
+        try (AudioFileCache.CachedAudio cached = audioFileCache.open(cacheKey)) {
+            if (cached != null) {
+                try (FileChannel out = FileChannel.open(target,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    cached.transferTo(0, cached.size(), out);
+                }
+                return;
+            }
+        }
+
+        try (ResponseInputStream<GetObjectResponse> in = s3Service.getAudioFileFromSeriesBucket(seriesId, key);
+             OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW)) {
+            GetObjectResponse object = in.response();
+            Long length = object.contentLength();
+            AudioFileCache.Fill fill = length != null
+                    ? audioFileCache.startFill(cacheKey, length, object.eTag(), object.lastModified())
+                    : null;
+            try {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                    if (fill != null) {
+                        fill.write(buffer, 0, read);
+                    }
+                }
+                if (fill != null) {
+                    fill.commit();
+                }
+            } finally {
+                if (fill != null) {
+                    // A no-op after commit
+                    fill.abort();
+                }
+            }
+        }
+    }
+
+    private static boolean isFfmpegAvailable(String ffmpegPath) {
+        try {
+            Process process = new ProcessBuilder(ffmpegPath, "-version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                return process.waitFor(FFMPEG_CHECK_TIMEOUT_SECONDS, TimeUnit.SECONDS) && process.exitValue() == 0;
+            } finally {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runFfmpeg(Path log, String... arguments) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(ffmpegPath, "-nostdin", "-hide_banner", "-loglevel", "error", "-y"));
+        command.addAll(List.of(arguments));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                throw new IOException("ffmpeg did not finish within " + timeoutMinutes + " minutes");
+            }
+        } finally {
+            // Kills the encoder on timeout or interruption; a no-op once it has exited
+            process.destroyForcibly();
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("ffmpeg exited with status " + process.exitValue() + ": " + tail(log));
+        }
+    }
+
+    private static String tail(Path log) {
+        try {
+            String text = Files.readString(log, StandardCharsets.UTF_8).trim();
+            return text.length() > LOG_TAIL_CHARS ? text.substring(text.length() - LOG_TAIL_CHARS) : text;
+        } catch (IOException e) {
+            return "(no output)";
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Failed to delete transcode directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface EncoderTask {
+        String run(Path workDir) throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,104 @@
+package springContents.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reduces decoded 16-bit samples to the compact peak array drawn by the audio player.
+ * While decoding, the peak absolute amplitude of every 20 ms is kept; when the audio ends the
+ * buckets are merged down to at most the requested number of peaks. The encoded form is a
+ * 16-byte header (the ASCII magic "SBWF", a version byte, three reserved bytes, then the
+ * duration in milliseconds and the peak count as big-endian 32-bit integers) followed by one
+ * unsigned byte per peak, 0 for silence to 255 for full scale.
+ */
+final class WaveformPeaks {
+    private static final byte[] MAGIC = {'S', 'B', 'W', 'F'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int BUCKETS_PER_SECOND = 50;
+
+    private final int sampleRate;
+    private final int channels;
+    private final int samplesPerBucket;
+    private byte[] buckets = new byte[4096];
+    private int bucketCount;
+    private int bucketPeak;
+    private int bucketSamples;
+    private long totalSamples;
+
+    /**
+     * @param sampleRate the sample rate of the decoded audio
+     * @param channels the number of interleaved channels
+     */
+    WaveformPeaks(int sampleRate, int channels) {
+        this.sampleRate = Math.max(1, sampleRate);
+        this.channels = Math.max(1, channels);
+        this.samplesPerBucket = Math.max(1, this.sampleRate * this.channels / BUCKETS_PER_SECOND);
+    }
+
+    /**
+     * Adds interleaved samples.
+     *
+     * @param samples the samples
+     * @param length the number of samples to take from the start of the array
+     */
+    void add(short[] samples, int length) {
+        for (int i = 0; i < length; i++) {
+            add(samples[i]);
+        }
+    }
+
+    /**
+     * Adds one sample.
+     *
+     * @param sample the sample
+     */
+    void add(short sample) {
+        int amplitude = Math.abs(sample);
+        if (amplitude > bucketPeak) {
+            bucketPeak = amplitude;
+        }
+        totalSamples++;
+        if (++bucketSamples == samplesPerBucket) {
+            closeBucket();
+        }
+    }
+
+    /**
+     * Encodes the peaks.
+     *
+     * @param maxPeaks the most peaks to keep
+     * @return the encoded waveform
+     */
+    byte[] encode(int maxPeaks) {
+        if (bucketSamples > 0) {
+            closeBucket();
+        }
+
+        int group = Math.max(1, (bucketCount + maxPeaks - 1) / maxPeaks);
+        int peakCount = (bucketCount + group - 1) / group;
+        ByteBuffer encoded = ByteBuffer.allocate(HEADER_BYTES + peakCount);
+        encoded.put(MAGIC).put(VERSION).put(new byte[3]);
+        encoded.putInt((int) Math.min(Integer.MAX_VALUE, totalSamples * 1000 / ((long) sampleRate * channels)));
+        encoded.putInt(peakCount);
+        for (int peak = 0; peak < peakCount; peak++) {
+            int max = 0;
+            int end = Math.min(bucketCount, (peak + 1) * group);
+            for (int bucket = peak * group; bucket < end; bucket++) {
+                max = Math.max(max, buckets[bucket] & 0xff);
+            }
+            encoded.put((byte) max);
+        }
+        return encoded.array();
+    }
+
+    private void closeBucket() {
+        if (bucketCount == buckets.length) {
+            buckets = Arrays.copyOf(buckets, buckets.length * 2);
+        }
+        // 0..32768 scaled to one unsigned byte
+        buckets[bucketCount++] = (byte) Math.min(255, bucketPeak >> 7);
+        bucketPeak = 0;
+        bucketSamples = 0;
+    }
+}
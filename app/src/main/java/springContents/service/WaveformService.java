@@ -0,0 +1,180 @@
+package springContents.service;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.BitstreamException;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.DecoderException;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.SampleBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Computes waveform peaks for recordings so the player can draw a waveform without
+ * downloading the audio. The recording is decoded once in the background, WAV through
+ * javax.sound and MP3 through JLayer, and the peaks (see {@link WaveformPeaks}) are stored
+ * in the series bucket as a small sidecar object next to the recording.
+ */
+@Service
+public class WaveformService {
+    private static final Logger logger = LoggerFactory.getLogger(WaveformService.class);
+    private static final String SIDECAR_SUFFIX = ".peaks";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final S3Service s3Service;
+    private final int maxPeaks;
+
+    /**
+     * Constructs a new WaveformService.
+     *
+     * @param s3Service the S3Service holding the recordings and their sidecars
+     * @param maxPeaks the most peaks stored per recording
+     */
+    @Autowired
+    public WaveformService(S3Service s3Service, @Value("${waveform.peaks:2000}") int maxPeaks) {
+        this.s3Service = s3Service;
+        this.maxPeaks = Math.max(1, maxPeaks);
+    }
+
+    /**
+     * Gets the key of the waveform sidecar of a recording.
+     *
+     * @param audioKey the key of the recording's audio file
+     * @return the sidecar key
+     */
+    public static String sidecarKey(String audioKey) {
+        return audioKey + SIDECAR_SUFFIX;
+    }
+
+    /**
+     * Decodes a recording and stores its waveform sidecar.
+     *
+     * @param seriesId the series ID
+     * @param key the key of the audio file in the series bucket
+     * @return true if the waveform was stored, false if the audio format cannot be decoded
+     * @throws IOException if the audio cannot be read or is corrupt
+     */
+    public boolean generate(Long seriesId, String key) throws IOException {
+        long start = System.nanoTime();
+        ResponseInputStream<GetObjectResponse> object = s3Service.getAudioFileFromSeriesBucket(seriesId, key);
+        WaveformPeaks peaks = null;
+        try {
+            peaks = decode(new BufferedInputStream(object, BUFFER_SIZE));
+        } finally {
+            if (peaks == null) {
+                // Don't let the SDK drain the rest of the object from S3
+                object.abort();
+            }
+            object.close();
+        }
+        if (peaks == null) {
+            return false;
+        }
+
+        s3Service.putSeriesObject(seriesId, sidecarKey(key), peaks.encode(maxPeaks), "application/octet-stream");
+        logger.info("Computed waveform of {}/{} in {} ms", seriesId, key, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * Decodes the audio into peaks, recognizing the format from its first bytes.
+     *
+     * @return the peaks, or null if the format is not supported
+     */
+    private WaveformPeaks decode(BufferedInputStream in) throws IOException {
+        in.mark(12);
+        byte[] magic = in.readNBytes(12);
+        in.reset();
+
+        if (magic.length == 12 && startsWith(magic, 0, "RIFF") && startsWith(magic, 8, "WAVE")) {
+            return decodeWav(in);
+        }
+        if (magic.length >= 2 && (startsWith(magic, 0, "ID3")
+                || ((magic[0] & 0xff) == 0xff && (magic[1] & 0xe0) == 0xe0))) {
+            return decodeMp3(in);
+        }
+        return null;
+    }
+
+    private WaveformPeaks decodeWav(InputStream in) throws IOException {
+        AudioInputStream source;
+        try {
+            source = AudioSystem.getAudioInputStream(in);
+        } catch (UnsupportedAudioFileException e) {
+            return null;
+        }
+
+        AudioFormat format = source.getFormat();
+        AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+        AudioInputStream decoded;
+        try {
+            decoded = format.matches(pcm) ? source : AudioSystem.getAudioInputStream(pcm, source);
+        } catch (IllegalArgumentException e) {
+            // No converter from this WAV encoding to 16-bit PCM
+            return null;
+        }
+
+        WaveformPeaks peaks = new WaveformPeaks(Math.round(format.getSampleRate()), format.getChannels());
+        try (decoded) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = decoded.readNBytes(buffer, 0, buffer.length)) > 0) {
+                for (int i = 0; i + 1 < read; i += 2) {
+                    peaks.add((short) ((buffer[i] & 0xff) | (buffer[i + 1] << 8)));
+                }
+            }
+        }
+        return peaks;
+    }
+
+    private WaveformPeaks decodeMp3(InputStream in) throws IOException {
+        Bitstream bitstream = new Bitstream(in);
+        Decoder decoder = new Decoder();
+        WaveformPeaks peaks = null;
+        try {
+            Header header;
+            while ((header = bitstream.readFrame()) != null) {
+                try {
+                    SampleBuffer output = (SampleBuffer) decoder.decodeFrame(header, bitstream);
+                    if (peaks == null) {
+                        peaks = new WaveformPeaks(output.getSampleFrequency(), output.getChannelCount());
+                    }
+                    peaks.add(output.getBuffer(), output.getBufferLength());
+                } catch (DecoderException e) {
+                    // A corrupt frame is skipped, as a player would
+                } finally {
+                    bitstream.closeFrame();
+                }
+            }
+        } catch (BitstreamException e) {
+            throw new IOException("Failed to read MP3 stream", e);
+        }
+        if (peaks == null) {
+            throw new IOException("No MP3 frames found");
+        }
+        return peaks;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (bytes[offset + i] != (byte) ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
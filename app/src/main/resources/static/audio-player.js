@@ -2,6 +2,7 @@
 let currentAudioFileName = null;
 let animationFrameId = null;
 const SKIP_INTERVAL = 15; // 15 seconds
+const AUDIO_LIST_PAGE_SIZE = 200;
 
 // DOM elements - will be initialized after DOM loads
 let mainAudio;
@@ -218,7 +219,64 @@ function escapeHtml(text) {
 }
 
 /**
- * Load audio files from API
+ * Create the list entry of an audio file
+ * @param {string} fileName - The S3 key of the file
+ * @returns {HTMLElement} The list entry
+ */
+function createAudioItem(fileName) {
+    const audioItem = document.createElement('div');
+    audioItem.className = 'audio-item';
+    audioItem.dataset.fileName = fileName;
+
+    const displayName = fileName.split('/').pop();
+    const mimeType = getMimeType(fileName);
+    const isSupported = canPlayFormat(mimeType);
+    const fileExtension = getFileExtension(fileName);
+
+    const playButton = document.createElement('button');
+    playButton.className = 'audio-item-play-btn';
+    playButton.textContent = '▶';
+    playButton.title = isSupported ? 'Play' : 'Format not supported by your browser';
+
+    if (!isSupported) {
+        playButton.disabled = true;
+        playButton.style.backgroundColor = '#95a5a6';
+        playButton.style.cursor = 'not-allowed';
+    } else {
+        playButton.onclick = () => {
+            if (currentAudioFileName === fileName && !mainAudio.paused) {
+                mainAudio.pause();
+            } else {
+                playAudioFile(fileName);
+            }
+        };
+    }
+
+    const contentDiv = document.createElement('div');
+    contentDiv.className = 'audio-item-content';
+
+    const titleDiv = document.createElement('div');
+    titleDiv.className = 'audio-item-title';
+    titleDiv.textContent = displayName;
+
+    contentDiv.appendChild(titleDiv);
+
+    // Add unsupported message if format isn't supported
+    if (!isSupported) {
+        const unsupportedMsg = document.createElement('div');
+        unsupportedMsg.className = 'unsupported-message';
+        unsupportedMsg.textContent = `⚠️ Your browser cannot play .${fileExtension} files`;
+        contentDiv.appendChild(unsupportedMsg);
+    }
+
+    audioItem.appendChild(playButton);
+    audioItem.appendChild(contentDiv);
+
+    return audioItem;
+}
+
+/**
+ * Load audio files from API, a page at a time so the list fills in as pages arrive
  */
 async function loadAudioFiles() {
     const loadingDiv = document.getElementById('loading');
@@ -230,66 +288,27 @@ async function loadAudioFiles() {
     audioListDiv.innerHTML = '';
 
     try {
-        const response = await fetch('/api/audio/list');
-        const data = await response.json();
+        let after = null;
+        let count = 0;
+        do {
+            const params = new URLSearchParams({ limit: AUDIO_LIST_PAGE_SIZE });
+            if (after) {
+                params.set('after', after);
+            }
+            const response = await fetch('/api/audio/list?' + params);
+            const data = await response.json();
 
-        if (data.success && data.files) {
-            if (data.files.length === 0) {
-                audioListDiv.innerHTML = '<p style="text-align: center; color: #666; padding: 2rem;">No audio files found.</p>';
-            } else {
-                data.files.forEach(fileName => {
-                    const audioItem = document.createElement('div');
-                    audioItem.className = 'audio-item';
-                    audioItem.dataset.fileName = fileName;
-
-                    const displayName = fileName.split('/').pop();
-                    const mimeType = getMimeType(fileName);
-                    const isSupported = canPlayFormat(mimeType);
-                    const fileExtension = getFileExtension(fileName);
-
-                    const playButton = document.createElement('button');
-                    playButton.className = 'audio-item-play-btn';
-                    playButton.textContent = '▶';
-                    playButton.title = isSupported ? 'Play' : 'Format not supported by your browser';
-
-                    if (!isSupported) {
-                        playButton.disabled = true;
-                        playButton.style.backgroundColor = '#95a5a6';
-                        playButton.style.cursor = 'not-allowed';
-                    } else {
-                        playButton.onclick = () => {
-                            if (currentAudioFileName === fileName && !mainAudio.paused) {
-                                mainAudio.pause();
-                            } else {
-                                playAudioFile(fileName);
-                            }
-                        };
-                    }
-
-                    const contentDiv = document.createElement('div');
-                    contentDiv.className = 'audio-item-content';
-
-                    const titleDiv = document.createElement('div');
-                    titleDiv.className = 'audio-item-title';
-                    titleDiv.textContent = displayName;
-
-                    contentDiv.appendChild(titleDiv);
-
-                    // Add unsupported message if format isn't supported
-                    if (!isSupported) {
-                        const unsupportedMsg = document.createElement('div');
-                        unsupportedMsg.className = 'unsupported-message';
-                        unsupportedMsg.textContent = `⚠️ Your browser cannot play .${fileExtension} files`;
-                        contentDiv.appendChild(unsupportedMsg);
-                    }
-
-                    audioItem.appendChild(playButton);
-                    audioItem.appendChild(contentDiv);
-                    audioListDiv.appendChild(audioItem);
-                });
+            if (!data.success || !data.files) {
+                throw new Error(data.message || 'Failed to load audio files');
             }
-        } else {
-            throw new Error(data.message || 'Failed to load audio files');
+            data.files.forEach(fileName => audioListDiv.appendChild(createAudioItem(fileName)));
+            count += data.files.length;
+            after = data.next;
+            loadingDiv.style.display = 'none';
+        } while (after);
+
+        if (count === 0) {
+            audioListDiv.innerHTML = '<p style="text-align: center; color: #666; padding: 2rem;">No audio files found.</p>';
         }
     } catch (error) {
         console.error('Error loading audio files:', error);
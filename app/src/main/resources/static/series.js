@@ -8,6 +8,9 @@ let pendingRemoveUserName = null;
 let pendingAddGabbaiUserId = null;
 let pendingAddGabbaiUserName = null;
 const SKIP_INTERVAL = 15; // 15 seconds
+const UPLOAD_PARALLEL_CHUNKS = 3;
+const UPLOAD_CHUNK_ATTEMPTS = 5;
+const WAVEFORM_HEIGHT = 48; // px, matches .progress-bar-track.has-waveform
 let subscriberTypes = [];
 let currentSubscription = null;
 let isSubscribed = false;
@@ -541,17 +544,146 @@ async function submitUpload() {
   document.getElementById('progress-container').classList.add('active');
   document.getElementById('progress-text').textContent = 'Preparing upload...';
 
-  const formData = new FormData();
-  formData.append('title', title);
-  formData.append('recordedAt', recordedAt);
-  formData.append('keyword1', keyword1);
-  formData.append('keyword2', keyword2);
-  formData.append('keyword3', keyword3);
-  formData.append('keyword4', keyword4);
-  formData.append('keyword5', keyword5);
-  formData.append('keyword6', keyword6);
+  const details = { title, recordedAt, keyword1, keyword2, keyword3, keyword4, keyword5, keyword6 };
   if (description) {
-    formData.append('description', description);
+    details.description = description;
+  }
+
+  // Chunk checksums need Web Crypto, which browsers only offer on secure pages
+  if (window.crypto && window.crypto.subtle) {
+    uploadInChunks(audioFile, details);
+  } else {
+    uploadAsForm(audioFile, details);
+  }
+}
+
+function uploadFinished(response) {
+  updateProgress(100, 'Upload complete!');
+  showSuccess(response.message || 'Shiur uploaded successfully!');
+  setTimeout(() => {
+    closeUploadModal();
+    loadRecordings();
+  }, 2000);
+}
+
+function uploadFailed(message) {
+  showError(message);
+  document.getElementById('submit-upload-btn').disabled = false;
+}
+
+// Uploads the file in chunks that are checksummed and retried individually, so a dropped
+// connection only costs the chunks in flight rather than the whole recording
+async function uploadInChunks(audioFile, details) {
+  const uploadsUrl = `/api/series/${currentSeriesId}/uploads`;
+  let upload;
+
+  try {
+    const startResponse = await fetch(uploadsUrl, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify({
+        fileName: audioFile.name,
+        fileSize: audioFile.size,
+        contentType: audioFile.type
+      })
+    });
+    upload = await startResponse.json();
+    if (!startResponse.ok || !upload.success) {
+      uploadFailed(upload.message || 'Upload failed. Please try again.');
+      return;
+    }
+
+    const uploadUrl = `${uploadsUrl}/${upload.uploadId}`;
+    const received = new Set(upload.receivedChunks);
+    const pending = [];
+    for (let chunk = 1; chunk <= upload.totalChunks; chunk++) {
+      if (!received.has(chunk)) {
+        pending.push(chunk);
+      }
+    }
+
+    const reportProgress = () => {
+      updateProgress(Math.round((received.size / upload.totalChunks) * 100), 'Uploading...');
+    };
+    reportProgress();
+
+    const sendChunk = async (chunk) => {
+      const start = (chunk - 1) * upload.chunkSize;
+      const blob = audioFile.slice(start, Math.min(start + upload.chunkSize, audioFile.size));
+      const bytes = await blob.arrayBuffer();
+      const digest = new Uint8Array(await crypto.subtle.digest('SHA-256', bytes));
+      const checksum = btoa(String.fromCharCode(...digest));
+
+      for (let attempt = 1; ; attempt++) {
+        try {
+          const response = await fetch(`${uploadUrl}/chunks/${chunk}`, {
+            method: 'PUT',
+            headers: {
+              'Content-Type': 'application/octet-stream',
+              'Content-Digest': `sha-256=:${checksum}:`
+            },
+            body: bytes
+          });
+          if (response.ok) {
+            received.add(chunk);
+            reportProgress();
+            return;
+          }
+          // Client errors will not go away by retrying
+          if (response.status >= 400 && response.status < 500) {
+            const result = await response.json().catch(() => ({}));
+            throw new Error(result.message || `Chunk ${chunk} was rejected.`);
+          }
+          if (attempt >= UPLOAD_CHUNK_ATTEMPTS) {
+            throw new Error(`Chunk ${chunk} failed. Please try again.`);
+          }
+        } catch (error) {
+          if (!(error instanceof TypeError) || attempt >= UPLOAD_CHUNK_ATTEMPTS) {
+            throw error;
+          }
+          // A TypeError from fetch is a network failure; wait and retry the chunk
+        }
+        await new Promise(resolve => setTimeout(resolve, 1000 * 2 ** (attempt - 1)));
+      }
+    };
+
+    const workers = [];
+    for (let i = 0; i < Math.min(UPLOAD_PARALLEL_CHUNKS, pending.length); i++) {
+      workers.push((async () => {
+        while (pending.length > 0) {
+          await sendChunk(pending.shift());
+        }
+      })());
+    }
+    await Promise.all(workers);
+
+    updateProgress(100, 'Finishing upload...');
+    const completeResponse = await fetch(`${uploadUrl}/complete`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify(details)
+    });
+    const result = await completeResponse.json();
+    if (completeResponse.ok && result.success) {
+      uploadFinished(result);
+    } else {
+      uploadFailed(result.message || 'Upload failed. Please try again.');
+    }
+
+  } catch (error) {
+    console.error('Error uploading shiur:', error);
+    uploadFailed(error.message || 'An error occurred during upload. Please try again.');
+    if (upload && upload.uploadId) {
+      // Discard the chunks sent; they are also cleaned up later if this request fails
+      fetch(`${uploadsUrl}/${upload.uploadId}`, { method: 'DELETE' }).catch(() => {});
+    }
+  }
+}
+
+function uploadAsForm(audioFile, details) {
+  const formData = new FormData();
+  for (const [name, value] of Object.entries(details)) {
+    formData.append(name, value);
   }
   formData.append('audioFile', audioFile);
 
@@ -566,43 +698,29 @@ async function submitUpload() {
     });
 
     xhr.addEventListener('load', () => {
-      if (xhr.status === 200) {
-        const response = JSON.parse(xhr.responseText);
-        if (response.success) {
-          updateProgress(100, 'Upload complete!');
-          showSuccess(response.message || 'Shiur uploaded successfully!');
-          setTimeout(() => {
-            closeUploadModal();
-            loadRecordings();
-          }, 2000);
-        } else {
-          showError(response.message || 'Upload failed.');
-          document.getElementById('submit-upload-btn').disabled = false;
-        }
+      const response = JSON.parse(xhr.responseText);
+      if (xhr.status === 200 && response.success) {
+        uploadFinished(response);
       } else {
-        const response = JSON.parse(xhr.responseText);
-        showError(response.message || 'Upload failed. Please try again.');
-        document.getElementById('submit-upload-btn').disabled = false;
+        uploadFailed(response.message || 'Upload failed. Please try again.');
       }
     });
 
     xhr.addEventListener('error', () => {
-      showError('Network error occurred. Please try again.');
-      document.getElementById('submit-upload-btn').disabled = false;
+      uploadFailed('Network error occurred. Please try again.');
     });
 
     xhr.addEventListener('abort', () => {
-      showError('Upload was cancelled.');
-      document.getElementById('submit-upload-btn').disabled = false;
+      uploadFailed('Upload was cancelled.');
     });
 
-    xhr.open('POST', `/api/series/${currentSeriesId}/recordings`);
+    // The audio file must stay the last field: the server streams it to storage as it arrives
+    xhr.open('POST', `/api/series/${currentSeriesId}/recordings/stream`);
     xhr.send(formData);
 
   } catch (error) {
     console.error('Error uploading shiur:', error);
-    showError('An error occurred during upload. Please try again.');
-    document.getElementById('submit-upload-btn').disabled = false;
+    uploadFailed('An error occurred during upload. Please try again.');
   }
 }
 
@@ -672,6 +790,7 @@ function createRecordingItem(recording) {
   item.className = 'recording-item';
   item.dataset.recordingId = recording.recordingId;
   item.dataset.s3FilePath = recording.s3FilePath;
+  item.dataset.hlsAvailable = recording.hlsAvailable ? 'true' : 'false';
 
   const recordedDate = new Date(recording.recordedAt);
   const formattedDate = formatRecordingDate(recordedDate);
@@ -697,7 +816,9 @@ function createRecordingItem(recording) {
 
   const date = document.createElement('div');
   date.className = 'recording-date';
-  date.textContent = formattedDate;
+  date.textContent = recording.durationMs
+    ? `${formattedDate} · ${formatTime(recording.durationMs / 1000)}`
+    : formattedDate;
 
   info.appendChild(title);
   info.appendChild(date);
@@ -786,8 +907,7 @@ function playRecording(recordingId, s3FilePath) {
     playPauseBtn.textContent = '⏳';
   }
 
-  const streamUrl = `/api/audio/series/${currentSeriesId}/stream/${encodeURIComponent(s3FilePath)}`;
-  mainAudio.src = streamUrl;
+  mainAudio.src = getStreamUrl(recordingId, s3FilePath);
   mainAudio.load();
 
   const tryPlay = () => {
@@ -804,6 +924,21 @@ function playRecording(recordingId, s3FilePath) {
   tryPlay();
 }
 
+function getStreamUrl(recordingId, s3FilePath) {
+  const encodedPath = encodeURIComponent(s3FilePath);
+  const item = document.querySelector(`.recording-item[data-recording-id="${recordingId}"]`);
+
+  // Browsers with native HLS (Safari, iOS) fetch only the segments being played
+  if (item && item.dataset.hlsAvailable === 'true' && mainAudio.canPlayType('application/vnd.apple.mpegurl')) {
+    return `/api/audio/series/${currentSeriesId}/hls/${encodedPath}/playlist.m3u8`;
+  }
+
+  // The server streams the low-bitrate Opus rendition when there is one;
+  // browsers that cannot play Opus ask for the original upload instead
+  const original = mainAudio.canPlayType('audio/ogg; codecs="opus"') ? '' : '?original=true';
+  return `/api/audio/series/${currentSeriesId}/stream/${encodedPath}${original}`;
+}
+
 function showPlayerInRecording(recordingId) {
   document.querySelectorAll('.recording-player').forEach(p => p.style.display = 'none');
 
@@ -866,6 +1001,7 @@ function createPlayerControls(recordingId) {
 
   progressTrack.appendChild(progressFill);
   progressContainer.appendChild(progressTrack);
+  loadWaveform(recordingId, progressTrack);
 
   // Time display
   const timeDisplay = document.createElement('div');
@@ -905,6 +1041,57 @@ function createPlayerControls(recordingId) {
   return controls;
 }
 
+// Draws the recording's precomputed waveform peaks behind the progress bar.
+// Waveforms are computed in the background after upload, so a missing one
+// just leaves the plain progress bar.
+async function loadWaveform(recordingId, track) {
+  const item = document.querySelector(`.recording-item[data-recording-id="${recordingId}"]`);
+  if (!item) return;
+
+  try {
+    const response = await fetch(
+      `/api/audio/series/${currentSeriesId}/waveform/${encodeURIComponent(item.dataset.s3FilePath)}`,
+      { credentials: 'include' });
+    if (!response.ok) return;
+
+    // "SBWF", version, 3 reserved bytes, duration (ms), peak count, one byte per peak
+    const view = new DataView(await response.arrayBuffer());
+    if (view.byteLength < 16 || view.getUint32(0) !== 0x53425746 || view.getUint8(4) !== 1) return;
+    const count = Math.min(view.getUint32(12), view.byteLength - 16);
+    if (count === 0) return;
+
+    let loudest = 1;
+    for (let i = 0; i < count; i++) {
+      loudest = Math.max(loudest, view.getUint8(16 + i));
+    }
+
+    const canvas = document.createElement('canvas');
+    canvas.className = 'progress-bar-waveform';
+    const ratio = window.devicePixelRatio || 1;
+    canvas.width = Math.max(1, Math.round(track.clientWidth * ratio));
+    canvas.height = Math.max(1, Math.round(WAVEFORM_HEIGHT * ratio));
+    track.classList.add('has-waveform');
+    track.insertBefore(canvas, track.firstChild);
+
+    const context = canvas.getContext('2d');
+    context.fillStyle = '#9bb8cf';
+    const middle = canvas.height / 2;
+    for (let x = 0; x < canvas.width; x++) {
+      // Each pixel column shows the loudest peak it covers
+      const from = Math.floor(x * count / canvas.width);
+      const to = Math.max(from + 1, Math.floor((x + 1) * count / canvas.width));
+      let peak = 0;
+      for (let i = from; i < to; i++) {
+        peak = Math.max(peak, view.getUint8(16 + i));
+      }
+      const height = Math.max(ratio, (peak / loudest) * canvas.height);
+      context.fillRect(x, middle - height / 2, 1, height);
+    }
+  } catch (error) {
+    console.warn('Could not load waveform:', error);
+  }
+}
+
 function updateAllPlayButtons() {
   document.querySelectorAll('.recording-item').forEach(item => {
     const btn = item.querySelector('.recording-play-btn');
@@ -0,0 +1,168 @@
+package springContents.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultipartBodyReaderTest {
+
+    private static final String BOUNDARY = "----ShiurBankBoundary7MA4YWxkTrZu0gW";
+
+    @Test
+    void readsFieldsAndFilePart() throws IOException {
+        byte[] audio = randomBytes(1000);
+        MultipartBodyReader reader = reader(body("", audio), Integer.MAX_VALUE);
+
+        MultipartBodyReader.Part title = reader.nextPart();
+        assertEquals("title", title.getName());
+        assertNull(title.getFileName());
+        assertEquals("Daf Yomi Berachos 2", title.readString(1024));
+
+        MultipartBodyReader.Part file = reader.nextPart();
+        assertEquals("audio", file.getName());
+        assertEquals("shiur.mp3", file.getFileName());
+        assertEquals("audio/mpeg", file.getContentType());
+        assertArrayEquals(audio, file.getInputStream().readAllBytes());
+
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void skipsPreamble() throws IOException {
+        MultipartBodyReader reader = reader(body("This is the preamble.\r\nIt is ignored.\r\n", randomBytes(10)),
+                Integer.MAX_VALUE);
+
+        MultipartBodyReader.Part title = reader.nextPart();
+        assertEquals("title", title.getName());
+        assertEquals("Daf Yomi Berachos 2", title.readString(1024));
+    }
+
+    @Test
+    void findsDelimiterSplitAcrossReads() throws IOException {
+        // Larger than the reader's buffer, so the delimiter also lands across a buffer refill
+        byte[] audio = randomBytes(200_000);
+        byte[] body = body("", audio);
+        for (int chunk : new int[] {1, 3, BOUNDARY.length() + 3, 65_535}) {
+            MultipartBodyReader reader = reader(body, chunk);
+            assertEquals("Daf Yomi Berachos 2", reader.nextPart().readString(1024), "chunk " + chunk);
+            assertArrayEquals(audio, reader.nextPart().getInputStream().readAllBytes(), "chunk " + chunk);
+            assertNull(reader.nextPart(), "chunk " + chunk);
+        }
+    }
+
+    @Test
+    void keepsContentThatOnlyStartsLikeTheDelimiter() throws IOException {
+        byte[] audio = ("before\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1) + "X after")
+                .getBytes(StandardCharsets.ISO_8859_1);
+        MultipartBodyReader reader = reader(body("", audio), 2);
+
+        reader.nextPart();
+        assertArrayEquals(audio, reader.nextPart().getInputStream().readAllBytes());
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void skipsUnreadPart() throws IOException {
+        MultipartBodyReader reader = reader(body("", randomBytes(100)), Integer.MAX_VALUE);
+
+        reader.nextPart();
+        MultipartBodyReader.Part file = reader.nextPart();
+        assertEquals("audio", file.getName());
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void rejectsTruncatedBody() throws IOException {
+        byte[] body = body("", randomBytes(5000));
+        byte[] truncated = new byte[body.length - 3000];
+        System.arraycopy(body, 0, truncated, 0, truncated.length);
+        MultipartBodyReader reader = reader(truncated, Integer.MAX_VALUE);
+
+        reader.nextPart();
+        InputStream file = reader.nextPart().getInputStream();
+        assertThrows(IOException.class, file::readAllBytes);
+    }
+
+    @Test
+    void rejectsBodyEndingInPartHeaders() {
+        byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-da").getBytes(StandardCharsets.ISO_8859_1);
+        MultipartBodyReader reader = reader(body, Integer.MAX_VALUE);
+
+        assertThrows(IOException.class, reader::nextPart);
+    }
+
+    @Test
+    void rejectsOverLongField() throws IOException {
+        MultipartBodyReader reader = reader(body("", randomBytes(10)), Integer.MAX_VALUE);
+
+        MultipartBodyReader.Part title = reader.nextPart();
+        assertThrows(IOException.class, () -> title.readString(5));
+    }
+
+    @Test
+    void rejectsOverLongPartHeader() {
+        String header = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + "x".repeat(9000) + "\"\r\n\r\n";
+        MultipartBodyReader reader = reader(header.getBytes(StandardCharsets.ISO_8859_1), Integer.MAX_VALUE);
+
+        assertThrows(IOException.class, reader::nextPart);
+    }
+
+    @Test
+    void extractsBoundaryFromContentType() {
+        assertEquals(BOUNDARY, MultipartBodyReader.boundaryOf("multipart/form-data; boundary=" + BOUNDARY));
+        assertEquals("quoted", MultipartBodyReader.boundaryOf("Multipart/Form-Data; boundary=\"quoted\""));
+        assertNull(MultipartBodyReader.boundaryOf("application/json"));
+        assertNull(MultipartBodyReader.boundaryOf("multipart/form-data"));
+        assertNull(MultipartBodyReader.boundaryOf("multipart/form-data; boundary=" + "b".repeat(71)));
+    }
+
+    /**
+     * A title field followed by an audio file part, with an optional preamble.
+     */
+    private static byte[] body(String preamble, byte[] audio) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        write(body, preamble);
+        write(body, "--" + BOUNDARY + "\r\n");
+        write(body, "Content-Disposition: form-data; name=\"title\"\r\n\r\n");
+        write(body, "Daf Yomi Berachos 2\r\n");
+        write(body, "--" + BOUNDARY + "\r\n");
+        write(body, "Content-Disposition: form-data; name=\"audio\"; filename=\"shiur.mp3\"\r\n");
+        write(body, "Content-Type: audio/mpeg\r\n\r\n");
+        body.writeBytes(audio);
+        write(body, "\r\n--" + BOUNDARY + "--\r\n");
+        return body.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * A reader over a stream that returns at most maxRead bytes per read, as a slow client would.
+     */
+    private static MultipartBodyReader reader(byte[] body, int maxRead) {
+        InputStream in = new ByteArrayInputStream(body) {
+            @Override
+            public synchronized int read(byte[] target, int offset, int length) {
+                return super.read(target, offset, Math.min(length, maxRead));
+            }
+        };
+        return new MultipartBodyReader(in, BOUNDARY);
+    }
+}
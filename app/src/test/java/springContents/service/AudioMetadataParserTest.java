@@ -0,0 +1,305 @@
+package springContents.service;
+
+import org.junit.jupiter.api.Test;
+import springContents.model.AudioMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudioMetadataParserTest {
+
+    // MPEG 1 Layer III, 128 kbps, 44.1 kHz, stereo: 417 bytes per frame
+    private static final byte[] MP3_FRAME_HEADER = {(byte) 0xff, (byte) 0xfb, (byte) 0x90, 0x00};
+    private static final int MP3_FRAME_LENGTH = 417;
+
+    @Test
+    void readsConstantBitrateMp3AfterId3Tag() throws IOException {
+        Bytes file = new Bytes();
+        // ID3v2 tag of 1000 bytes holding a pair of MPEG 1 Layer II frame headers, which must be skipped
+        file.ascii("ID3").u8(4).u8(0).u8(0).syncSafe(1000);
+        byte[] tag = new byte[1000];
+        byte[] layer2 = {(byte) 0xff, (byte) 0xfd, (byte) 0x90, 0x00};
+        System.arraycopy(layer2, 0, tag, 0, 4);
+        System.arraycopy(layer2, 0, tag, 522, 4);
+        file.bytes(tag);
+        for (int i = 0; i < 100; i++) {
+            file.bytes(mp3Frame());
+        }
+        // ID3v1 tag, excluded from the audio size
+        file.ascii("TAG").bytes(new byte[125]);
+
+        AudioMetadata metadata = parse(file.toArray());
+
+        assertEquals("mp3", metadata.getCodec());
+        assertEquals(44100, metadata.getSampleRate());
+        assertEquals(2, metadata.getChannels());
+        assertEquals(128, metadata.getBitrateKbps());
+        assertEquals(100L * MP3_FRAME_LENGTH * 8 / 128, metadata.getDurationMs());
+    }
+
+    @Test
+    void readsVbrMp3FromXingHeader() throws IOException {
+        byte[] first = mp3Frame();
+        // After the 4-byte header and 32 bytes of stereo MPEG 1 side information
+        Bytes xing = new Bytes().ascii("Xing").u32be(3).u32be(1000).u32be(500_000);
+        System.arraycopy(xing.toArray(), 0, first, 36, 16);
+        Bytes file = new Bytes().bytes(first).bytes(mp3Frame()).bytes(mp3Frame());
+
+        AudioMetadata metadata = parse(file.toArray());
+
+        assertEquals("mp3", metadata.getCodec());
+        assertEquals(1000L * 1152 * 1000 / 44100, metadata.getDurationMs());
+        assertEquals((int) (500_000L * 8 / metadata.getDurationMs()), metadata.getBitrateKbps());
+    }
+
+    @Test
+    void readsVbrMp3FromVbriHeader() throws IOException {
+        byte[] first = mp3Frame();
+        // Always 32 bytes after the frame header: version, delay and quality, then bytes and frames
+        Bytes vbri = new Bytes().ascii("VBRI").u16be(1).u16be(0).u16be(75).u32be(250_000).u32be(500);
+        System.arraycopy(vbri.toArray(), 0, first, 36, 18);
+        Bytes file = new Bytes().bytes(first).bytes(mp3Frame()).bytes(mp3Frame());
+
+        AudioMetadata metadata = parse(file.toArray());
+
+        assertEquals(500L * 1152 * 1000 / 44100, metadata.getDurationMs());
+        assertEquals((int) (250_000L * 8 / metadata.getDurationMs()), metadata.getBitrateKbps());
+    }
+
+    @Test
+    void readsOpusDurationFromLastOggPage() throws IOException {
+        int serial = 0x1234;
+        Bytes file = new Bytes();
+        file.oggPage(2, 0, serial, new Bytes().ascii("OpusHead").u8(1).u8(1).u16le(312).u32le(16000)
+                .u16le(0).u8(0).toArray());
+        file.bytes(new byte[100_000]);
+        // A full final page, so its header starts further from the end than the first probe reads
+        file.oggPage(4, 48000L * 5 + 312, serial, new byte[255 * 255]);
+        byte[] bytes = file.toArray();
+
+        CountingSource source = new CountingSource(bytes);
+        AudioMetadata metadata = AudioMetadataParser.parse(source);
+
+        assertEquals("opus", metadata.getCodec());
+        assertEquals(1, metadata.getChannels());
+        assertEquals(16000, metadata.getSampleRate());
+        assertEquals(5000L, metadata.getDurationMs());
+        assertEquals((int) (bytes.length * 8L / 5000), metadata.getBitrateKbps());
+        assertTrue(source.bytesRead < bytes.length, "read " + source.bytesRead + " of " + bytes.length);
+    }
+
+    @Test
+    void readsVorbisFromOgg() throws IOException {
+        int serial = 7;
+        Bytes file = new Bytes();
+        file.oggPage(2, 0, serial, new Bytes().u8(1).ascii("vorbis").u32le(0).u8(2).u32le(44100)
+                .bytes(new byte[14]).toArray());
+        file.bytes(new byte[20_000]);
+        file.oggPage(4, 44100L * 3, serial, new byte[10]);
+
+        AudioMetadata metadata = parse(file.toArray());
+
+        assertEquals("vorbis", metadata.getCodec());
+        assertEquals(2, metadata.getChannels());
+        assertEquals(44100, metadata.getSampleRate());
+        assertEquals(3000L, metadata.getDurationMs());
+    }
+
+    @Test
+    void readsMp4WithMoovAtEnd() throws IOException {
+        Bytes mvhd = new Bytes().u32be(0).u32be(0).u32be(0).u32be(44100).u32be(44100 * 60).bytes(new byte[80]);
+        Bytes hdlr = new Bytes().u32be(0).u32be(0).ascii("soun").bytes(new byte[13]);
+        Bytes sampleEntry = new Bytes().u32be(36).ascii("mp4a").bytes(new byte[6]).u16be(1).bytes(new byte[8])
+                .u16be(2).u16be(16).u32be(0).u32be(44100 << 16);
+        Bytes stsd = new Bytes().u32be(0).u32be(1).bytes(sampleEntry.toArray());
+        byte[] trak = box("trak",
+                box("tkhd", new byte[84]),
+                box("mdia",
+                        box("mdhd", new byte[24]),
+                        box("hdlr", hdlr.toArray()),
+                        box("minf", box("stbl", box("stsd", stsd.toArray())))));
+        byte[] mdat = new byte[480_000];
+
+        Bytes file = new Bytes()
+                .bytes(box("ftyp", new Bytes().ascii("M4A ").u32be(0).ascii("M4A ").toArray()))
+                .bytes(box("mdat", mdat))
+                .bytes(box("moov", box("mvhd", mvhd.toArray()), trak));
+        byte[] bytes = file.toArray();
+
+        CountingSource source = new CountingSource(bytes);
+        AudioMetadata metadata = AudioMetadataParser.parse(source);
+
+        assertEquals("aac", metadata.getCodec());
+        assertEquals(2, metadata.getChannels());
+        assertEquals(44100, metadata.getSampleRate());
+        assertEquals(60_000L, metadata.getDurationMs());
+        assertEquals((int) (mdat.length * 8L / 60_000), metadata.getBitrateKbps());
+        // Only box headers are read, not the media data
+        assertTrue(source.bytesRead < 4096, "read " + source.bytesRead + " bytes");
+    }
+
+    @Test
+    void readsFlacStreamInfo() throws IOException {
+        int sampleRate = 44100;
+        long totalSamples = sampleRate * 10L;
+        Bytes file = new Bytes().ascii("fLaC");
+        // STREAMINFO, not last
+        file.u8(0x00).u24be(34)
+                .u16be(4096).u16be(4096).u24be(0).u24be(0)
+                .u8(sampleRate >> 12).u8((sampleRate >> 4) & 0xff)
+                .u8(((sampleRate & 0xf) << 4) | (1 << 1)) // 2 channels, 16 bits per sample
+                .u8(0xf0 | (int) (totalSamples >> 32))
+                .u32be(totalSamples)
+                .bytes(new byte[16]);
+        // PADDING, last
+        file.u8(0x81).u24be(100).bytes(new byte[100]);
+        file.bytes(new byte[100_000]);
+
+        AudioMetadata metadata = parse(file.toArray());
+
+        assertEquals("flac", metadata.getCodec());
+        assertEquals(44100, metadata.getSampleRate());
+        assertEquals(2, metadata.getChannels());
+        assertEquals(10_000L, metadata.getDurationMs());
+        assertEquals(80, metadata.getBitrateKbps());
+    }
+
+    @Test
+    void readsWavFormatAndDataChunks() throws IOException {
+        Bytes file = new Bytes().ascii("RIFF").u32le(0).ascii("WAVE");
+        file.ascii("fmt ").u32le(16).u16le(1).u16le(1).u32le(16000).u32le(32000).u16le(2).u16le(16);
+        // An odd-sized chunk is padded to an even length
+        file.ascii("LIST").u32le(3).bytes(new byte[4]);
+        file.ascii("data").u32le(320_000).bytes(new byte[320_000]);
+
+        AudioMetadata metadata = parse(file.toArray());
+
+        assertEquals("pcm", metadata.getCodec());
+        assertEquals(1, metadata.getChannels());
+        assertEquals(16000, metadata.getSampleRate());
+        assertEquals(256, metadata.getBitrateKbps());
+        assertEquals(10_000L, metadata.getDurationMs());
+    }
+
+    @Test
+    void returnsNullForUnknownFormat() throws IOException {
+        assertNull(parse("This is not an audio file, just some text.".repeat(100).getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void returnsNullForTruncatedHeader() throws IOException {
+        assertNull(parse(new Bytes().ascii("fLaC").u8(0x80).u24be(34).u16be(4096).toArray()));
+    }
+
+    private static AudioMetadata parse(byte[] file) throws IOException {
+        return AudioMetadataParser.parse(new CountingSource(file));
+    }
+
+    private static byte[] mp3Frame() {
+        byte[] frame = new byte[MP3_FRAME_LENGTH];
+        System.arraycopy(MP3_FRAME_HEADER, 0, frame, 0, MP3_FRAME_HEADER.length);
+        return frame;
+    }
+
+    private static byte[] box(String type, byte[]... children) {
+        Bytes payload = new Bytes();
+        for (byte[] child : children) {
+            payload.bytes(child);
+        }
+        byte[] content = payload.toArray();
+        return new Bytes().u32be(8 + content.length).ascii(type).bytes(content).toArray();
+    }
+
+    /**
+     * An in-memory file that counts the bytes the parser reads.
+     */
+    private static final class CountingSource implements AudioMetadataParser.Source {
+        private final byte[] file;
+        long bytesRead;
+
+        CountingSource(byte[] file) {
+            this.file = file;
+        }
+
+        @Override
+        public long size() {
+            return file.length;
+        }
+
+        @Override
+        public byte[] read(long offset, int length) {
+            int from = (int) Math.min(offset, file.length);
+            int to = (int) Math.min(offset + length, file.length);
+            bytesRead += to - from;
+            return Arrays.copyOfRange(file, from, to);
+        }
+    }
+
+    /**
+     * Builds binary fixtures.
+     */
+    private static final class Bytes {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Bytes u8(int value) {
+            out.write(value);
+            return this;
+        }
+
+        Bytes u16be(int value) {
+            return u8(value >> 8).u8(value);
+        }
+
+        Bytes u24be(int value) {
+            return u8(value >> 16).u8(value >> 8).u8(value);
+        }
+
+        Bytes u32be(long value) {
+            return u8((int) (value >> 24)).u8((int) (value >> 16)).u8((int) (value >> 8)).u8((int) value);
+        }
+
+        Bytes u16le(int value) {
+            return u8(value).u8(value >> 8);
+        }
+
+        Bytes u32le(long value) {
+            return u8((int) value).u8((int) (value >> 8)).u8((int) (value >> 16)).u8((int) (value >> 24));
+        }
+
+        Bytes syncSafe(int value) {
+            return u8((value >> 21) & 0x7f).u8((value >> 14) & 0x7f).u8((value >> 7) & 0x7f).u8(value & 0x7f);
+        }
+
+        Bytes ascii(String text) {
+            return bytes(text.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        Bytes bytes(byte[] bytes) {
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        /**
+         * An Ogg page holding one packet; the CRC is left at zero, as the parser does not check it.
+         */
+        Bytes oggPage(int headerType, long granule, int serial, byte[] packet) {
+            int segments = packet.length / 255 + (packet.length % 255 == 0 && packet.length > 0 ? 0 : 1);
+            ascii("OggS").u8(0).u8(headerType).u32le(granule).u32le(granule >>> 32).u32le(serial).u32le(0).u32le(0);
+            u8(segments);
+            for (int i = 0; i < segments; i++) {
+                u8(Math.min(255, packet.length - i * 255));
+            }
+            return bytes(packet);
+        }
+
+        byte[] toArray() {
+            return out.toByteArray();
+        }
+    }
+}
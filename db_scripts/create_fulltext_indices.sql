@@ -0,0 +1,6 @@
+-- FULLTEXT indexes used when search.sql.strategy=fulltext.
+-- The recording index must list exactly the columns SearchDAO passes to MATCH().
+ALTER TABLE shiur_recordings
+    ADD FULLTEXT INDEX ft_recording_text (title, description, keyword_1, keyword_2, keyword_3,
+                                          keyword_4, keyword_5, keyword_6);
+ALTER TABLE shiur_series ADD FULLTEXT INDEX ft_series_description (description);
\ No newline at end of file
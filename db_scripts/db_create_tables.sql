@@ -67,6 +67,15 @@ CREATE TABLE shiur_recordings (
     keyword_5      VARCHAR(100) NOT NULL,
     keyword_6      VARCHAR(100) NOT NULL,
     description    TEXT NULL,
+    file_size      BIGINT NULL,
+    duration_ms    BIGINT NULL,
+    bitrate_kbps   INT NULL,
+    codec          VARCHAR(32) NULL,
+    sample_rate    INT NULL,
+    channels       TINYINT NULL,
+    probed_at      TIMESTAMP NULL,
+    rendition_path TEXT NULL,
+    hls_playlist_path TEXT NULL,
     CONSTRAINT fk_recording_series FOREIGN KEY (series_id) REFERENCES shiur_series(series_id) ON DELETE CASCADE
 ) ENGINE=InnoDB;
 
@@ -164,4 +173,70 @@ CREATE TABLE users_pending_approval_to_series (
         FOREIGN KEY (series_id)
         REFERENCES shiur_series(series_id)
         ON DELETE RESTRICT
-) ENGINE=InnoDB;
\ No newline at end of file
+) ENGINE=InnoDB;
+
+-- Resumable recording uploads: one row per upload in progress, one row per chunk received.
+-- Each chunk is a part of the S3 multipart upload; rows are removed on complete or abort.
+CREATE TABLE recording_uploads (
+    upload_id      CHAR(36) PRIMARY KEY,
+    series_id      BIGINT NOT NULL,
+    user_id        BIGINT NOT NULL,
+    s3_key         VARCHAR(255) NOT NULL,
+    s3_upload_id   VARCHAR(1024) NOT NULL,
+    file_name      VARCHAR(255) NOT NULL,
+    content_type   VARCHAR(255) NULL,
+    file_size      BIGINT NOT NULL,
+    chunk_size     INT NOT NULL,
+    created_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_recording_uploads_updated (updated_at),
+    CONSTRAINT fk_upload_series FOREIGN KEY (series_id) REFERENCES shiur_series(series_id) ON DELETE CASCADE,
+    CONSTRAINT fk_upload_user FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+CREATE TABLE recording_upload_parts (
+    upload_id      CHAR(36) NOT NULL,
+    part_number    INT NOT NULL,
+    size           BIGINT NOT NULL,
+    sha256         CHAR(44) NOT NULL,
+    etag           VARCHAR(128) NOT NULL,
+    PRIMARY KEY (upload_id, part_number),
+    CONSTRAINT fk_upload_part_upload FOREIGN KEY (upload_id) REFERENCES recording_uploads(upload_id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+-- Post-upload processing: one row per recording and stage, claimed and run by the job workers.
+-- Failed jobs are retried with backoff until max attempts, then left in DEAD for inspection.
+CREATE TABLE recording_jobs (
+    job_id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    recording_id   BIGINT NOT NULL,
+    stage          VARCHAR(32) NOT NULL,
+    status         ENUM('PENDING', 'RUNNING', 'SUCCEEDED', 'DEAD') NOT NULL DEFAULT 'PENDING',
+    attempts       INT NOT NULL DEFAULT 0,
+    next_run_at    TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_by      VARCHAR(100) NULL,
+    locked_at      TIMESTAMP NULL,
+    last_error     TEXT NULL,
+    created_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uq_recording_job_stage (recording_id, stage),
+    INDEX idx_recording_jobs_due (status, next_run_at),
+    CONSTRAINT fk_job_recording FOREIGN KEY (recording_id) REFERENCES shiur_recordings(recording_id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+-- Removal of the S3 bucket of a deleted series, leased like recording_jobs. There is no
+-- foreign key: the series row is already gone when the teardown runs. objects_deleted counts
+-- across attempts.
+CREATE TABLE series_teardowns (
+    series_id       BIGINT PRIMARY KEY,
+    requested_by    BIGINT NOT NULL,
+    status          ENUM('PENDING', 'RUNNING', 'SUCCEEDED', 'DEAD') NOT NULL DEFAULT 'PENDING',
+    attempts        INT NOT NULL DEFAULT 0,
+    objects_deleted BIGINT NOT NULL DEFAULT 0,
+    next_run_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_by       VARCHAR(100) NULL,
+    locked_at       TIMESTAMP NULL,
+    last_error      TEXT NULL,
+    created_at      TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at      TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_series_teardowns_due (status, next_run_at)
+) ENGINE=InnoDB;